@@ -11,12 +11,12 @@
  *******************************************************************************/
 package pathexpression;
 
-class PathExpression<V> {
-  private IRegEx<V> ex;
+class PathExpression<W> {
+  private W ex;
   private int w;
   private int u;
 
-  public IRegEx<V> getExpression() {
+  public W getExpression() {
     return ex;
   }
 
@@ -29,7 +29,7 @@ class PathExpression<V> {
   }
 
 
-  public PathExpression(IRegEx<V> reg, int u, int w) {
+  public PathExpression(W reg, int u, int w) {
     this.ex = reg;
     this.u = u;
     this.w = w;
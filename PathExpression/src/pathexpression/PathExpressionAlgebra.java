@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package pathexpression;
+
+/**
+ * The interpretation of path expressions in a domain <code>W</code>, e.g. the weights of a semiring. Path
+ * expressions over edge labels <code>V</code> are built from the labels by union, concatenation and Kleene star.
+ * The algebra is never asked to combine with {@link #zero()}, as the solver handles absent paths itself.
+ */
+public interface PathExpressionAlgebra<V, W> {
+  /**
+   * The value of the empty set of paths.
+   */
+  W zero();
+
+  /**
+   * The value of the empty path.
+   */
+  W one();
+
+  W label(V label);
+
+  W union(W a, W b);
+
+  W concatenate(W a, W b);
+
+  W star(W a);
+}
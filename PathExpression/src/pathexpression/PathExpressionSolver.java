@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package pathexpression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Solves path problems on a labeled graph by Tarjan's elimination algorithm. Instead of building regular
+ * expressions, the elimination is carried out directly in a {@link PathExpressionAlgebra}, such that every shared
+ * subexpression is evaluated exactly once. The elimination and the resulting path sequence are computed on the
+ * first query and shared by all later queries, the values from a source node to all other nodes are cached per
+ * source. When edges are added to the graph, {@link #invalidate()} has to be called.
+ * <p>
+ * Absent paths are represented by null internally, the algebra is only applied to values of existing paths.
+ */
+public class PathExpressionSolver<N, V, W> {
+
+  private final LabeledGraph<N, V> graph;
+  private final PathExpressionAlgebra<V, W> algebra;
+  private BiMap<N, Integer> nodeToIntMap = HashBiMap.create();
+  private SparseTable<W> table;
+  private List<PathExpression<W>> pathSequence;
+  private Map<N, List<W>> allPathsFrom = Maps.newHashMap();
+
+  public PathExpressionSolver(LabeledGraph<N, V> graph, PathExpressionAlgebra<V, W> algebra) {
+    this.graph = graph;
+    this.algebra = algebra;
+  }
+
+  private void initNodesToIntMap() {
+    for (N node : graph.getNodes()) {
+      nodeToIntMap.put(node, (nodeToIntMap.size() + 1));
+    }
+  }
+
+  private Integer getIntegerFor(N node) {
+    assert nodeToIntMap.get(node) != null;
+    return nodeToIntMap.get(node);
+  }
+
+  public W getValueBetween(N a, N b) {
+    if (!graph.getNodes().contains(a))
+      return algebra.zero();
+    return valueOrZero(computeAllPathFrom(a).get(getIntegerFor(b) - 1));
+  }
+
+  /**
+   * Answers the queries from <code>a</code> to each of the <code>targets</code> with a single pass over the
+   * path sequence.
+   */
+  public Map<N, W> getValuesBetween(N a, Collection<N> targets) {
+    Map<N, W> res = Maps.newHashMap();
+    if (!graph.getNodes().contains(a)) {
+      for (N b : targets)
+        res.put(b, algebra.zero());
+      return res;
+    }
+    List<W> all = computeAllPathFrom(a);
+    for (N b : targets) {
+      Integer i = nodeToIntMap.get(b);
+      res.put(b, i == null ? algebra.zero() : valueOrZero(all.get(i - 1)));
+    }
+    return res;
+  }
+
+  /**
+   * Discards the elimination and all cached values, they are recomputed on the next query.
+   */
+  public void invalidate() {
+    nodeToIntMap.clear();
+    table = null;
+    pathSequence = null;
+    allPathsFrom.clear();
+  }
+
+  private W valueOrZero(W value) {
+    return value == null ? algebra.zero() : value;
+  }
+
+  private List<W> computeAllPathFrom(N a) {
+    assert graph.getNodes().contains(a);
+    if (pathSequence == null) {
+      initNodesToIntMap();
+      eliminate();
+      pathSequence = extractPathSequence();
+    }
+    List<W> values = allPathsFrom.get(a);
+    if (values != null)
+      return values;
+    values = computeAllPathFrom(getIntegerFor(a));
+    allPathsFrom.put(a, values);
+    return values;
+  }
+
+  private List<W> computeAllPathFrom(int a) {
+    List<W> values = new ArrayList<>(Collections.<W>nCopies(nodeToIntMap.size(), null));
+    values.set(a - 1, algebra.one());
+    for (int i = 0; i < pathSequence.size(); i++) {
+      PathExpression<W> tri = pathSequence.get(i);
+      W valueVi = values.get(tri.getSource() - 1);
+      if (valueVi == null)
+        continue;
+      W expression = tri.getExpression();
+      if (tri.getSource() == tri.getTarget()) {
+        int vi = tri.getSource();
+        values.set(vi - 1, algebra.concatenate(valueVi, expression));
+      } else {
+        int wi = tri.getTarget();
+        W inter = algebra.concatenate(valueVi, expression);
+        values.set(wi - 1, union(values.get(wi - 1), inter));
+      }
+    }
+    return values;
+  }
+
+  private List<PathExpression<W>> extractPathSequence() {
+    int n = nodeToIntMap.size();
+    List<PathExpression<W>> list = new ArrayList<PathExpression<W>>();
+    for (int u = 1; u <= n; u++) {
+      int[] row = table.rowKeys(u);
+      for (int k = 0; k < table.rowSize(u); k++) {
+        if (row[k] >= u)
+          list.add(new PathExpression<W>(table.rowValue(u, k), u, row[k]));
+      }
+    }
+    for (int u = n; u > 0; u--) {
+      int[] row = table.rowKeys(u);
+      for (int k = 0; k < table.rowSize(u) && row[k] < u; k++) {
+        list.add(new PathExpression<W>(table.rowValue(u, k), u, row[k]));
+      }
+    }
+    return list;
+  }
+
+  private void eliminate() {
+    int numberOfNodes = nodeToIntMap.size();
+    table = new SparseTable<>(numberOfNodes);
+    for (Edge<N, V> e : graph.getEdges()) {
+      Integer head = getIntegerFor(e.getStart());
+      Integer tail = getIntegerFor(e.getTarget());
+      W label;
+      if (e.getLabel().equals(graph.epsilon())) {
+        label = algebra.one();
+      } else {
+        label = algebra.label(e.getLabel());
+      }
+      W pht = table.get(head, tail);
+      table.put(head, tail, pht == null ? label : algebra.union(label, pht));
+    }
+    for (int v = 1; v <= numberOfNodes; v++) {
+      W pvv = table.get(v, v);
+      if (pvv != null) {
+        pvv = algebra.star(pvv);
+        table.put(v, v, pvv);
+      }
+      int[] row = table.rowKeys(v);
+      int rowSize = table.rowSize(v);
+      for (int u : table.columnKeys(v)) {
+        if (u <= v)
+          continue;
+        W puv = table.get(u, v);
+        if (pvv != null) {
+          puv = algebra.concatenate(puv, pvv);
+          table.put(u, v, puv);
+        }
+        for (int k = 0; k < rowSize; k++) {
+          int w = row[k];
+          if (w <= v)
+            continue;
+          W pvw = table.rowValue(v, k);
+          W a = algebra.concatenate(puv, pvw);
+          table.put(u, w, union(table.get(u, w), a));
+        }
+      }
+    }
+  }
+
+  private W union(W old, W value) {
+    return old == null ? value : algebra.union(old, value);
+  }
+}
@@ -14,7 +14,7 @@ package pathexpression;
 
 
 public class RegEx<V> implements IRegEx<V> {
-  private static class Union<V> implements IRegEx<V> {
+  static class Union<V> implements IRegEx<V> {
     private IRegEx<V> b;
     private IRegEx<V> a;
 
@@ -83,7 +83,7 @@ public class RegEx<V> implements IRegEx<V> {
     }
 
   }
-  private static class Concatenate<V> implements IRegEx<V> {
+  static class Concatenate<V> implements IRegEx<V> {
     public IRegEx<V> b;
     public IRegEx<V> a;
 
@@ -137,7 +137,7 @@ public class RegEx<V> implements IRegEx<V> {
       return true;
     }
   }
-  private static class Star<V> implements IRegEx<V> {
+  static class Star<V> implements IRegEx<V> {
     public IRegEx<V> a;
 
     public Star(IRegEx<V> a) {
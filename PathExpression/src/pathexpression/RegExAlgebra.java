@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package pathexpression;
+
+/**
+ * Interprets path expressions as regular expressions, built either by the static methods of {@link RegEx} or
+ * by a {@link RegExFactory}.
+ */
+class RegExAlgebra<V> implements PathExpressionAlgebra<V, IRegEx<V>> {
+  private final RegExFactory<V> factory;
+  private final IRegEx<V> empty;
+  private final Epsilon<V> eps;
+
+  RegExAlgebra(V epsilon) {
+    this.factory = null;
+    this.empty = new RegEx.EmptySet<V>();
+    this.eps = new Epsilon<V>(epsilon);
+  }
+
+  RegExAlgebra(RegExFactory<V> factory) {
+    this.factory = factory;
+    this.empty = factory.empty();
+    this.eps = (Epsilon<V>) factory.epsilon();
+  }
+
+  @Override
+  public IRegEx<V> zero() {
+    return empty;
+  }
+
+  @Override
+  public Epsilon<V> one() {
+    return eps;
+  }
+
+  @Override
+  public IRegEx<V> label(V label) {
+    return factory == null ? new RegEx.Plain<V>(label) : factory.plain(label);
+  }
+
+  @Override
+  public IRegEx<V> union(IRegEx<V> a, IRegEx<V> b) {
+    return factory == null ? RegEx.<V>union(a, b) : factory.union(a, b);
+  }
+
+  @Override
+  public IRegEx<V> concatenate(IRegEx<V> a, IRegEx<V> b) {
+    return factory == null ? RegEx.<V>concatenate(a, b) : factory.concatenate(a, b);
+  }
+
+  @Override
+  public IRegEx<V> star(IRegEx<V> a) {
+    return factory == null ? RegEx.<V>star(a) : factory.star(a);
+  }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package pathexpression;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates regular expressions in a {@link PathExpressionAlgebra}. Values are memoized per subexpression
+ * instance, an expression built by a {@link RegExFactory} is therefore evaluated in time linear in the number of
+ * its distinct subexpressions, although its tree may be exponentially larger.
+ */
+public class RegExEvaluator<V, W> {
+  private final PathExpressionAlgebra<V, W> algebra;
+  private final Map<IRegEx<V>, W> values = new IdentityHashMap<>();
+
+  public RegExEvaluator(PathExpressionAlgebra<V, W> algebra) {
+    this.algebra = algebra;
+  }
+
+  public W evaluate(IRegEx<V> reg) {
+    W value = values.get(reg);
+    if (value == null) {
+      value = compute(reg);
+      values.put(reg, value);
+    }
+    return value;
+  }
+
+  private W compute(IRegEx<V> reg) {
+    if (reg instanceof RegEx.EmptySet)
+      return algebra.zero();
+    if (reg instanceof Epsilon)
+      return algebra.one();
+    if (reg instanceof RegEx.Plain)
+      return algebra.label(((RegEx.Plain<V>) reg).v);
+    if (reg instanceof RegEx.Union) {
+      RegEx.Union<V> u = (RegEx.Union<V>) reg;
+      return union(evaluate(u.getFirst()), evaluate(u.getSecond()));
+    }
+    if (reg instanceof RegEx.Concatenate) {
+      RegEx.Concatenate<V> c = (RegEx.Concatenate<V>) reg;
+      return concatenate(evaluate(c.getFirst()), evaluate(c.getSecond()));
+    }
+    if (reg instanceof RegEx.Star)
+      return algebra.star(evaluate(((RegEx.Star<V>) reg).getPlain()));
+    if (reg instanceof RegExFactory.Star)
+      return algebra.star(evaluate(((RegExFactory.Star<V>) reg).getPlain()));
+    if (reg instanceof RegExFactory.Union) {
+      W res = null;
+      for (IRegEx<V> op : ((RegExFactory.Union<V>) reg).getOperands())
+        res = res == null ? evaluate(op) : union(res, evaluate(op));
+      return res;
+    }
+    if (reg instanceof RegExFactory.Concatenate) {
+      List<IRegEx<V>> operands = ((RegExFactory.Concatenate<V>) reg).getOperands();
+      W res = evaluate(operands.get(0));
+      for (int i = 1; i < operands.size(); i++)
+        res = concatenate(res, evaluate(operands.get(i)));
+      return res;
+    }
+    throw new IllegalArgumentException("Unknown regular expression " + reg);
+  }
+
+  private W union(W a, W b) {
+    W zero = algebra.zero();
+    if (a.equals(zero))
+      return b;
+    if (b.equals(zero))
+      return a;
+    return algebra.union(a, b);
+  }
+
+  private W concatenate(W a, W b) {
+    W zero = algebra.zero();
+    if (a.equals(zero) || b.equals(zero))
+      return zero;
+    return algebra.concatenate(a, b);
+  }
+}
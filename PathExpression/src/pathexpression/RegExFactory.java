@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package pathexpression;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Creates hash-consed regular expressions: every expression built by one factory exists exactly once, hence two
+ * expressions of a factory are equal if and only if they are identical. Unions and concatenations are n-ary and
+ * flattened, the operands of a union are sorted and duplicate free. Additionally, the factory normalizes
+ * <ul>
+ * <li>a . EMPTY = EMPTY . a = EMPTY and a . EPS = EPS . a = a,</li>
+ * <li>a* . a* = a*,</li>
+ * <li>(a U EPS)* = a*, (a*)* = a*, EMPTY* = EPS* = EPS.</li>
+ * </ul>
+ * In contrast to the static methods of {@link RegEx}, concatenation with the empty set yields the empty set. A
+ * factory is not thread-safe.
+ */
+public class RegExFactory<V> {
+  private final Map<IRegEx<V>, IRegEx<V>> unique = Maps.newHashMap();
+  private final Map<IRegEx<V>, Integer> order = new IdentityHashMap<>();
+  private final IRegEx<V> empty;
+  private final IRegEx<V> epsilon;
+  private final Comparator<IRegEx<V>> byOrder = new Comparator<IRegEx<V>>() {
+    @Override
+    public int compare(IRegEx<V> o1, IRegEx<V> o2) {
+      return Integer.compare(order.get(o1), order.get(o2));
+    }
+  };
+
+  public RegExFactory(V epsilon) {
+    this.empty = canonical(new RegEx.EmptySet<V>());
+    this.epsilon = canonical(new Epsilon<V>(epsilon));
+  }
+
+  public IRegEx<V> empty() {
+    return empty;
+  }
+
+  public IRegEx<V> epsilon() {
+    return epsilon;
+  }
+
+  public IRegEx<V> plain(V v) {
+    return canonical(new RegEx.Plain<V>(v));
+  }
+
+  /**
+   * Returns the expression of this factory that is structurally equal to <code>reg</code>. Expressions built by
+   * the static methods of {@link RegEx} are rebuilt and normalized.
+   */
+  public IRegEx<V> intern(IRegEx<V> reg) {
+    if (order.containsKey(reg))
+      return reg;
+    if (reg instanceof RegEx.Union) {
+      RegEx.Union<V> u = (RegEx.Union<V>) reg;
+      return union(intern(u.getFirst()), intern(u.getSecond()));
+    }
+    if (reg instanceof RegEx.Concatenate) {
+      RegEx.Concatenate<V> c = (RegEx.Concatenate<V>) reg;
+      return concatenate(intern(c.getFirst()), intern(c.getSecond()));
+    }
+    if (reg instanceof RegEx.Star) {
+      return star(intern(((RegEx.Star<V>) reg).getPlain()));
+    }
+    if (reg instanceof Union || reg instanceof Concatenate || reg instanceof Star)
+      throw new IllegalArgumentException("Expression " + reg + " was created by a different factory");
+    if (reg instanceof RegEx.EmptySet)
+      return empty;
+    if (reg instanceof Epsilon)
+      return epsilon;
+    return canonical(reg);
+  }
+
+  public IRegEx<V> union(IRegEx<V> a, IRegEx<V> b) {
+    a = intern(a);
+    b = intern(b);
+    if (a == b || b == empty)
+      return a;
+    if (a == empty)
+      return b;
+    List<IRegEx<V>> operands = Lists.newArrayList();
+    addUnionOperands(a, operands);
+    addUnionOperands(b, operands);
+    IRegEx<V>[] sorted = operands.toArray(newArray(operands.size()));
+    Arrays.sort(sorted, byOrder);
+    int size = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (size == 0 || sorted[size - 1] != sorted[i])
+        sorted[size++] = sorted[i];
+    }
+    if (size == 1)
+      return sorted[0];
+    return canonical(new Union<V>(Arrays.copyOf(sorted, size)));
+  }
+
+  private void addUnionOperands(IRegEx<V> reg, List<IRegEx<V>> operands) {
+    if (reg instanceof Union)
+      operands.addAll(Arrays.asList(((Union<V>) reg).operands));
+    else
+      operands.add(reg);
+  }
+
+  public IRegEx<V> concatenate(IRegEx<V> a, IRegEx<V> b) {
+    a = intern(a);
+    b = intern(b);
+    if (a == empty || b == empty)
+      return empty;
+    if (a == epsilon)
+      return b;
+    if (b == epsilon)
+      return a;
+    List<IRegEx<V>> operands = Lists.newArrayList();
+    addConcatenateOperands(a, operands);
+    for (IRegEx<V> op : operandsOf(b)) {
+      IRegEx<V> last = operands.get(operands.size() - 1);
+      if (op instanceof Star && op == last)
+        continue;
+      operands.add(op);
+    }
+    if (operands.size() == 1)
+      return operands.get(0);
+    return canonical(new Concatenate<V>(operands.toArray(newArray(operands.size()))));
+  }
+
+  private void addConcatenateOperands(IRegEx<V> reg, List<IRegEx<V>> operands) {
+    operands.addAll(operandsOf(reg));
+  }
+
+  private List<IRegEx<V>> operandsOf(IRegEx<V> reg) {
+    if (reg instanceof Concatenate)
+      return Arrays.asList(((Concatenate<V>) reg).operands);
+    return Arrays.asList(reg);
+  }
+
+  public IRegEx<V> star(IRegEx<V> reg) {
+    reg = intern(reg);
+    if (reg == empty || reg == epsilon || reg instanceof Star)
+      return reg == empty ? epsilon : reg;
+    if (reg instanceof Union) {
+      IRegEx<V>[] operands = ((Union<V>) reg).operands;
+      if (Arrays.asList(operands).contains(epsilon)) {
+        IRegEx<V> withoutEpsilon = empty;
+        for (IRegEx<V> op : operands) {
+          if (op != epsilon)
+            withoutEpsilon = union(withoutEpsilon, op);
+        }
+        return star(withoutEpsilon);
+      }
+    }
+    return canonical(new Star<V>(reg));
+  }
+
+  /**
+   * The number of distinct expressions created by this factory.
+   */
+  public int size() {
+    return unique.size();
+  }
+
+  private IRegEx<V> canonical(IRegEx<V> reg) {
+    IRegEx<V> existing = unique.get(reg);
+    if (existing != null)
+      return existing;
+    unique.put(reg, reg);
+    order.put(reg, order.size());
+    return reg;
+  }
+
+  @SuppressWarnings("unchecked")
+  private IRegEx<V>[] newArray(int size) {
+    return new IRegEx[size];
+  }
+
+  /**
+   * Composite expressions compare their operands by identity, which coincides with structural equality as all
+   * operands are canonical.
+   */
+  abstract static class Node<V> implements IRegEx<V> {
+    final IRegEx<V>[] operands;
+    private final int hashCode;
+
+    Node(IRegEx<V>[] operands) {
+      this.operands = operands;
+      int h = getClass().hashCode();
+      for (IRegEx<V> op : operands)
+        h = 31 * h + System.identityHashCode(op);
+      this.hashCode = h;
+    }
+
+    public List<IRegEx<V>> getOperands() {
+      return Arrays.asList(operands);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (obj == null || getClass() != obj.getClass())
+        return false;
+      IRegEx<?>[] other = ((Node<?>) obj).operands;
+      if (other.length != operands.length)
+        return false;
+      for (int i = 0; i < operands.length; i++) {
+        if (operands[i] != other[i])
+          return false;
+      }
+      return true;
+    }
+
+    String toString(String open, String separator, String close) {
+      StringBuilder s = new StringBuilder(open);
+      for (int i = 0; i < operands.length; i++) {
+        if (i > 0)
+          s.append(separator);
+        s.append(operands[i]);
+      }
+      return s.append(close).toString();
+    }
+  }
+
+  public static class Union<V> extends Node<V> {
+    Union(IRegEx<V>[] operands) {
+      super(operands);
+    }
+
+    @Override
+    public String toString() {
+      return toString("{", " U ", "}");
+    }
+  }
+
+  public static class Concatenate<V> extends Node<V> {
+    Concatenate(IRegEx<V>[] operands) {
+      super(operands);
+    }
+
+    @Override
+    public String toString() {
+      return toString("(", " . ", ")");
+    }
+  }
+
+  public static class Star<V> extends Node<V> {
+    @SuppressWarnings("unchecked")
+    Star(IRegEx<V> plain) {
+      super(new IRegEx[] { plain });
+    }
+
+    public IRegEx<V> getPlain() {
+      return operands[0];
+    }
+
+    @Override
+    public String toString() {
+      return "[" + operands[0] + "]* ";
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package pathexpression;
+
+import java.util.Arrays;
+
+/**
+ * Square table of path expressions indexed by node numbers 1..n. Only non-empty cells are stored: every row
+ * keeps its columns sorted in a primitive int array next to the expressions, and every column keeps the sorted
+ * numbers of the rows that have an entry in it.
+ */
+class SparseTable<W> {
+  private final Line[] rows;
+  private final Line[] columns;
+
+  SparseTable(int size) {
+    rows = new Line[size + 1];
+    columns = new Line[size + 1];
+  }
+
+  /**
+   * Returns the expression at (i,j) or null if the cell is empty.
+   */
+  @SuppressWarnings("unchecked")
+  W get(int i, int j) {
+    Line row = rows[i];
+    if (row == null)
+      return null;
+    int idx = row.indexOf(j);
+    return idx < 0 ? null : (W) row.values[idx];
+  }
+
+  void put(int i, int j, W reg) {
+    if (rows[i] == null)
+      rows[i] = new Line(true);
+    if (rows[i].put(j, reg)) {
+      if (columns[j] == null)
+        columns[j] = new Line(false);
+      columns[j].put(i, null);
+    }
+  }
+
+  /**
+   * The sorted columns of the non-empty cells in row <code>i</code>. The array may be longer than the number
+   * of cells, see {@link #rowSize(int)}.
+   */
+  int[] rowKeys(int i) {
+    return rows[i] == null ? Line.EMPTY : rows[i].keys;
+  }
+
+  int rowSize(int i) {
+    return rows[i] == null ? 0 : rows[i].size;
+  }
+
+  @SuppressWarnings("unchecked")
+  W rowValue(int i, int k) {
+    return (W) rows[i].values[k];
+  }
+
+  /**
+   * A copy of the sorted rows of the non-empty cells in column <code>j</code>.
+   */
+  int[] columnKeys(int j) {
+    return columns[j] == null ? Line.EMPTY : Arrays.copyOf(columns[j].keys, columns[j].size);
+  }
+
+  private static class Line {
+    private static final int[] EMPTY = new int[0];
+    private int[] keys = new int[2];
+    private Object[] values;
+    private int size;
+
+    Line(boolean withValues) {
+      if (withValues)
+        values = new Object[2];
+    }
+
+    int indexOf(int key) {
+      return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Returns true if the key was not present before.
+     */
+    boolean put(int key, Object value) {
+      int idx = indexOf(key);
+      if (idx >= 0) {
+        if (values != null)
+          values[idx] = value;
+        return false;
+      }
+      idx = -idx - 1;
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        if (values != null)
+          values = Arrays.copyOf(values, size * 2);
+      }
+      System.arraycopy(keys, idx, keys, idx + 1, size - idx);
+      keys[idx] = key;
+      if (values != null) {
+        System.arraycopy(values, idx, values, idx + 1, size - idx);
+        values[idx] = value;
+      }
+      size++;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import pathexpression.IRegEx;
+import pathexpression.PathExpressionAlgebra;
+import pathexpression.PathExpressionComputer;
+import pathexpression.PathExpressionSolver;
+import pathexpression.RegExEvaluator;
+import pathexpression.RegExFactory;
+
+public class PathExpressionSolverTests {
+
+  @Test
+  public void shortestPath() {
+    IntGraph g = new IntGraph();
+    g.addEdge(1, "a", 2);
+    g.addEdge(2, "b", 2);
+    g.addEdge(2, "v", 4);
+    g.addEdge(1, "c", 3);
+    g.addEdge(3, "d", 5);
+    g.addEdge(5, "e", 4);
+    PathExpressionSolver<Integer, String, Integer> solver = new PathExpressionSolver<>(g, new ShortestPath());
+    assertEquals(2, (int) solver.getValueBetween(1, 4));
+    assertEquals(0, (int) solver.getValueBetween(2, 2));
+    assertEquals(Integer.MAX_VALUE, (int) solver.getValueBetween(4, 1));
+  }
+
+  @Test
+  public void sameAsEvaluatedExpression() {
+    IntGraph g = new IntGraph();
+    g.addEdge(1, "a", 2);
+    g.addEdge(2, "b", 1);
+    g.addEdge(2, "c", 3);
+    g.addEdge(1, g.epsilon(), 3);
+    g.addEdge(3, "d", 4);
+    g.addEdge(4, "e", 2);
+    RegExFactory<String> factory = new RegExFactory<>(g.epsilon());
+    PathExpressionComputer<Integer, String> expr = new PathExpressionComputer<>(g, factory);
+    PathExpressionSolver<Integer, String, Integer> solver = new PathExpressionSolver<>(g, new ShortestPath());
+    RegExEvaluator<String, Integer> evaluator = new RegExEvaluator<>(new ShortestPath());
+    for (int from = 1; from <= 4; from++) {
+      for (int to = 1; to <= 4; to++) {
+        IRegEx<String> reg = expr.getExpressionBetween(from, to);
+        assertEquals(solver.getValueBetween(from, to), evaluator.evaluate(reg));
+      }
+    }
+  }
+
+  /**
+   * Every label has length 1, the value of an expression is the length of its shortest word.
+   */
+  private static class ShortestPath implements PathExpressionAlgebra<String, Integer> {
+    @Override
+    public Integer zero() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Integer one() {
+      return 0;
+    }
+
+    @Override
+    public Integer label(String label) {
+      return 1;
+    }
+
+    @Override
+    public Integer union(Integer a, Integer b) {
+      return Math.min(a, b);
+    }
+
+    @Override
+    public Integer concatenate(Integer a, Integer b) {
+      return a + b;
+    }
+
+    @Override
+    public Integer star(Integer a) {
+      return 0;
+    }
+  }
+}
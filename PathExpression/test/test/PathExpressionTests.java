@@ -13,6 +13,9 @@ package test;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import org.junit.Test;
 
 import pathexpression.IRegEx;
@@ -247,6 +250,54 @@ public class PathExpressionTests {
     IRegEx<String> expected = a("a", "v");
     assertEquals(expected, expressionBetween);
   }
+
+  @Test
+  public void multipleTargets() {
+    IntGraph g = new IntGraph();
+    g.addEdge(1, "a", 2);
+    g.addEdge(2, "b", 3);
+    g.addEdge(1, "c", 3);
+    PathExpressionComputer<Integer, String> expr = new PathExpressionComputer<Integer, String>(g);
+    Map<Integer, IRegEx<String>> expressions = expr.getExpressionsBetween(1, Arrays.asList(2, 3, 5));
+    assertEquals(e("a"), expressions.get(2));
+    assertEquals(expr.getExpressionBetween(1, 3), expressions.get(3));
+    assertEquals(new RegEx.EmptySet<String>(), expressions.get(5));
+  }
+
+  @Test
+  public void invalidateAfterAddingEdge() {
+    IntGraph g = new IntGraph();
+    g.addEdge(1, "a", 2);
+    PathExpressionComputer<Integer, String> expr = new PathExpressionComputer<Integer, String>(g);
+    assertEquals(e("a"), expr.getExpressionBetween(1, 2));
+    g.addEdge(2, "v", 3);
+    expr.invalidate();
+    assertEquals(a("a", "v"), expr.getExpressionBetween(1, 3));
+  }
+
+  @Test
+  public void selfLoopOnTarget() {
+    IntGraph g = new IntGraph();
+    g.addEdge(1, "c", 2);
+    g.addEdge(2, "b", 2);
+    PathExpressionComputer<Integer, String> expr = new PathExpressionComputer<Integer, String>(g);
+    IRegEx<String> expressionBetween = expr.getExpressionBetween(1, 2);
+    IRegEx<String> expected = a("c", star("b"));
+    assertEquals(expected, expressionBetween);
+  }
+
+  @Test
+  public void longChain() {
+    IntGraph g = new IntGraph();
+    for (int i = 0; i < 50000; i++) {
+      g.addEdge(i, "a", i + 1);
+    }
+    PathExpressionComputer<Integer, String> expr = new PathExpressionComputer<Integer, String>(g);
+    IRegEx<String> expressionBetween = expr.getExpressionBetween(0, 2);
+    IRegEx<String> expected = a("a", "a");
+    assertEquals(expected, expressionBetween);
+  }
+
   private static IRegEx<String> e(String e) {
     return new RegEx.Plain<String>(e);
   }
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import pathexpression.IRegEx;
+import pathexpression.PathExpressionComputer;
+import pathexpression.RegEx;
+import pathexpression.RegExFactory;
+
+public class RegExFactoryTests {
+  private final RegExFactory<String> f = new RegExFactory<String>("EPS");
+
+  @Test
+  public void hashConsing() {
+    IRegEx<String> first = f.concatenate(f.plain("a"), f.star(f.plain("b")));
+    IRegEx<String> second = f.concatenate(f.plain("a"), f.star(f.plain("b")));
+    assertSame(first, second);
+  }
+
+  @Test
+  public void flattenAndSortUnion() {
+    IRegEx<String> a = f.plain("a");
+    IRegEx<String> b = f.plain("b");
+    IRegEx<String> c = f.plain("c");
+    assertSame(f.union(a, f.union(b, c)), f.union(f.union(c, b), a));
+    assertSame(f.union(a, b), f.union(f.union(a, b), a));
+  }
+
+  @Test
+  public void flattenConcatenate() {
+    IRegEx<String> a = f.plain("a");
+    IRegEx<String> b = f.plain("b");
+    IRegEx<String> c = f.plain("c");
+    assertSame(f.concatenate(a, f.concatenate(b, c)), f.concatenate(f.concatenate(a, b), c));
+  }
+
+  @Test
+  public void starRules() {
+    IRegEx<String> aStar = f.star(f.plain("a"));
+    assertSame(aStar, f.concatenate(aStar, aStar));
+    assertSame(aStar, f.star(f.union(f.plain("a"), f.epsilon())));
+    assertSame(aStar, f.star(aStar));
+    assertSame(f.epsilon(), f.star(f.empty()));
+  }
+
+  @Test
+  public void emptyAndEpsilon() {
+    IRegEx<String> a = f.plain("a");
+    assertSame(f.empty(), f.concatenate(a, f.empty()));
+    assertSame(a, f.concatenate(f.epsilon(), a));
+    assertSame(a, f.union(f.empty(), a));
+  }
+
+  @Test
+  public void internStaticExpressions() {
+    IRegEx<String> classic = RegEx.<String>union(new RegEx.Plain<String>("a"),
+        RegEx.<String>concatenate(new RegEx.Plain<String>("b"), new RegEx.Plain<String>("c")));
+    assertSame(f.union(f.concatenate(f.plain("b"), f.plain("c")), f.plain("a")), f.intern(classic));
+  }
+
+  @Test
+  public void computerWithFactory() {
+    IntGraph g = new IntGraph();
+    g.addEdge(1, "a", 2);
+    g.addEdge(2, "b", 2);
+    g.addEdge(2, "v", 4);
+    g.addEdge(1, "c", 3);
+    g.addEdge(3, g.epsilon(), 4);
+    PathExpressionComputer<Integer, String> expr = new PathExpressionComputer<Integer, String>(g, f);
+    IRegEx<String> expected = f.union(f.plain("c"),
+        f.concatenate(f.concatenate(f.plain("a"), f.star(f.plain("b"))), f.plain("v")));
+    assertSame(expected, expr.getExpressionBetween(1, 4));
+    assertEquals(f.empty(), expr.getExpressionBetween(4, 1));
+  }
+}
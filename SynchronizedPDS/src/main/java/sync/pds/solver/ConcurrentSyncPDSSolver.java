@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package sync.pds.solver;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.NestedWeightedPAutomatons;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.interfaces.Location;
+import wpds.interfaces.WPAUpdateListener;
+
+/**
+ * A {@link SyncPDSSolver} that saturates the call and the field pushdown system concurrently. The updates of the
+ * calling PDS and its automaton run one after the other, as do the updates of the field PDS and its automaton, rules
+ * and automaton listeners are handed to the owning side. The two sides only meet when a node becomes both calling and
+ * field context reachable, such nodes are processed in parallel. All tasks run on the <code>executor</code> passed to
+ * the constructor, the solver starts no threads of its own. Solvers can share one executor, it is owned by the
+ * caller and must not be shut down while a solver uses it.
+ * 
+ * {@link #computeSuccessor(Node)}, the weight functions and the {@link SyncPDSUpdateListener}s are therefore called
+ * from several threads concurrently. A listener registered while nodes are processed may see a node twice.
+ * {@link #solve(Node, Weight)} returns once all work is done and must not be called from a task of the executor.
+ */
+public abstract class ConcurrentSyncPDSSolver<Stmt extends Location, Fact, Field extends Location, W extends Weight>
+		extends SyncPDSSolver<Stmt, Fact, Field, W> {
+
+	private final Executor callExecutor;
+	private final Executor fieldExecutor;
+	private final Executor nodeExecutor;
+	private final Object lock = new Object();
+	private int pending;
+	private Throwable failure;
+
+	public ConcurrentSyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt, Fact>> initialFieldNode,
+			boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
+			boolean useFieldSummaries, NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries,
+			Executor executor) {
+		super(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries,
+				null, true);
+		callExecutor = new SerialExecutor(executor);
+		fieldExecutor = new SerialExecutor(executor);
+		nodeExecutor = executor;
+	}
+
+	@Override
+	public void solve(final Node<Stmt, Fact> curr, final W weight) {
+		submit(fieldExecutor, new Runnable() {
+			@Override
+			public void run() {
+				fieldAutomaton.addTransition(new Transition<Field, INode<Node<Stmt, Fact>>>(asFieldFact(curr),
+						emptyField(), fieldAutomaton.getInitialState()));
+			}
+		});
+		submit(callExecutor, new Runnable() {
+			@Override
+			public void run() {
+				Transition<Stmt, INode<Fact>> callTrans = new Transition<Stmt, INode<Fact>>(wrap(curr.fact()),
+						curr.stmt(), callAutomaton.getInitialState());
+				callAutomaton.addWeightForTransition(callTrans, weight);
+				callAutomaton.computeValues(callTrans, weight);
+			}
+		});
+		processNode(new WitnessNode<Stmt, Fact, Field>(curr.stmt(), curr.fact()));
+		awaitCompletion();
+	}
+
+	@Override
+	protected void processNode(final WitnessNode<Stmt, Fact, Field> witnessNode) {
+		submit(nodeExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.processNode(witnessNode);
+			}
+		});
+	}
+
+	@Override
+	public void addCallRule(final Rule<Stmt, INode<Fact>, W> rule) {
+		submit(callExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.addCallRule(rule);
+			}
+		});
+	}
+
+	@Override
+	public void addFieldRule(final Rule<Field, INode<Node<Stmt, Fact>>, W> rule) {
+		submit(fieldExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.addFieldRule(rule);
+			}
+		});
+	}
+
+	@Override
+	public void addCallRules(final Collection<Rule<Stmt, INode<Fact>, W>> rules) {
+		submit(callExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.addCallRules(rules);
+			}
+		});
+	}
+
+	@Override
+	public void addFieldRules(final Collection<Rule<Field, INode<Node<Stmt, Fact>>, W>> rules) {
+		submit(fieldExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.addFieldRules(rules);
+			}
+		});
+	}
+
+	@Override
+	protected void registerCallAutomatonListener(final WPAUpdateListener<Stmt, INode<Fact>, W> listener) {
+		submit(callExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.registerCallAutomatonListener(listener);
+			}
+		});
+	}
+
+	@Override
+	protected void registerFieldAutomatonListener(final WPAUpdateListener<Field, INode<Node<Stmt, Fact>>, W> listener) {
+		submit(fieldExecutor, new Runnable() {
+			@Override
+			public void run() {
+				ConcurrentSyncPDSSolver.super.registerFieldAutomatonListener(listener);
+			}
+		});
+	}
+
+	private void submit(Executor executor, final Runnable task) {
+		synchronized (lock) {
+			pending++;
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} catch (Throwable e) {
+						synchronized (lock) {
+							if (failure == null)
+								failure = e;
+						}
+					} finally {
+						synchronized (lock) {
+							if (--pending == 0)
+								lock.notifyAll();
+						}
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected(1, e);
+		}
+	}
+
+	/**
+	 * Accounts for <code>tasks</code> submitted tasks the executor rejected, {@link #awaitCompletion()} then
+	 * reports the rejection instead of waiting for them.
+	 */
+	private void rejected(int tasks, RejectedExecutionException e) {
+		synchronized (lock) {
+			if (failure == null)
+				failure = e;
+			pending -= tasks;
+			if (pending == 0)
+				lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Blocks until no rule, automaton update or node is pending anymore.
+	 * 
+	 * @throws IllegalStateException
+	 *             if one of the tasks failed.
+	 */
+	public void awaitCompletion() {
+		Throwable e;
+		synchronized (lock) {
+			while (pending > 0) {
+				try {
+					lock.wait();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the solver", ie);
+				}
+			}
+			e = failure;
+			failure = null;
+		}
+		if (e != null)
+			throw new IllegalStateException("Concurrent solver task failed", e);
+	}
+
+	/**
+	 * Runs the tasks submitted to it one after the other on the shared executor. If the shared executor rejects a
+	 * task, the task and all tasks queued behind it are dropped.
+	 */
+	private class SerialExecutor implements Executor {
+		private final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+		private final Executor executor;
+		private Runnable active;
+
+		SerialExecutor(Executor executor) {
+			this.executor = executor;
+		}
+
+		@Override
+		public synchronized void execute(final Runnable task) {
+			tasks.add(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						scheduleNext();
+					}
+				}
+			});
+			if (active == null)
+				scheduleNext();
+		}
+
+		private synchronized void scheduleNext() {
+			active = tasks.poll();
+			if (active == null)
+				return;
+			try {
+				executor.execute(active);
+			} catch (RejectedExecutionException e) {
+				int dropped = 1 + tasks.size();
+				tasks.clear();
+				active = null;
+				rejected(dropped, e);
+			}
+		}
+	}
+}
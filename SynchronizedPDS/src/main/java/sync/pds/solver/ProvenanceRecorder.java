@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package sync.pds.solver;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import sync.pds.solver.nodes.Node;
+import wpds.impl.Interner;
+import wpds.interfaces.Location;
+
+/**
+ * Records for each node reached by a {@link SyncPDSSolver} the flow edge it was first discovered through, see
+ * {@link SyncPDSSolver#setProvenanceRecorder(ProvenanceRecorder)}. Per node two ints and a reached bit are stored:
+ * the id of the predecessor node and the edge (its kind plus the id of the pushed or popped location). Paths are
+ * rebuilt on demand by {@link #witnessPath(Node)}.
+ * 
+ * A predecessor is only recorded for a node that is not reached yet, so every path ends at a node without
+ * predecessor: a seed of the solver or a node that became reachable through rules added outside of the solver's
+ * flow functions. The path follows flow edges between reached nodes, pops along it are not matched against the
+ * pushes before them.
+ */
+public class ProvenanceRecorder<Stmt extends Location, Fact, Field extends Location> {
+
+	public enum Edge {
+		NORMAL, CALL_PUSH, CALL_POP, FIELD_PUSH, FIELD_POP
+	}
+
+	private static final int NONE = -1;
+	private static final int KIND_BITS = 3;
+	private static final Edge[] EDGES = Edge.values();
+
+	private final Interner<Node<Stmt, Fact>> nodes = new Interner<Node<Stmt, Fact>>();
+	private final Interner<Object> locations = new Interner<Object>();
+	private final int maxNodes;
+	private int[] predecessors = new int[64];
+	private int[] edges = new int[64];
+	private final BitSet reached = new BitSet();
+
+	public ProvenanceRecorder() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Records at most <code>maxNodes</code> nodes, paths to nodes discovered afterwards are not available.
+	 */
+	public ProvenanceRecorder(int maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	synchronized void record(Node<Stmt, Fact> from, Node<Stmt, Fact> to, Edge edge, Object location) {
+		int toId = nodes.getId(to);
+		if (toId != NONE && predecessors[toId] != NONE)
+			return;
+		int fromId = intern(from);
+		if (fromId == NONE)
+			return;
+		if (toId == NONE) {
+			toId = intern(to);
+			if (toId == NONE)
+				return;
+		}
+		predecessors[toId] = fromId;
+		edges[toId] = edge.ordinal() | (location == null ? 0 : (locations.intern(location) + 1) << KIND_BITS);
+	}
+
+	synchronized void reached(Node<Stmt, Fact> node) {
+		int id = intern(node);
+		if (id != NONE)
+			reached.set(id);
+	}
+
+	private int intern(Node<Stmt, Fact> node) {
+		int id = nodes.getId(node);
+		if (id != NONE)
+			return id;
+		if (nodes.size() >= maxNodes)
+			return NONE;
+		id = nodes.intern(node);
+		if (id == predecessors.length) {
+			predecessors = Arrays.copyOf(predecessors, id * 2);
+			edges = Arrays.copyOf(edges, id * 2);
+		}
+		predecessors[id] = NONE;
+		return id;
+	}
+
+	/**
+	 * The path from a node without predecessor to <code>target</code>, or <code>null</code> if <code>target</code>
+	 * was not reached or not recorded. The first step has no edge.
+	 */
+	public synchronized List<Step<Stmt, Fact>> witnessPath(Node<Stmt, Fact> target) {
+		int id = nodes.getId(target);
+		if (id == NONE || !reached.get(id))
+			return null;
+		List<Step<Stmt, Fact>> path = Lists.newArrayList();
+		// Bounded by the number of nodes in case a concurrent solver raced on a node becoming reachable.
+		while (id != NONE && path.size() <= nodes.size()) {
+			int pred = predecessors[id];
+			if (pred == NONE) {
+				path.add(new Step<Stmt, Fact>(nodes.get(id), null, null));
+			} else {
+				int edge = edges[id];
+				int location = edge >>> KIND_BITS;
+				path.add(new Step<Stmt, Fact>(nodes.get(id), EDGES[edge & ((1 << KIND_BITS) - 1)],
+						location == 0 ? null : locations.get(location - 1)));
+			}
+			id = pred;
+		}
+		return Lists.reverse(path);
+	}
+
+	public synchronized int size() {
+		return nodes.size();
+	}
+
+	public static class Step<Stmt extends Location, Fact> {
+		private final Node<Stmt, Fact> node;
+		private final Edge edge;
+		private final Object location;
+
+		Step(Node<Stmt, Fact> node, Edge edge, Object location) {
+			this.node = node;
+			this.edge = edge;
+			this.location = location;
+		}
+
+		public Node<Stmt, Fact> node() {
+			return node;
+		}
+
+		/**
+		 * The edge from the previous step to this node.
+		 */
+		public Edge edge() {
+			return edge;
+		}
+
+		/**
+		 * The pushed call site, the pushed or popped field, <code>null</code> for normal edges and returns.
+		 */
+		public Object location() {
+			return location;
+		}
+
+		@Override
+		public String toString() {
+			if (edge == null)
+				return node.toString();
+			return edge + (location == null ? "" : "(" + location + ")") + " -> " + node;
+		}
+	}
+}
@@ -11,19 +11,22 @@
  *******************************************************************************/
 package sync.pds.solver;
 
-import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
+import com.google.common.base.Supplier;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
 
 import sync.pds.solver.nodes.CallPopNode;
 import sync.pds.solver.nodes.CastNode;
@@ -59,11 +62,19 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 			return "Field " + super.toString();
 		};
 	};
-	private final Set<WitnessNode<Stmt,Fact,Field>> reachedStates = Sets.newHashSet();
-	private final Set<Node<Stmt, Fact>> callingContextReachable = Sets.newHashSet();
-	private final Set<Node<Stmt, Fact>> fieldContextReachable = Sets.newHashSet();
-	private final Set<SyncPDSUpdateListener<Stmt, Fact, Field>> updateListeners = Sets.newHashSet();
-	private final Multimap<WitnessNode<Stmt,Fact,Field>, SyncStatePDSUpdateListener<Stmt, Fact, Field>> reachedStateUpdateListeners = HashMultimap.create();
+	private final Set<WitnessNode<Stmt,Fact,Field>> reachedStates;
+	private final Set<Node<Stmt, Fact>> callingContextReachable;
+	private final Set<Node<Stmt, Fact>> fieldContextReachable;
+	@SuppressWarnings("unchecked")
+	private final CopyOnWriteSet<SyncPDSUpdateListener<Stmt, Fact, Field>> updateListeners = new CopyOnWriteSet<SyncPDSUpdateListener<Stmt, Fact, Field>>(
+			new SyncPDSUpdateListener[0]);
+	private final Map<WitnessNode<Stmt,Fact,Field>, CopyOnWriteSet<SyncStatePDSUpdateListener<Stmt, Fact, Field>>> reachedStateUpdateListeners;
+	private final Worklist<WitnessNode<Stmt, Fact, Field>> worklist;
+	private ProvenanceRecorder<Stmt, Fact, Field> provenance;
+	private boolean draining;
+	private final boolean concurrent;
+	private List<Rule<Stmt, INode<Fact>, W>> callRuleBatch;
+	private List<Rule<Field, INode<Node<Stmt, Fact>>, W>> fieldRuleBatch;
 	protected final WeightedPAutomaton<Field, INode<Node<Stmt,Fact>>, W> fieldAutomaton;
 	protected final WeightedPAutomaton<Stmt, INode<Fact>,W> callAutomaton;
 
@@ -75,6 +86,40 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		return false;
 	}
 	public SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt,Fact>> initialFieldNode, final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,final boolean useFieldSummaries, NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries){
+		this(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries, null);
+	}
+
+	/**
+	 * Schedules newly reachable nodes through <code>worklist</code> instead of processing them recursively when they
+	 * are discovered. The stack depth stays bounded and the policy of the worklist determines the traversal order.
+	 * <code>null</code> processes nodes recursively.
+	 */
+	public SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt,Fact>> initialFieldNode, final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,final boolean useFieldSummaries, NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries, Worklist<WitnessNode<Stmt, Fact, Field>> worklist){
+		this(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries, worklist, false);
+	}
+
+	/**
+	 * With <code>concurrent</code> set, the reached states, the calling and field context reachable nodes and the
+	 * generated states are kept in concurrent collections, see {@link ConcurrentSyncPDSSolver}.
+	 */
+	protected SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt,Fact>> initialFieldNode, final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,final boolean useFieldSummaries, NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries, Worklist<WitnessNode<Stmt, Fact, Field>> worklist, boolean concurrent){
+		this.worklist = worklist;
+		this.concurrent = concurrent;
+		if (concurrent) {
+			reachedStates = Sets.newConcurrentHashSet();
+			callingContextReachable = Sets.newConcurrentHashSet();
+			fieldContextReachable = Sets.newConcurrentHashSet();
+			reachedStateUpdateListeners = Maps.newConcurrentMap();
+			generatedCallState = concurrentTable();
+			generatedFieldState = concurrentTable();
+		} else {
+			reachedStates = Sets.newHashSet();
+			callingContextReachable = Sets.newHashSet();
+			fieldContextReachable = Sets.newHashSet();
+			reachedStateUpdateListeners = Maps.newHashMap();
+			generatedCallState = HashBasedTable.create();
+			generatedFieldState = HashBasedTable.create();
+		}
 		fieldAutomaton = new WeightedPAutomaton<Field, INode<Node<Stmt,Fact>>, W>(initialFieldNode) {
 			@Override
 			public INode<Node<Stmt,Fact>> createState(INode<Node<Stmt,Fact>> d, Field loc) {
@@ -174,7 +219,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		private WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> parent;
 
 		public FieldAddEpsilonToInitialStateListener(INode<Node<Stmt,Fact>> state, WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> parent) {
-			super(state);
+			super(state, fieldAutomaton.epsilon());
 			this.parent = parent;
 		}
 
@@ -192,9 +237,9 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((parent == null) ? 0 : parent.hashCode());
 			return result;
@@ -242,9 +287,9 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((nestedT == null) ? 0 : nestedT.hashCode());
 			return result;
@@ -286,7 +331,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		private WeightedPAutomaton<Stmt, INode<Fact>, W> parent;
 
 		public AddEpsilonToInitialStateListener(INode<Fact> state, WeightedPAutomaton<Stmt, INode<Fact>, W> parent) {
-			super(state);
+			super(state, callAutomaton.epsilon());
 			this.parent = parent;
 		}
 
@@ -304,9 +349,9 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((parent == null) ? 0 : parent.hashCode());
 			return result;
@@ -356,9 +401,9 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((nestedT == null) ? 0 : nestedT.hashCode());
 			return result;
@@ -419,11 +464,59 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 	}
 	
 	protected void processNode(WitnessNode<Stmt, Fact,Field> witnessNode) {
+		if (worklist == null) {
+			process(witnessNode);
+			return;
+		}
+		if (reachedStates.contains(witnessNode))
+			return;
+		worklist.add(witnessNode);
+		if (draining)
+			return;
+		draining = true;
+		try {
+			WitnessNode<Stmt, Fact, Field> next;
+			while ((next = worklist.poll()) != null) {
+				process(next);
+			}
+		} finally {
+			draining = false;
+			worklist.clear();
+		}
+	}
+
+	private void process(WitnessNode<Stmt, Fact,Field> witnessNode) {
 		if(!addReachableState(witnessNode))
 			return;
 		Node<Stmt, Fact> curr = witnessNode.asNode();
 		Collection<? extends State> successors = computeSuccessor(curr);
+		if (concurrent) {
+			processSuccessors(curr, successors);
+			return;
+		}
+		// The rules of all successors are collected and added as one batch per PDS.
+		List<Rule<Stmt, INode<Fact>, W>> outerCallRules = callRuleBatch;
+		List<Rule<Field, INode<Node<Stmt, Fact>>, W>> outerFieldRules = fieldRuleBatch;
+		List<Rule<Stmt, INode<Fact>, W>> callRules = Lists.newArrayList();
+		List<Rule<Field, INode<Node<Stmt, Fact>>, W>> fieldRules = Lists.newArrayList();
+		callRuleBatch = callRules;
+		fieldRuleBatch = fieldRules;
+		try {
+			processSuccessors(curr, successors);
+		} finally {
+			callRuleBatch = outerCallRules;
+			fieldRuleBatch = outerFieldRules;
+		}
+		if (!callRules.isEmpty())
+			addCallRules(callRules);
+		if (!fieldRules.isEmpty())
+			addFieldRules(fieldRules);
+	}
+
+	private void processSuccessors(Node<Stmt, Fact> curr, Collection<? extends State> successors) {
 		for (State s : successors) {
+			if (provenance != null)
+				recordProvenance(curr, s);
 			if (s instanceof Node) {
 				Node<Stmt, Fact> succ = (Node<Stmt, Fact>) s;
 				if (succ instanceof PushNode) {
@@ -442,15 +535,51 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 	}
 
 
+	private void recordProvenance(Node<Stmt, Fact> curr, State s) {
+		Node<Stmt, Fact> target;
+		ProvenanceRecorder.Edge edge;
+		Object location = null;
+		if (s instanceof PushNode) {
+			PushNode<Stmt, Fact, Location> pushNode = (PushNode<Stmt, Fact, Location>) s;
+			target = new Node<Stmt, Fact>(pushNode.stmt(), pushNode.fact());
+			edge = pushNode.system().equals(PDSSystem.FIELDS) ? ProvenanceRecorder.Edge.FIELD_PUSH
+					: ProvenanceRecorder.Edge.CALL_PUSH;
+			location = pushNode.location();
+		} else if (s instanceof Node) {
+			Node<Stmt, Fact> succ = (Node<Stmt, Fact>) s;
+			target = new Node<Stmt, Fact>(succ.stmt(), succ.fact());
+			edge = ProvenanceRecorder.Edge.NORMAL;
+		} else if (s instanceof CallPopNode) {
+			CallPopNode<Fact, Stmt> callPopNode = (CallPopNode) s;
+			target = new Node<Stmt, Fact>(callPopNode.getReturnSite(), callPopNode.location());
+			edge = ProvenanceRecorder.Edge.CALL_POP;
+		} else if (s instanceof PopNode && ((PopNode) s).system().equals(PDSSystem.FIELDS)) {
+			NodeWithLocation<Stmt, Fact, Field> node = (NodeWithLocation) ((PopNode) s).location();
+			target = new Node<Stmt, Fact>(node.fact().stmt(), node.fact().fact());
+			edge = ProvenanceRecorder.Edge.FIELD_POP;
+			location = node.location();
+		} else {
+			return;
+		}
+		if (!reachedStates.contains(createWitness(target)))
+			provenance.record(curr, target, edge, location);
+	}
+
 	private boolean addReachableState(WitnessNode<Stmt,Fact,Field> curr) {
-		if (reachedStates.contains(curr))
+		if (!reachedStates.add(curr))
 			return false;
-		reachedStates.add(curr);
-		for (SyncPDSUpdateListener<Stmt, Fact, Field> l : Lists.newLinkedList(updateListeners)) {
-			l.onReachableNodeAdded(curr);
-		}
-		for(SyncStatePDSUpdateListener<Stmt, Fact, Field> l : Lists.newLinkedList(reachedStateUpdateListeners.get(curr))){
-			l.reachable();
+		if (provenance != null)
+			provenance.reached(curr.asNode());
+		CopyOnWriteSet<SyncStatePDSUpdateListener<Stmt, Fact, Field>> stateListeners = reachedStateUpdateListeners.get(curr);
+		CopyOnWriteSet.Snapshot<SyncPDSUpdateListener<Stmt, Fact, Field>> update = updateListeners.snapshot();
+		for (int i = 0; i < update.size(); i++) {
+			update.get(i).onReachableNodeAdded(curr);
+		}
+		if (stateListeners != null) {
+			CopyOnWriteSet.Snapshot<SyncStatePDSUpdateListener<Stmt, Fact, Field>> reached = stateListeners.snapshot();
+			for (int i = 0; i < reached.size(); i++) {
+				reached.get(i).reachable();
+			}
 		}
 		return true;
 	}
@@ -470,7 +599,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 			Multimap<Fact, Node<Stmt,Fact>> potentialFieldCandidate = HashMultimap.create();
 			Set<Fact> potentialCallCandidate = Sets.newHashSet();
 			@Override
-			public void fieldWitness(Transition<Field, INode<Node<Stmt, Fact>>> t) {
+			public synchronized void fieldWitness(Transition<Field, INode<Node<Stmt, Fact>>> t) {
 				if(t.getTarget() instanceof GeneratedState)
 					return;
 				if(!t.getLabel().equals(emptyField()))
@@ -483,7 +612,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 				}
 			}
 			@Override
-			public void callWitness(Transition<Stmt, INode<Fact>> t) {
+			public synchronized void callWitness(Transition<Stmt, INode<Fact>> t) {
 				if(t.getTarget() instanceof GeneratedState)
 					return;
 				Fact targetFact = t.getTarget().fact();
@@ -503,7 +632,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 			public void onReachableNodeAdded(WitnessNode<Stmt, Fact, Field> reachableNode) {
 				if(!reachableNode.asNode().equals(sourceNode))
 					return;
-				fieldAutomaton.registerListener(new WPAUpdateListener<Field, INode<Node<Stmt,Fact>>, W>() {
+				registerFieldAutomatonListener(new WPAUpdateListener<Field, INode<Node<Stmt,Fact>>, W>() {
 					@Override
 					public void onWeightAdded(Transition<Field, INode<Node<Stmt, Fact>>> t, W w, WeightedPAutomaton<Field, INode<Node<Stmt,Fact>>, W> aut) {
 						if(t.getStart() instanceof GeneratedState)
@@ -513,7 +642,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 						listener.fieldWitness(t);
 					}
 				});
-				callAutomaton.registerListener(new WPAUpdateListener<Stmt, INode<Fact>, W>() {
+				registerCallAutomatonListener(new WPAUpdateListener<Stmt, INode<Fact>, W>() {
 					@Override
 					public void onWeightAdded(Transition<Stmt, INode<Fact>> t, W w, WeightedPAutomaton<Stmt, INode<Fact>,W> aut) {
 						if(t.getStart() instanceof GeneratedState)
@@ -607,12 +736,34 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		}
 	}
 
+	protected void registerCallAutomatonListener(WPAUpdateListener<Stmt, INode<Fact>, W> listener) {
+		callAutomaton.registerListener(listener);
+	}
+
+	protected void registerFieldAutomatonListener(WPAUpdateListener<Field, INode<Node<Stmt, Fact>>, W> listener) {
+		fieldAutomaton.registerListener(listener);
+	}
+
 	public void addCallRule(Rule<Stmt, INode<Fact>,W> rule){
-		callingPDS.addRule(rule);
+		if (callRuleBatch != null)
+			callRuleBatch.add(rule);
+		else
+			callingPDS.addRule(rule);
 	}
 
 	public void addFieldRule(Rule<Field, INode<Node<Stmt,Fact>>, W> rule){
-		fieldPDS.addRule(rule);
+		if (fieldRuleBatch != null)
+			fieldRuleBatch.add(rule);
+		else
+			fieldPDS.addRule(rule);
+	}
+
+	public void addCallRules(Collection<Rule<Stmt, INode<Fact>, W>> rules) {
+		callingPDS.addRules(rules);
+	}
+
+	public void addFieldRules(Collection<Rule<Field, INode<Node<Stmt, Fact>>, W>> rules) {
+		fieldPDS.addRules(rules);
 	}
 	protected abstract WeightFunctions<Stmt, Fact, Field, W> getFieldWeights();
 	
@@ -664,7 +815,15 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		}
 	}
 	public void registerListener(SyncStatePDSUpdateListener<Stmt, Fact, Field> listener) {
-		if (!reachedStateUpdateListeners.put(listener.getNode(), listener)){
+		CopyOnWriteSet<SyncStatePDSUpdateListener<Stmt, Fact, Field>> listeners;
+		synchronized (reachedStateUpdateListeners) {
+			listeners = reachedStateUpdateListeners.get(listener.getNode());
+			if (listeners == null) {
+				listeners = new CopyOnWriteSet<SyncStatePDSUpdateListener<Stmt, Fact, Field>>(new SyncStatePDSUpdateListener[0]);
+				reachedStateUpdateListeners.put(listener.getNode(), listeners);
+			}
+		}
+		if (!listeners.add(listener)){
 			return;
 		}
 		if(reachedStates.contains(listener.getNode())){
@@ -676,30 +835,43 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 		return new SingleNode<Fact>(variable);
 	}
 
-	Map<Entry<INode<Fact>, Stmt>, INode<Fact>> generatedCallState = Maps.newHashMap();
+	final Table<INode<Fact>, Stmt, INode<Fact>> generatedCallState;
 
 	public INode<Fact> generateCallState(final INode<Fact> d, final Stmt loc) {
-		Entry<INode<Fact>, Stmt> e = new AbstractMap.SimpleEntry<>(d, loc);
-		if (!generatedCallState.containsKey(e)) {
-			generatedCallState.put(e, new GeneratedState<Fact,Stmt>(d,loc));
+		INode<Fact> state = generatedCallState.get(d, loc);
+		if (state == null) {
+			state = new GeneratedState<Fact,Stmt>(d,loc);
+			generatedCallState.put(d, loc, state);
 		}
-		return generatedCallState.get(e);
+		return state;
 	}
 
-	Map<Entry<INode<Node<Stmt,Fact>>, Field>, INode<Node<Stmt,Fact>>> generatedFieldState = Maps.newHashMap();
+	final Table<INode<Node<Stmt,Fact>>, Field, INode<Node<Stmt,Fact>>> generatedFieldState;
 
 	public INode<Node<Stmt,Fact>> generateFieldState(final INode<Node<Stmt,Fact>> d, final Field loc) {
-		Entry<INode<Node<Stmt,Fact>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-		if (!generatedFieldState.containsKey(e)) {
-			generatedFieldState.put(e, new GeneratedState<Node<Stmt,Fact>,Field>(d,loc));
+		INode<Node<Stmt,Fact>> state = generatedFieldState.get(d, loc);
+		if (state == null) {
+			state = new GeneratedState<Node<Stmt,Fact>,Field>(d,loc);
+			generatedFieldState.put(d, loc, state);
 		}
-		return generatedFieldState.get(e);
+		return state;
+	}
+
+	/**
+	 * Both levels are concurrent maps. Each table is only written by the thread owning its automaton, lookups may
+	 * come from any thread.
+	 */
+	private static <R, C, V> Table<R, C, V> concurrentTable() {
+		return Tables.newCustomTable(Maps.<R, Map<C, V>>newConcurrentMap(), new Supplier<Map<C, V>>() {
+			@Override
+			public Map<C, V> get() {
+				return Maps.newConcurrentMap();
+			}
+		});
 	}
-	
 
 	public void addGeneratedFieldState(GeneratedState<Node<Stmt,Fact>,Field> state) {
-		Entry<INode<Node<Stmt,Fact>>, Field> e = new AbstractMap.SimpleEntry<>(state.node(), state.location());
-		generatedFieldState.put(e,state);
+		generatedFieldState.put(state.node(), state.location(), state);
 	}
 
 	public abstract Collection<? extends State> computeSuccessor(Node<Stmt, Fact> node);
@@ -714,6 +886,30 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 
 	public abstract Field fieldWildCard();
 
+	/**
+	 * Records the saturation work of both pushdown systems and both automata in <code>metrics</code>, should be set
+	 * before the solver is used. Nested summary automata created afterwards record into the same metrics.
+	 */
+	public void setMetrics(WPDSMetrics metrics) {
+		callingPDS.setMetrics(metrics);
+		fieldPDS.setMetrics(metrics);
+		callAutomaton.setMetrics(metrics);
+		fieldAutomaton.setMetrics(metrics);
+	}
+
+	/**
+	 * Records for each node reached from now on the flow edge it was discovered through, so that
+	 * {@link ProvenanceRecorder#witnessPath(Node)} can explain how it was reached. <code>null</code> (the default)
+	 * records nothing.
+	 */
+	public void setProvenanceRecorder(ProvenanceRecorder<Stmt, Fact, Field> provenance) {
+		this.provenance = provenance;
+	}
+
+	public ProvenanceRecorder<Stmt, Fact, Field> getProvenanceRecorder() {
+		return provenance;
+	}
+
 	public Set<Node<Stmt, Fact>> getReachedStates() {
 		Set<Node<Stmt,Fact>> res = Sets.newHashSet();
 		for(WitnessNode<Stmt, Fact, Field> s : reachedStates)
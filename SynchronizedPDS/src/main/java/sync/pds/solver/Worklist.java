@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package sync.pds.solver;
+
+/**
+ * Pending nodes of a {@link SyncPDSSolver}. The order in which {@link #poll()} hands out the nodes is the traversal
+ * order of the solver, see {@link Worklists} for the available policies.
+ */
+public interface Worklist<T> {
+
+	void add(T item);
+
+	/**
+	 * Removes and returns the next item, or returns <code>null</code> if the worklist is empty.
+	 */
+	T poll();
+
+	boolean isEmpty();
+
+	int size();
+
+	void clear();
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package sync.pds.solver;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+
+public class Worklists {
+
+	private Worklists() {
+	}
+
+	public static <T> Worklist<T> fifo() {
+		return new DequeWorklist<T>(true);
+	}
+
+	public static <T> Worklist<T> lifo() {
+		return new DequeWorklist<T>(false);
+	}
+
+	/**
+	 * Batches items with equal keys: items of the group currently drained are handed out first (in FIFO order), the
+	 * remaining groups follow in the order they were first seen. Keyed by method, nodes of one method are processed
+	 * together.
+	 */
+	public static <T> Worklist<T> groupedBy(Function<? super T, ?> key) {
+		return new GroupedWorklist<T>(key);
+	}
+
+	private static class DequeWorklist<T> implements Worklist<T> {
+		private final ArrayDeque<T> items = new ArrayDeque<T>();
+		private final boolean fifo;
+
+		DequeWorklist(boolean fifo) {
+			this.fifo = fifo;
+		}
+
+		@Override
+		public void add(T item) {
+			items.addLast(item);
+		}
+
+		@Override
+		public T poll() {
+			return fifo ? items.pollFirst() : items.pollLast();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return items.isEmpty();
+		}
+
+		@Override
+		public int size() {
+			return items.size();
+		}
+
+		@Override
+		public void clear() {
+			items.clear();
+		}
+	}
+
+	private static class GroupedWorklist<T> implements Worklist<T> {
+		private final Function<? super T, ?> key;
+		private final Map<Object, ArrayDeque<T>> groups = Maps.newLinkedHashMap();
+		private Object currentKey;
+		private ArrayDeque<T> current;
+		private int size;
+
+		GroupedWorklist(Function<? super T, ?> key) {
+			this.key = key;
+		}
+
+		@Override
+		public void add(T item) {
+			Object k = key.apply(item);
+			if (current != null && (k == null ? currentKey == null : k.equals(currentKey))) {
+				current.addLast(item);
+			} else {
+				ArrayDeque<T> group = groups.get(k);
+				if (group == null) {
+					group = new ArrayDeque<T>();
+					groups.put(k, group);
+				}
+				group.addLast(item);
+			}
+			size++;
+		}
+
+		@Override
+		public T poll() {
+			if (current == null || current.isEmpty()) {
+				Iterator<Map.Entry<Object, ArrayDeque<T>>> it = groups.entrySet().iterator();
+				if (!it.hasNext()) {
+					current = null;
+					currentKey = null;
+					return null;
+				}
+				Map.Entry<Object, ArrayDeque<T>> next = it.next();
+				it.remove();
+				currentKey = next.getKey();
+				current = next.getValue();
+			}
+			size--;
+			return current.pollFirst();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			groups.clear();
+			current = null;
+			currentKey = null;
+			size = 0;
+		}
+	}
+}
@@ -60,6 +60,8 @@ public class SetDomain<N,Stmt,Fact> extends Weight{
 		if(this.equals(one())|| other.equals(one()))
 			return one();
 		if(other instanceof SetDomain){
+			if(nodes.containsAll(((SetDomain) other).nodes))
+				return this;
 			Set<Node<Stmt, Fact>> merged = Sets.newHashSet(nodes);
 			merged.addAll(((SetDomain) other).nodes);
 			return new SetDomain<N,Stmt,Fact>(merged);
@@ -11,20 +11,34 @@
  *******************************************************************************/
 package analysis.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.junit.Test;
 
+import com.google.common.base.Function;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
+import sync.pds.solver.ConcurrentSyncPDSSolver;
 import sync.pds.solver.OneWeightFunctions;
+import sync.pds.solver.ProvenanceRecorder;
+import sync.pds.solver.ProvenanceRecorder.Edge;
+import sync.pds.solver.ProvenanceRecorder.Step;
 import sync.pds.solver.SyncPDSSolver;
 import sync.pds.solver.SyncPDSSolver.PDSSystem;
 import sync.pds.solver.WeightFunctions;
+import sync.pds.solver.WitnessNode;
+import sync.pds.solver.Worklist;
+import sync.pds.solver.Worklists;
 import sync.pds.solver.nodes.CallPopNode;
 import sync.pds.solver.nodes.ExclusionNode;
 import sync.pds.solver.nodes.INode;
@@ -69,52 +83,66 @@ public class DoublePDSTest {
 		addSucc(curr, new ExclusionNode<Statement, Variable, FieldRef>(succ.stmt(),succ.fact(),push));
 	}
 
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "sync-pds-test");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
 	private FieldRef epsilonField = new FieldRef("eps_f");
 	private Statement epsilonCallSite = new Statement(-1);
 	
-	private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver = new SyncPDSSolver<Statement, Variable, FieldRef, NoWeight>(new SingleNode<Variable>(new Variable("u")), new SingleNode<Node<Statement,Variable>>(node(1,"u")), false, new SummaryNestedWeightedPAutomatons<Statement,INode<Variable>,NoWeight>(),false, new SummaryNestedWeightedPAutomatons<FieldRef,INode<Node<Statement,Variable>>,NoWeight>()) {
+	private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver = solver(null);
 
-		@Override
-		public Collection<State> computeSuccessor(Node<Statement, Variable> node) {
-			return successorMap.get(node);
-		}
+	private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver(Worklist<WitnessNode<Statement, Variable, FieldRef>> worklist) {
+		return new SyncPDSSolver<Statement, Variable, FieldRef, NoWeight>(new SingleNode<Variable>(new Variable("u")), new SingleNode<Node<Statement,Variable>>(node(1,"u")), false, new SummaryNestedWeightedPAutomatons<Statement,INode<Variable>,NoWeight>(),false, new SummaryNestedWeightedPAutomatons<FieldRef,INode<Node<Statement,Variable>>,NoWeight>(), worklist) {
 
-		@Override
-		public FieldRef epsilonField() {
-			return epsilonField;
-		}
+			@Override
+			public Collection<State> computeSuccessor(Node<Statement, Variable> node) {
+				return successorMap.get(node);
+			}
 
-		@Override
-		public Statement epsilonStmt() {
-			return epsilonCallSite;
-		}
+			@Override
+			public FieldRef epsilonField() {
+				return epsilonField;
+			}
 
-		@Override
-		public FieldRef emptyField() {
-			return new FieldRef("EMPTY_F");
-		}
+			@Override
+			public Statement epsilonStmt() {
+				return epsilonCallSite;
+			}
 
-		@Override
-		public FieldRef fieldWildCard() {
-			return new FieldWildCard();
-		}
+			@Override
+			public FieldRef emptyField() {
+				return new FieldRef("EMPTY_F");
+			}
 
-		@Override
-		public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
-			return new ExclusionWildcardField(exclusion);
-		}
+			@Override
+			public FieldRef fieldWildCard() {
+				return new FieldWildCard();
+			}
 
-		@Override
-		protected WeightFunctions<Statement, Variable, FieldRef, NoWeight> getFieldWeights() {
-			return new OneWeightFunctions<Statement, Variable, FieldRef, NoWeight>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
-		}
+			@Override
+			public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
+				return new ExclusionWildcardField(exclusion);
+			}
 
-		@Override
-		protected WeightFunctions<Statement, Variable, Statement, NoWeight> getCallWeights() {
-			return new OneWeightFunctions<Statement, Variable, Statement, NoWeight>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
-		}
+			@Override
+			protected WeightFunctions<Statement, Variable, FieldRef, NoWeight> getFieldWeights() {
+				return new OneWeightFunctions<Statement, Variable, FieldRef, NoWeight>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
+			}
+
+			@Override
+			protected WeightFunctions<Statement, Variable, Statement, NoWeight> getCallWeights() {
+				return new OneWeightFunctions<Statement, Variable, Statement, NoWeight>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
+			}
+
+		};
+	}
 
-	};
 	@Test
 	public void test1() {
 		addFieldPush(node(1,"u"), f("h"), node(2,"v"));
@@ -180,6 +208,31 @@ public class DoublePDSTest {
 		solver.debugOutput();
 		assertTrue(solver.getReachedStates().contains(node(6,"x")));
 	}
+	@Test
+	public void witnessPath() {
+		addFieldPush(node(1,"u"), f("h"), node(2,"v"));
+		addCallFlow(node(2,"v"), node(3,"p"),returnSite(5));
+		addFieldPush(node(3,"p"), f("g"), node(4,"q"));
+		addReturnFlow(node(4,"q"), var("w"),returnSite(5));
+		addFieldPop(node(5,"w"), f("g"), node(6,"x"));
+		addFieldPop(node(6,"x"), f("f"), node(7,"y"));
+		ProvenanceRecorder<Statement, Variable, FieldRef> provenance = new ProvenanceRecorder<>();
+		solver.setProvenanceRecorder(provenance);
+		solver.solve(node(1,"u"));
+		List<Step<Statement, Variable>> path = provenance.witnessPath(node(6,"x"));
+		assertEquals(6, path.size());
+		assertEquals(node(1,"u"), path.get(0).node());
+		assertEquals(null, path.get(0).edge());
+		assertEquals(Edge.CALL_PUSH, path.get(2).edge());
+		assertEquals(returnSite(5), path.get(2).location());
+		assertEquals(node(5,"w"), path.get(4).node());
+		assertEquals(Edge.CALL_POP, path.get(4).edge());
+		assertEquals(Edge.FIELD_POP, path.get(5).edge());
+		assertEquals(f("g"), path.get(5).location());
+		assertEquals(null, provenance.witnessPath(node(8,"r")));
+		assertEquals(null, provenance.witnessPath(node(7,"y")));
+	}
+
 	@Test
 	public void callOnlyIntraprocedural() {
 		addNormal(node(1,"u"),  node(5,"q"));
@@ -535,6 +588,147 @@ public class DoublePDSTest {
 		assertTrue(solver.getReachedStates().contains(node(4,"a")));
 	}
 	
+	@Test
+	public void recursionFifoWorklist() {
+		recursionWithWorklist(Worklists.<WitnessNode<Statement, Variable, FieldRef>>fifo());
+	}
+
+	@Test
+	public void recursionLifoWorklist() {
+		recursionWithWorklist(Worklists.<WitnessNode<Statement, Variable, FieldRef>>lifo());
+	}
+
+	@Test
+	public void recursionGroupedWorklist() {
+		recursionWithWorklist(Worklists.groupedBy(new Function<WitnessNode<Statement, Variable, FieldRef>, Variable>() {
+			@Override
+			public Variable apply(WitnessNode<Statement, Variable, FieldRef> node) {
+				return node.fact();
+			}
+		}));
+	}
+
+	private void recursionWithWorklist(Worklist<WitnessNode<Statement, Variable, FieldRef>> worklist) {
+		addCallFlow(node(1,"a"), node(2,"u"),returnSite(4));
+		addNormal(node(2,"u"), node(3,"c"));
+		addFieldPush(node(3,"c"),f("h"), node(4,"h"));
+		addCallFlow(node(4,"h"), node(2,"u"),returnSite(5));
+		addNormal(node(4,"h"), node(5,"h"));
+		addFieldPop(node(5,"h"),f("h"), node(6,"g"));
+		addFieldPop(node(6,"g"),f("h"), node(7,"g"));
+		addReturnFlow(node(7,"g"),var("a"),returnSite(4));
+		SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> worklistSolver = solver(worklist);
+		worklistSolver.solve(node(1,"a"));
+		assertTrue(worklistSolver.getReachedStates().contains(node(4,"a")));
+		assertTrue(worklistSolver.getReachedStates().contains(node(7,"g")));
+		assertTrue(worklist.isEmpty());
+	}
+
+	@Test
+	public void concurrentTest1() {
+		addFieldPush(node(1,"u"), f("h"), node(2,"v"));
+		addCallFlow(node(2,"v"), node(3,"p"),returnSite(5));
+		addFieldPush(node(3,"p"), f("g"), node(4,"q"));
+		addReturnFlow(node(4,"q"), var("w"),returnSite(5));
+		addFieldPop(node(5,"w"), f("g"), node(6,"x"));
+		addFieldPop(node(6,"x"), f("f"), node(7,"y"));
+		addFieldPush(node(8,"r"), f("f"), node(9,"s"));
+		addCallFlow(node(9,"s"),node(3,"p"),returnSite(10));
+		addReturnFlow(node(4,"q"), var("t"),returnSite(10));
+		addFieldPush(node(10,"t"), f("f"), node(11,"s"));
+		assertConcurrentReachesSame(node(1,"u"));
+	}
+
+	@Test
+	public void concurrentRecursion() {
+		addCallFlow(node(1,"a"), node(2,"u"),returnSite(4));
+		addNormal(node(2,"u"), node(3,"c"));
+		addFieldPush(node(3,"c"),f("h"), node(4,"h"));
+		addCallFlow(node(4,"h"), node(2,"u"),returnSite(5));
+		addNormal(node(4,"h"), node(5,"h"));
+		addFieldPop(node(5,"h"),f("h"), node(6,"g"));
+		addFieldPop(node(6,"g"),f("h"), node(7,"g"));
+		addReturnFlow(node(7,"g"),var("a"),returnSite(4));
+		assertConcurrentReachesSame(node(1,"a"));
+	}
+
+	@Test
+	public void concurrentBranching() {
+		for (int i = 0; i < 100; i++) {
+			addFieldPush(node(1,"u"), f("h" + i), node(2,"v" + i));
+			addNormal(node(2,"v" + i), node(3,"w" + i));
+			addFieldPop(node(3,"w" + i), f("h" + i), node(4,"x" + i));
+			addFieldPop(node(4,"x" + i), f("h" + i), node(5,"y" + i));
+		}
+		assertConcurrentReachesSame(node(1,"u"));
+		assertTrue(solver.getReachedStates().contains(node(4,"x99")));
+		assertFalse(solver.getReachedStates().contains(node(5,"y99")));
+	}
+
+	private void assertConcurrentReachesSame(Node<Statement, Variable> start) {
+		solver.solve(start);
+		ConcurrentSyncPDSSolver<Statement, Variable, FieldRef, NoWeight> concurrent = concurrentSolver();
+		concurrent.solve(start);
+		assertEquals(solver.getReachedStates(), concurrent.getReachedStates());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void concurrentRejectedExecution() {
+		addNormal(node(1,"u"), node(2,"v"));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		concurrentSolver(executor).solve(node(1,"u"));
+	}
+
+	private ConcurrentSyncPDSSolver<Statement, Variable, FieldRef, NoWeight> concurrentSolver() {
+		return concurrentSolver(EXECUTOR);
+	}
+
+	private ConcurrentSyncPDSSolver<Statement, Variable, FieldRef, NoWeight> concurrentSolver(Executor executor) {
+		return new ConcurrentSyncPDSSolver<Statement, Variable, FieldRef, NoWeight>(new SingleNode<Variable>(new Variable("u")), new SingleNode<Node<Statement,Variable>>(node(1,"u")), false, new SummaryNestedWeightedPAutomatons<Statement,INode<Variable>,NoWeight>(),false, new SummaryNestedWeightedPAutomatons<FieldRef,INode<Node<Statement,Variable>>,NoWeight>(), executor) {
+
+			@Override
+			public Collection<State> computeSuccessor(Node<Statement, Variable> node) {
+				return successorMap.get(node);
+			}
+
+			@Override
+			public FieldRef epsilonField() {
+				return epsilonField;
+			}
+
+			@Override
+			public Statement epsilonStmt() {
+				return epsilonCallSite;
+			}
+
+			@Override
+			public FieldRef emptyField() {
+				return new FieldRef("EMPTY_F");
+			}
+
+			@Override
+			public FieldRef fieldWildCard() {
+				return new FieldWildCard();
+			}
+
+			@Override
+			public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
+				return new ExclusionWildcardField(exclusion);
+			}
+
+			@Override
+			protected WeightFunctions<Statement, Variable, FieldRef, NoWeight> getFieldWeights() {
+				return new OneWeightFunctions<Statement, Variable, FieldRef, NoWeight>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
+			}
+
+			@Override
+			protected WeightFunctions<Statement, Variable, Statement, NoWeight> getCallWeights() {
+				return new OneWeightFunctions<Statement, Variable, Statement, NoWeight>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
+			}
+		};
+	}
+
 	@Test
 	public void negativeTestFieldPushAndPop() {
 		addFieldPush(node(1,"u"), f("h"), node(2,"v"));
@@ -23,6 +23,14 @@ public class Configuration<N extends Location, D extends State> {
     this.state = state;
   }
 
+  public N getLocation() {
+    return location;
+  }
+
+  public D getState() {
+    return state;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
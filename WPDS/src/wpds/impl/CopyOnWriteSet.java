@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * A set of listeners that is iterated far more often than it is modified. The elements are appended to an array
+ * that grows geometrically, {@link #snapshot()} hands out the array together with the number of elements at that
+ * time without copying. Iterating a snapshot is not affected by additions during the iteration, which are not
+ * visited. Each element is stored only once, small sets check membership by a linear scan, larger ones through an
+ * open addressing table of positions into the array.
+ */
+public class CopyOnWriteSet<T> {
+	private static final int SCAN_LIMIT = 8;
+
+	private volatile Snapshot<T> snapshot;
+	// Slots hold the position of an element plus one, zero marks a free slot. Null as long as the set is small.
+	private int[] index;
+
+	/**
+	 * @param empty
+	 *            an empty array of the element type, e.g. <code>new WPAUpdateListener[0]</code>.
+	 */
+	public CopyOnWriteSet(T[] empty) {
+		this.snapshot = new Snapshot<T>(empty, 0);
+	}
+
+	public synchronized boolean add(T element) {
+		if (contains(element))
+			return false;
+		Snapshot<T> curr = snapshot;
+		T[] elements = curr.elements;
+		if (curr.size == elements.length)
+			elements = Arrays.copyOf(elements, Math.max(4, elements.length * 2));
+		// Earlier snapshots never read beyond their size, the slot may be written in a shared array.
+		elements[curr.size] = element;
+		snapshot = new Snapshot<T>(elements, curr.size + 1);
+		if (index != null) {
+			if (2 * snapshot.size > index.length)
+				rehash(elements, snapshot.size);
+			else
+				insert(elements, curr.size);
+		} else if (snapshot.size > SCAN_LIMIT) {
+			rehash(elements, snapshot.size);
+		}
+		return true;
+	}
+
+	/**
+	 * The elements added so far in insertion order.
+	 */
+	public Snapshot<T> snapshot() {
+		return snapshot;
+	}
+
+	public synchronized boolean contains(T element) {
+		Snapshot<T> curr = snapshot;
+		if (index == null) {
+			for (int i = 0; i < curr.size; i++) {
+				if (curr.elements[i].equals(element))
+					return true;
+			}
+			return false;
+		}
+		int mask = index.length - 1;
+		for (int slot = hash(element) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+			if (curr.elements[index[slot] - 1].equals(element))
+				return true;
+		}
+		return false;
+	}
+
+	private void rehash(T[] elements, int size) {
+		index = new int[Integer.highestOneBit(size) * 4];
+		for (int i = 0; i < size; i++) {
+			insert(elements, i);
+		}
+	}
+
+	private void insert(T[] elements, int pos) {
+		int mask = index.length - 1;
+		int slot = hash(elements[pos]) & mask;
+		while (index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		index[slot] = pos + 1;
+	}
+
+	private static int hash(Object o) {
+		int h = o.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	public int size() {
+		return snapshot.size;
+	}
+
+	public boolean isEmpty() {
+		return snapshot.size == 0;
+	}
+
+	/**
+	 * The first {@link #size()} elements of a {@link CopyOnWriteSet} at the time the snapshot was taken. Frequent
+	 * notifications iterate by index to avoid allocating an iterator.
+	 */
+	public static final class Snapshot<T> implements Iterable<T> {
+		private final T[] elements;
+		private final int size;
+
+		private Snapshot(T[] elements, int size) {
+			this.elements = elements;
+			this.size = size;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public T get(int i) {
+			return elements[i];
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return Iterators.limit(Iterators.forArray(elements), size);
+		}
+	}
+}
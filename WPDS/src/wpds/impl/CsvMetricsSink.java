@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Appends the counters of all registered metrics to a CSV file, periodically and once more on {@link #close()}.
+ * Each dump writes one <code>timestamp,name,metric,value</code> row per counter, the timestamp is the same for
+ * all rows of a dump.
+ */
+public class CsvMetricsSink implements MetricsSink {
+	private final List<WPDSMetrics> metrics = Lists.newArrayList();
+	private final Writer out;
+	private final ScheduledExecutorService timer;
+	private IOException failure;
+
+	/**
+	 * Creates or truncates <code>file</code>. A period of 0 only dumps on {@link #close()}.
+	 */
+	public CsvMetricsSink(File file, long period, TimeUnit unit) throws IOException {
+		out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		out.write("timestamp,name,metric,value\n");
+		out.flush();
+		if (period <= 0) {
+			timer = null;
+			return;
+		}
+		timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "wpds-metrics-csv");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		timer.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					dump();
+				} catch (IOException e) {
+					synchronized (CsvMetricsSink.this) {
+						failure = e;
+					}
+					throw new IllegalStateException(e);
+				}
+			}
+		}, period, period, unit);
+	}
+
+	@Override
+	public synchronized void register(WPDSMetrics m) {
+		metrics.add(m);
+	}
+
+	public synchronized void dump() throws IOException {
+		long now = System.currentTimeMillis();
+		for (WPDSMetrics m : metrics) {
+			for (Map.Entry<String, Long> e : m.snapshot().entrySet()) {
+				out.write(now + "," + escape(m.getName()) + "," + escape(e.getKey()) + "," + e.getValue() + "\n");
+			}
+		}
+		out.flush();
+	}
+
+	private static String escape(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+			return s;
+		return '"' + s.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Writes the final dump and closes the file.
+	 * 
+	 * @throws IllegalStateException
+	 *             if a periodic dump or the final dump failed.
+	 */
+	@Override
+	public void close() {
+		if (timer != null) {
+			timer.shutdown();
+			try {
+				timer.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			try {
+				if (failure == null)
+					dump();
+				out.close();
+			} catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+			if (failure != null)
+				throw new IllegalStateException("Writing metrics failed", failure);
+		}
+	}
+}
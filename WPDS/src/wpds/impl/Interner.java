@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Assigns dense int ids, starting at 0, to objects such as states and locations. Ids are never reused, the
+ * object for an id is looked up in constant time. An interner is thread-safe, the automata of one packed
+ * {@link PackedTransitionStorage} family share it under parallel dispatch.
+ */
+public class Interner<T> {
+	private final ConcurrentMap<T, Integer> ids = Maps.newConcurrentMap();
+	private volatile Object[] objects = new Object[16];
+	private volatile int size;
+
+	public int intern(T object) {
+		Integer id = ids.get(object);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = ids.get(object);
+			if (id != null)
+				return id;
+			int newId = size;
+			Object[] elements = objects;
+			if (newId == elements.length) {
+				elements = Arrays.copyOf(elements, elements.length * 2);
+			}
+			elements[newId] = object;
+			objects = elements;
+			size = newId + 1;
+			// Published last, an id read from the map always resolves in get(int).
+			ids.put(object, newId);
+			return newId;
+		}
+	}
+
+	/**
+	 * Returns the id of <code>object</code> or -1 if the object has not been interned.
+	 */
+	public int getId(T object) {
+		Integer id = ids.get(object);
+		return id == null ? -1 : id;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(int id) {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("No object with id " + id);
+		return (T) objects[id];
+	}
+
+	public int size() {
+		return size;
+	}
+}
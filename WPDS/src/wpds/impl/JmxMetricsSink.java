@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Registers each metrics instance as an MBean named <code>wpds:type=WPDSMetrics,name=&lt;name&gt;</code> with one
+ * read-only attribute per counter of {@link WPDSMetrics#snapshot()}.
+ */
+public class JmxMetricsSink implements MetricsSink {
+	private final MBeanServer server;
+	private final List<ObjectName> registered = Lists.newArrayList();
+
+	public JmxMetricsSink() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	public JmxMetricsSink(MBeanServer server) {
+		this.server = server;
+	}
+
+	public static ObjectName objectName(WPDSMetrics metrics) {
+		try {
+			return new ObjectName("wpds:type=WPDSMetrics,name=" + ObjectName.quote(metrics.getName()));
+		} catch (JMException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	@Override
+	public synchronized void register(WPDSMetrics metrics) {
+		ObjectName name = objectName(metrics);
+		try {
+			server.registerMBean(new MetricsBean(metrics), name);
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Cannot register metrics " + metrics.getName(), e);
+		}
+		registered.add(name);
+	}
+
+	@Override
+	public synchronized void close() {
+		for (ObjectName name : registered) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				// Already unregistered by someone else.
+			}
+		}
+		registered.clear();
+	}
+
+	private static class MetricsBean implements DynamicMBean {
+		private final WPDSMetrics metrics;
+
+		MetricsBean(WPDSMetrics metrics) {
+			this.metrics = metrics;
+		}
+
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			Long value = metrics.snapshot().get(attribute);
+			if (value == null)
+				throw new AttributeNotFoundException(attribute);
+			return value;
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			Map<String, Long> snapshot = metrics.snapshot();
+			AttributeList res = new AttributeList();
+			for (String attribute : attributes) {
+				Long value = snapshot.get(attribute);
+				if (value != null)
+					res.add(new Attribute(attribute, value));
+			}
+			return res;
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute) {
+			throw new UnsupportedOperationException("Metrics are read-only.");
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			throw new UnsupportedOperationException(actionName);
+		}
+
+		// Per class counters appear while the analysis runs, hence the info is built on each request.
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			List<MBeanAttributeInfo> attributes = Lists.newArrayList();
+			for (String name : metrics.snapshot().keySet()) {
+				attributes.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+			}
+			return new MBeanInfo(WPDSMetrics.class.getName(), "WPDS metrics of " + metrics.getName(),
+					attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+/**
+ * Exports the counters of registered {@link WPDSMetrics}.
+ */
+public interface MetricsSink {
+
+	/**
+	 * Discards all metrics.
+	 */
+	MetricsSink NONE = new MetricsSink() {
+		@Override
+		public void register(WPDSMetrics metrics) {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	void register(WPDSMetrics metrics);
+
+	/**
+	 * Exports the final counters, if the sink exports periodically, and releases the resources of the sink.
+	 */
+	void close();
+}
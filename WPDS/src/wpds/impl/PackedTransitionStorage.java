@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Transition storage that keeps no {@link Transition} objects. States and labels are mapped to dense ids
+ * by {@link Interner}s, a transition is a long key packing the ids of start state, label and target
+ * state (21 bits each). Keys and weights are kept in parallel arrays indexed by insertion order, an
+ * open-addressing int table maps keys to their index and the transitions leaving and entering a state are
+ * int arrays of indices. {@link Transition} objects are created on demand when transitions are read.
+ */
+class PackedTransitionStorage<N extends Location, D extends State, W extends Weight>
+		implements TransitionStorage<N, D, W> {
+	private static final int ID_BITS = 21;
+	private static final int MAX_ID = (1 << ID_BITS) - 1;
+
+	private final Interner<D> states;
+	private final Interner<N> labels;
+	private long[] keys = new long[16];
+	private Object[] weights = new Object[16];
+	private int size;
+	// Slots hold index + 1, 0 marks an empty slot.
+	private int[] table = new int[32];
+	private int[][] outOf = new int[16][];
+	private int[] outOfSize = new int[16];
+	private int[][] into = new int[16][];
+	private int[] intoSize = new int[16];
+
+	PackedTransitionStorage(Interner<D> states, Interner<N> labels) {
+		this.states = states;
+		this.labels = labels;
+	}
+
+	Interner<D> getStateIds() {
+		return states;
+	}
+
+	Interner<N> getLabelIds() {
+		return labels;
+	}
+
+	@Override
+	public boolean add(Transition<N, D> trans) {
+		int start = id(states.intern(trans.getStart()));
+		int label = id(labels.intern(trans.getLabel()));
+		int target = id(states.intern(trans.getTarget()));
+		long key = pack(start, label, target);
+		int slot = slot(key);
+		if (table[slot] != 0)
+			return false;
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			weights = Arrays.copyOf(weights, size * 2);
+		}
+		keys[size] = key;
+		table[slot] = ++size;
+		if (size * 2 > table.length)
+			rehash();
+		outOf = append(outOf, outOfSize, start, size - 1);
+		outOfSize = ensureCapacity(outOfSize, start);
+		outOfSize[start]++;
+		into = append(into, intoSize, target, size - 1);
+		intoSize = ensureCapacity(intoSize, target);
+		intoSize[target]++;
+		return true;
+	}
+
+	@Override
+	public W getWeight(Transition<N, D> trans) {
+		int index = indexOf(trans);
+		return index < 0 ? null : weightAt(index);
+	}
+
+	@Override
+	public void setWeight(Transition<N, D> trans, W weight) {
+		int index = indexOf(trans);
+		if (index < 0)
+			throw new IllegalStateException("Transition must be added before its weight is set: " + trans);
+		weights[index] = weight;
+	}
+
+	@Override
+	public Collection<Transition<N, D>> getTransitions() {
+		List<Transition<N, D>> res = Lists.newArrayListWithCapacity(size);
+		for (int i = 0; i < size; i++) {
+			res.add(transitionAt(i));
+		}
+		return res;
+	}
+
+	@Override
+	public Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+		return transitions(outOf, outOfSize, states.getId(state));
+	}
+
+	@Override
+	public Collection<Transition<N, D>> getTransitionsInto(D state) {
+		return transitions(into, intoSize, states.getId(state));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private Collection<Transition<N, D>> transitions(int[][] adjacency, int[] adjacencySize, int state) {
+		if (state < 0 || state >= adjacency.length || adjacency[state] == null)
+			return Collections.emptyList();
+		int[] indices = adjacency[state];
+		List<Transition<N, D>> res = Lists.newArrayListWithCapacity(adjacencySize[state]);
+		for (int i = 0; i < adjacencySize[state]; i++) {
+			res.add(transitionAt(indices[i]));
+		}
+		return res;
+	}
+
+	private int indexOf(Transition<N, D> trans) {
+		int start = states.getId(trans.getStart());
+		int label = labels.getId(trans.getLabel());
+		int target = states.getId(trans.getTarget());
+		if (start < 0 || label < 0 || target < 0)
+			return -1;
+		return table[slot(pack(start, label, target))] - 1;
+	}
+
+	// Returns the slot holding the key or the empty slot where it belongs.
+	private int slot(long key) {
+		int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		for (int i = 0; i < size; i++) {
+			table[slot(keys[i])] = i + 1;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private W weightAt(int index) {
+		return (W) weights[index];
+	}
+
+	private Transition<N, D> transitionAt(int index) {
+		long key = keys[index];
+		D start = states.get((int) (key >>> (2 * ID_BITS)));
+		N label = labels.get((int) (key >>> ID_BITS) & MAX_ID);
+		D target = states.get((int) key & MAX_ID);
+		return new Transition<N, D>(start, label, target);
+	}
+
+	private static int[][] append(int[][] adjacency, int[] adjacencySize, int state, int index) {
+		if (state >= adjacency.length)
+			adjacency = Arrays.copyOf(adjacency, Math.max(adjacency.length * 2, state + 1));
+		int[] indices = adjacency[state];
+		int n = state < adjacencySize.length ? adjacencySize[state] : 0;
+		if (indices == null) {
+			indices = new int[2];
+		} else if (n == indices.length) {
+			indices = Arrays.copyOf(indices, n * 2);
+		}
+		indices[n] = index;
+		adjacency[state] = indices;
+		return adjacency;
+	}
+
+	private static int[] ensureCapacity(int[] array, int index) {
+		if (index < array.length)
+			return array;
+		return Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+	}
+
+	private static int id(int id) {
+		if (id > MAX_ID)
+			throw new IllegalStateException("More than " + MAX_ID + " states or labels cannot be packed.");
+		return id;
+	}
+
+	private static long pack(int start, int label, int target) {
+		return ((long) start << (2 * ID_BITS)) | ((long) label << ID_BITS) | target;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs listener calls of {@link WeightedPAutomaton}s in parallel dispatch mode as tasks on a
+ * {@link ForkJoinPool} and tracks the number of pending calls, so that a thread outside the pool can wait
+ * until saturation has reached its fixpoint.
+ */
+class ParallelDispatcher {
+	private final ForkJoinPool pool;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final Object quiescent = new Object();
+	private final ThreadLocal<Integer> batchDepth = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return 0;
+		}
+	};
+	private volatile RuntimeException failure;
+
+	ParallelDispatcher(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	ForkJoinPool getPool() {
+		return pool;
+	}
+
+	void submit(Collection<? extends Runnable> calls) {
+		boolean inPool = isWorker();
+		for (Runnable call : calls) {
+			pending.incrementAndGet();
+			ListenerTask task = new ListenerTask(call);
+			if (inPool) {
+				task.fork();
+			} else {
+				pool.execute(task);
+			}
+		}
+	}
+
+	/**
+	 * Within a batch the calling thread does not wait for the submitted calls, the wait happens once the
+	 * outermost batch ends.
+	 */
+	void beginBatch() {
+		batchDepth.set(batchDepth.get() + 1);
+	}
+
+	void endBatch() {
+		batchDepth.set(batchDepth.get() - 1);
+		awaitQuiescence();
+	}
+
+	/**
+	 * Blocks until no listener call is pending, unless called from a task of the pool or within a batch.
+	 * Rethrows the first exception thrown by a listener call.
+	 */
+	void awaitQuiescence() {
+		if (isWorker() || batchDepth.get() > 0)
+			return;
+		synchronized (quiescent) {
+			while (pending.get() != 0) {
+				try {
+					quiescent.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for parallel saturation", e);
+				}
+			}
+		}
+		RuntimeException e = failure;
+		if (e != null) {
+			failure = null;
+			throw e;
+		}
+	}
+
+	private boolean isWorker() {
+		return ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool;
+	}
+
+	private class ListenerTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Runnable call;
+
+		ListenerTask(Runnable call) {
+			this.call = call;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				call.run();
+			} catch (Throwable e) {
+				if (failure == null)
+					failure = e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+			} finally {
+				if (pending.decrementAndGet() == 0) {
+					synchronized (quiescent) {
+						quiescent.notifyAll();
+					}
+				}
+			}
+		}
+	}
+}
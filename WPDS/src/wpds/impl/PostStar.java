@@ -11,13 +11,20 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+
 import wpds.interfaces.Empty;
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
 import wpds.interfaces.WPAStateListener;
 import wpds.interfaces.WPAUpdateListener;
-import wpds.interfaces.WPDSUpdateListener;
+import wpds.interfaces.WPDSBatchUpdateListener;
 import wpds.wildcard.ExclusionWildcard;
 import wpds.wildcard.Wildcard;
 
@@ -29,11 +36,21 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		this.pds = pds;
 		this.fa = initialAutomaton;
 		fa.setInitialAutomaton(fa);
-		this.pds.registerUpdateListener(new PostStarUpdateListener(fa));
+		WPDSMetrics metrics = fa.getMetrics();
+		if (metrics != null)
+			metrics.saturationStarted();
+		fa.beginBatch();
+		try {
+			this.pds.registerUpdateListener(new PostStarUpdateListener(fa));
+		} finally {
+			fa.endBatch();
+			if (metrics != null)
+				metrics.saturationFinished();
+		}
 	}
 	
 	
-	private class PostStarUpdateListener implements WPDSUpdateListener<N, D, W> {
+	private class PostStarUpdateListener implements WPDSBatchUpdateListener<N, D, W> {
 
 		private WeightedPAutomaton<N, D, W> aut;
 
@@ -43,13 +60,42 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		
 		@Override
 		public void onRuleAdded(final Rule<N, D, W> rule) {
+			WPAStateListener<N, D, W> l = createListener(rule);
+			if (l != null)
+				fa.registerListener(l);
+		}
+
+		/**
+		 * Listeners of rules leaving the same state with the same label are registered as one group, the existing
+		 * transitions of the state are then replayed once for the whole group instead of once per rule.
+		 */
+		@Override
+		public void onRulesAdded(Collection<Rule<N, D, W>> rules) {
+			ListMultimap<Configuration<N, D>, WPAStateListener<N, D, W>> groups = LinkedListMultimap.create();
+			for (Rule<N, D, W> rule : rules) {
+				WPAStateListener<N, D, W> l = createListener(rule);
+				if (l != null)
+					groups.put(new Configuration<N, D>(l.getLabel(), l.getState()), l);
+			}
+			for (Configuration<N, D> c : groups.keySet()) {
+				List<WPAStateListener<N, D, W>> group = groups.get(c);
+				if (group.size() == 1) {
+					fa.registerListener(group.get(0));
+				} else {
+					fa.registerListener(new RuleGroupListener(c.getState(), c.getLocation(), group));
+				}
+			}
+		}
+
+		private WPAStateListener<N, D, W> createListener(Rule<N, D, W> rule) {
 			if(rule instanceof NormalRule){
-				fa.registerListener(new HandleNormalListener((NormalRule)rule));
+				return new HandleNormalListener((NormalRule)rule);
 			} else if(rule instanceof PushRule){
-				fa.registerListener(new HandlePushListener((PushRule)rule));
+				return new HandlePushListener((PushRule)rule);
 			} else if(rule instanceof PopRule){
-				fa.registerListener(new HandlePopListener( rule.getS1(), rule.getL1(),rule.getS2(),rule.getWeight()));
+				return new HandlePopListener( rule.getS1(), rule.getL1(),rule.getS2(),rule.getWeight());
 			}
+			return null;
 		}
 
 		@Override
@@ -94,7 +140,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		@Override
 		public void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
 			update(new Transition<N, D>(transition.getStart(), t.getLabel(), t.getTarget()),
-						(W) w.extendWith(newWeight));
+						fa.extend(w, newWeight));
 		}
 
 		@Override
@@ -102,9 +148,9 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + ((targetState == null) ? 0 : targetState.hashCode());
 			result = prime * result + ((transition == null) ? 0 : transition.hashCode());
 			result = prime * result + ((newWeight == null) ? 0 : newWeight.hashCode());
@@ -159,7 +205,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 					if(popLabel instanceof Empty){
 						throw new RuntimeException("IllegalState");
 					}
-					final W newWeight = (W) weight.extendWith(ruleWeight);
+					final W newWeight = fa.extend(weight, ruleWeight);
 					update(new Transition<N, D>(targetState, fa.epsilon(), t.getTarget()), newWeight);
 					fa.registerListener(new UpdateTransitivePopListener(new Transition<N, D>(targetState, fa.epsilon(), t.getTarget()),newWeight));
 				} else{
@@ -177,9 +223,9 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + ((popLabel == null) ? 0 : popLabel.hashCode());
 			result = prime * result + ((ruleWeight == null) ? 0 : ruleWeight.hashCode());
 			result = prime * result + ((targetState == null) ? 0 : targetState.hashCode());
@@ -219,10 +265,54 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
 	}
 	
+	private class RuleGroupListener extends WPAStateListener<N, D, W> {
+		private final WPAStateListener<N, D, W>[] members;
+
+		@SuppressWarnings("unchecked")
+		public RuleGroupListener(D state, N label, List<WPAStateListener<N, D, W>> members) {
+			super(state, label);
+			this.members = members.toArray(new WPAStateListener[members.size()]);
+		}
+
+		@Override
+		public void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+			for (WPAStateListener<N, D, W> l : members) {
+				l.onOutTransitionAdded(t, w, aut);
+			}
+		}
+
+		@Override
+		public void onInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+			for (WPAStateListener<N, D, W> l : members) {
+				l.onInTransitionAdded(t, w, aut);
+			}
+		}
+
+		@Override
+		protected int computeHashCode() {
+			final int prime = 31;
+			int result = super.computeHashCode();
+			result = prime * result + Arrays.hashCode(members);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!super.equals(obj))
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			RuleGroupListener other = (RuleGroupListener) obj;
+			return Arrays.equals(members, other.members);
+		}
+	}
+
 	private class HandleNormalListener extends WPAStateListener<N, D, W> {
 		private NormalRule<N, D, W> rule;
 		public HandleNormalListener(NormalRule<N, D, W> rule) {
-			super(rule.getS1());
+			super(rule.getS1(), rule.getL1());
 			this.rule = rule;
 		}
 
@@ -230,7 +320,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		@Override
 		public void onOutTransitionAdded(final Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
 			if(t.getLabel().equals(rule.getL1()) || rule.getL1() instanceof Wildcard){
-				W newWeight = (W) weight.extendWith(rule.getWeight());
+				W newWeight = fa.extend(weight, rule.getWeight());
 				D p = rule.getS2();
 				N l2 = rule.getL2();
 				if (l2 instanceof ExclusionWildcard) {
@@ -256,9 +346,9 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + ((rule == null) ? 0 : rule.hashCode());
 			return result;
 		}
@@ -288,7 +378,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		private PushRule<N, D, W> rule;
 		
 		public HandlePushListener(PushRule<N, D, W> rule) {
-			super(rule.getS1());
+			super(rule.getS1(), rule.getL1());
 			this.rule = rule;
 		}
 
@@ -306,7 +396,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 				final N transitionLabel = (rule.getCallSite() instanceof Wildcard ? t.getLabel() : rule.getCallSite());
 				final Transition<N, D> transition = new Transition<N, D>(irState, transitionLabel, t.getTarget());
 
-				update(transition, (W)weight.extendWith(rule.getWeight()));
+				update(transition, fa.extend(weight, rule.getWeight()));
 				
 				if(!fa.nested()){
 					update(new Transition<N, D>(p, gammaPrime, irState),fa.getOne());
@@ -323,7 +413,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
 								W newWeight = getWeightFor(transition);
 								update(new Transition<N, D>(t.getStart(), transition.getLabel(), transition.getTarget()),
-									(W) newWeight.extendWith(w));
+									fa.extend(newWeight, w));
 							}
 						}
 					});
@@ -340,9 +430,9 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + ((rule == null) ? 0 : rule.hashCode());
 			return result;
 		}
@@ -390,9 +480,9 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + ((callSite == null) ? 0 : callSite.hashCode());
 			result = prime * result + ((transition == null) ? 0 : transition.hashCode());
 			return result;
@@ -428,7 +518,7 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		if(!fa.nested()){
 			fa.addWeightForTransition(trans, weight);
 		}else{
-			getSummaryAutomaton(trans.getTarget()).addWeightForTransition(trans, weight);	
+			summaryAutomaton(trans.getTarget()).addWeightForTransition(trans, weight);
 		}
 	}
 	
@@ -436,20 +526,33 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 		if(!fa.nested()){
 			return fa.getWeightFor(trans);
 		}else{
-			return getSummaryAutomaton(trans.getTarget()).getWeightFor(trans);	
+			return summaryAutomaton(trans.getTarget()).getWeightFor(trans);
 		}
 	}
 
 
+	// Summary lookups are guarded by this solver, listener calls may run in parallel (see
+	// WeightedPAutomaton.setParallelDispatch).
+	private synchronized WeightedPAutomaton<N, D, W> summaryAutomaton(D target) {
+		return getSummaryAutomaton(target);
+	}
+
 	private WeightedPAutomaton<N, D, W> getOrCreateSummaryAutomaton(D target, Transition<N, D> transition, W weight, WeightedPAutomaton<N, D, W> context) {
-		WeightedPAutomaton<N, D, W> aut = getSummaryAutomaton(target);
-		if(aut == null){
-			aut = context.createNestedAutomaton(target);
-			putSummaryAutomaton(target, aut);
-			aut.setInitialAutomaton(fa);
-		} else{
-			context.addNestedAutomaton(aut);
+		WeightedPAutomaton<N, D, W> aut;
+		boolean created = false;
+		synchronized (this) {
+			aut = getSummaryAutomaton(target);
+			if(aut == null){
+				aut = context.createNestedAutomaton(target);
+				putSummaryAutomaton(target, aut);
+				aut.setInitialAutomaton(fa);
+				created = true;
+			} else{
+				context.addNestedAutomaton(aut);
+			}
 		}
+		if (created)
+			summaryCreated(new Configuration<N, D>(transition.getLabel(), transition.getStart()), aut);
 		aut.addWeightForTransition(transition, weight);
 		return aut;
 	}
@@ -457,6 +560,13 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
 	public abstract void putSummaryAutomaton(D target, WeightedPAutomaton<N, D, W> aut);
 	public abstract WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target);
+
+	/**
+	 * Called outside of the locks of this solver after <code>aut</code> was created as the summary automaton of the
+	 * method entered at <code>entry</code>, see {@link SharedSummaries}.
+	 */
+	protected void summaryCreated(Configuration<N, D> entry, WeightedPAutomaton<N, D, W> aut) {
+	}
 	
 
 }
@@ -11,11 +11,15 @@
  *******************************************************************************/
 package wpds.impl;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
@@ -23,98 +27,115 @@ import wpds.interfaces.State;
 import wpds.wildcard.Wildcard;
 
 public class PreStar<N extends Location, D extends State, W extends Weight> {
-  private LinkedList<Transition<N, D>> worklist = Lists.newLinkedList();
+  private final Deque<Transition<N, D>> worklist = new ArrayDeque<>();
+  private final Set<Transition<N, D>> inWorklist = Sets.newHashSet();
+  // A push rule <p;l>-><q;g.c> and a transition q~g~>q' give rise to the rule <p;l>-><q';c>.
+  // Rows are the target configurations (c,q'), columns the start configurations (l,p).
+  private final Table<Configuration<N, D>, Configuration<N, D>, W> derivedRules = HashBasedTable.create();
+  // Same for push rules with a wildcard call site, rows are the states q', columns the states p.
+  private final Table<D, D, W> derivedWildcardRules = HashBasedTable.create();
   private IPushdownSystem<N, D, W> pds;
   private WeightedPAutomaton<N, D, W> fa;
 
   public WeightedPAutomaton<N, D, W> prestar(IPushdownSystem<N, D, W> pds,
       WeightedPAutomaton<N, D, W> initialAutomaton) {
     this.pds = pds;
-    worklist = Lists.newLinkedList(initialAutomaton.getTransitions());
     fa = initialAutomaton;
 
-    for (Transition<N, D> trans : Sets.newHashSet(fa.getTransitions())) {
-      W one = fa.getOne();
-      fa.addWeightForTransition(trans, one);
+    for (Transition<N, D> trans : fa.getTransitions()) {
+      checkLabel(trans);
+      enqueue(trans);
     }
     for (PopRule<N, D, W> r : pds.getPopRules()) {
-      update(new Transition<N, D>(r.getS1(), r.getL1(), r.getS2()), r.getWeight(),
-          Lists.<Transition<N, D>>newLinkedList());
+      update(new Transition<N, D>(r.getS1(), r.getL1(), r.getS2()), r.getWeight());
     }
 
     while (!worklist.isEmpty()) {
-      Transition<N, D> t = worklist.removeFirst();
+      Transition<N, D> t = worklist.poll();
+      inWorklist.remove(t);
+      W weight = fa.getWeightFor(t);
 
       for (NormalRule<N, D, W> r : pds.getNormalRulesEnding(t.getStart(), t.getLabel())) {
-        // Normal rules
-          LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>>newLinkedList();
-          previous.add(t);
-          update(new Transition<N, D>(r.getS1(), r.getL1(), t.getTarget()), r.getWeight(),
-              previous);
+        update(new Transition<N, D>(r.getS1(), r.getL1(), t.getTarget()),
+            fa.extend(r.getWeight(), weight));
       }
       for (PushRule<N, D, W> r : pds.getPushRulesEnding(t.getStart(), t.getLabel())) {
-        // Push rules
-        for (Transition<N, D> tdash : Sets.newHashSet(fa.getTransitions())) {
-          if (tdash.getLabel().equals(r.getCallSite())) {
-            LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>>newLinkedList();
-            previous.add(t);
-            previous.add(tdash);
-            update(new Transition<N, D>(r.getS1(), r.getL1(), tdash.getTarget()), r.getWeight(),
-                previous);
-          } else if (r.getCallSite() instanceof Wildcard) {
-            LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>>newLinkedList();
-            previous.add(t);
-            previous.add(tdash);
-            update(new Transition<N, D>(r.getS1(), tdash.getLabel(), tdash.getTarget()),
-                r.getWeight(), previous);
-          }
-
+        W derived = fa.extend(r.getWeight(), weight);
+        if (r.getCallSite() instanceof Wildcard) {
+          addDerivedWildcardRule(r.getS1(), t.getTarget(), derived);
+        } else {
+          addDerivedRule(new Configuration<N, D>(r.getL1(), r.getS1()),
+              new Configuration<N, D>(r.getCallSite(), t.getTarget()), derived);
         }
       }
 
-      for (PushRule<N, D, W> r : pds.getPushRules()) {
-        if (!(r.getCallSite() instanceof Wildcard)
-            && !r.getCallSite().equals(t.getString())) {
-          continue;
-        }
-        Transition<N, D> tdash = new Transition<N, D>(r.getS2(), r.getL2(), t.getTarget());
-        if (!fa.getTransitions().contains(tdash)) {
-          continue;
-        }
-        LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>>newLinkedList();
-        previous.add(tdash);
-        previous.add(t);
-        N label = ((r.getCallSite() instanceof Wildcard) ? t.getLabel() : r.getL1());
-        update(new Transition<N, D>(r.getS1(), label, t.getTarget()), r.getWeight(), previous);
+      for (Entry<Configuration<N, D>, W> e : derivedRules
+          .row(new Configuration<N, D>(t.getLabel(), t.getStart())).entrySet()) {
+        Configuration<N, D> start = e.getKey();
+        update(new Transition<N, D>(start.getState(), start.getLocation(), t.getTarget()),
+            fa.extend(e.getValue(), weight));
+      }
+      for (Entry<D, W> e : derivedWildcardRules.row(t.getStart()).entrySet()) {
+        update(new Transition<N, D>(e.getKey(), t.getLabel(), t.getTarget()),
+            fa.extend(e.getValue(), weight));
       }
     }
 
     return fa;
   }
 
-  private void update(Transition<N, D> trans, W weight, List<Transition<N, D>> previous) {
-    if (trans.getLabel() instanceof Wildcard)
-      throw new RuntimeException("INVALID TRANSITION");
-    fa.addTransition(trans);
-    W lt = getOrCreateWeight(trans);
-    W fr = weight;
-    for (Transition<N, D> prev : previous) {
-      fr = (W) fr.extendWith(getOrCreateWeight(prev));
+  private void addDerivedRule(Configuration<N, D> start, Configuration<N, D> target, W weight) {
+    W newWeight = combine(derivedRules.get(target, start), weight);
+    if (newWeight == null)
+      return;
+    derivedRules.put(target, start, newWeight);
+    List<Transition<N, D>> out = fa.getTransitionsOutOf(target.getState(), target.getLocation());
+    for (int i = 0; i < out.size(); i++) {
+      Transition<N, D> tdash = out.get(i);
+      update(new Transition<N, D>(start.getState(), start.getLocation(), tdash.getTarget()),
+          fa.extend(newWeight, fa.getWeightFor(tdash)));
     }
-    W newLt = (W) lt.combineWith(fr);
-    fa.addWeightForTransition(trans, newLt);
-    if (!lt.equals(newLt)) {
-      worklist.add(trans);
+  }
+
+  private void addDerivedWildcardRule(D start, D target, W weight) {
+    W newWeight = combine(derivedWildcardRules.get(target, start), weight);
+    if (newWeight == null)
+      return;
+    derivedWildcardRules.put(target, start, newWeight);
+    for (N label : fa.getLabelsOutOf(target)) {
+      List<Transition<N, D>> out = fa.getTransitionsOutOf(target, label);
+      for (int i = 0; i < out.size(); i++) {
+        Transition<N, D> tdash = out.get(i);
+        update(new Transition<N, D>(start, label, tdash.getTarget()),
+            fa.extend(newWeight, fa.getWeightFor(tdash)));
+      }
     }
   }
 
-  private W getOrCreateWeight(Transition<N, D> trans) {
-    W w = fa.getWeightFor(trans);
-    if (w != null)
-      return w;
+  // Returns the combined weight or null if the old weight did not change.
+  private W combine(W oldWeight, W weight) {
+    W newWeight = (oldWeight == null ? weight : (W) oldWeight.combineWith(weight));
+    if (newWeight.equals(oldWeight))
+      return null;
+    return newWeight;
+  }
+
+  private void update(Transition<N, D> trans, W weight) {
+    checkLabel(trans);
+    if (fa.addWeightForTransition(trans, weight)) {
+      enqueue(trans);
+    }
+  }
+
+  // Transitions are matched by their concrete label, a wildcard label would be taken literally.
+  private void checkLabel(Transition<N, D> trans) {
+    if (trans.getLabel() instanceof Wildcard)
+      throw new RuntimeException("INVALID TRANSITION");
+  }
 
-    W z = fa.getZero();
-//    z.setRange(trans.getLabel(), trans.getLabel());
-    return z;
+  private void enqueue(Transition<N, D> trans) {
+    if (inWorklist.add(trans)) {
+      worklist.add(trans);
+    }
   }
 }
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Summary automata of a solver that are seeded with the finished {@link Summary summaries} of earlier solvers.
+ * The automata themselves stay owned by the solver that created them.
+ */
+public interface SharedSummaries<N extends Location, D extends State, W extends Weight>
+		extends NestedWeightedPAutomatons<N, D, W> {
+
+	/**
+	 * Called by poststar, outside of its locks, after it created <code>aut</code> as the summary automaton entered
+	 * at <code>entry</code> and stored it by {@link #putSummaryAutomaton(State, WeightedPAutomaton)}. An
+	 * implementation may copy a finished summary of the same entry into <code>aut</code>.
+	 */
+	void summaryCreated(Configuration<N, D> entry, WeightedPAutomaton<N, D, W> aut);
+}
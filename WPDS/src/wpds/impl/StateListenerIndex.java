@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import wpds.impl.CopyOnWriteSet.Snapshot;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.interfaces.WPAStateListener;
+
+/**
+ * The state listeners of an automaton. Listeners with a label are indexed by state and label, listeners for all
+ * labels are kept per state in a separate bucket. Each bucket is a {@link CopyOnWriteSet}, a listener belongs to
+ * exactly one bucket, hence the buckets also deduplicate the listeners. The snapshots handed out for notification
+ * exclude listeners added afterwards.
+ */
+class StateListenerIndex<N extends Location, D extends State, W extends Weight> {
+	private final Map<D, CopyOnWriteSet<WPAStateListener<N, D, W>>> anyLabel = Maps.newHashMap();
+	private final Map<D, Map<N, CopyOnWriteSet<WPAStateListener<N, D, W>>>> byLabel = Maps.newHashMap();
+	private final Snapshot<WPAStateListener<N, D, W>> none = bucket().snapshot();
+
+	boolean add(WPAStateListener<N, D, W> l) {
+		if (l.getLabel() == null)
+			return bucket(anyLabel, l.getState()).add(l);
+		Map<N, CopyOnWriteSet<WPAStateListener<N, D, W>>> labels = byLabel.get(l.getState());
+		if (labels == null) {
+			labels = Maps.newHashMap();
+			byLabel.put(l.getState(), labels);
+		}
+		return bucket(labels, l.getLabel()).add(l);
+	}
+
+	private <K> CopyOnWriteSet<WPAStateListener<N, D, W>> bucket(Map<K, CopyOnWriteSet<WPAStateListener<N, D, W>>> buckets,
+			K key) {
+		CopyOnWriteSet<WPAStateListener<N, D, W>> res = buckets.get(key);
+		if (res == null) {
+			res = bucket();
+			buckets.put(key, res);
+		}
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	private CopyOnWriteSet<WPAStateListener<N, D, W>> bucket() {
+		return new CopyOnWriteSet<WPAStateListener<N, D, W>>(new WPAStateListener[0]);
+	}
+
+	/**
+	 * The listeners for all labels of <code>state</code>.
+	 */
+	Snapshot<WPAStateListener<N, D, W>> anyLabel(D state) {
+		CopyOnWriteSet<WPAStateListener<N, D, W>> res = anyLabel.get(state);
+		return res == null ? none : res.snapshot();
+	}
+
+	/**
+	 * The listeners for transitions labeled <code>label</code> out of or into <code>state</code>, excluding
+	 * those of {@link #anyLabel(State)}.
+	 */
+	Snapshot<WPAStateListener<N, D, W>> labeled(D state, N label) {
+		Map<N, CopyOnWriteSet<WPAStateListener<N, D, W>>> labels = byLabel.get(state);
+		if (labels == null)
+			return none;
+		CopyOnWriteSet<WPAStateListener<N, D, W>> res = labels.get(label);
+		return res == null ? none : res.snapshot();
+	}
+
+	List<WPAStateListener<N, D, W>> values() {
+		List<WPAStateListener<N, D, W>> res = Lists.newArrayList();
+		for (CopyOnWriteSet<WPAStateListener<N, D, W>> bucket : anyLabel.values()) {
+			Iterables.addAll(res, bucket.snapshot());
+		}
+		for (Map<N, CopyOnWriteSet<WPAStateListener<N, D, W>>> labels : byLabel.values()) {
+			for (CopyOnWriteSet<WPAStateListener<N, D, W>> bucket : labels.values()) {
+				Iterables.addAll(res, bucket.snapshot());
+			}
+		}
+		return res;
+	}
+
+	static boolean matches(WPAStateListener<?, ?, ?> l, Transition<?, ?> t) {
+		return l.getLabel() == null || l.getLabel().equals(t.getLabel());
+	}
+}
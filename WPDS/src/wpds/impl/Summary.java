@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * An immutable snapshot of the transitions and weights of a finished summary automaton. The summary is identified
+ * by its entry, the location entered and the fact it is entered with, e.g. a method and its entry fact. A summary
+ * is not tied to the solver that computed it, {@link #copyInto(WeightedPAutomaton)} seeds a summary automaton of
+ * another solver with it.
+ */
+public class Summary<N extends Location, D extends State, W extends Weight> {
+	private final Configuration<N, D> entry;
+	private final D target;
+	private final ImmutableMap<Transition<N, D>, W> weights;
+
+	public Summary(Configuration<N, D> entry, D target, Map<Transition<N, D>, W> weights) {
+		this.entry = entry;
+		this.target = target;
+		this.weights = ImmutableMap.copyOf(weights);
+	}
+
+	/**
+	 * Snapshots the transitions and weights <code>aut</code> holds at the time of the call.
+	 */
+	public static <N extends Location, D extends State, W extends Weight> Summary<N, D, W> of(
+			Configuration<N, D> entry, WeightedPAutomaton<N, D, W> aut) {
+		ImmutableMap.Builder<Transition<N, D>, W> weights = ImmutableMap.builder();
+		for (Transition<N, D> t : aut.getTransitions()) {
+			weights.put(t, aut.getWeightFor(t));
+		}
+		return new Summary<>(entry, aut.getInitialState(), weights.build());
+	}
+
+	public Configuration<N, D> getEntry() {
+		return entry;
+	}
+
+	/**
+	 * The initial state of the summary automaton.
+	 */
+	public D getTarget() {
+		return target;
+	}
+
+	public Set<Transition<N, D>> getTransitions() {
+		return weights.keySet();
+	}
+
+	public W getWeightFor(Transition<N, D> t) {
+		return weights.get(t);
+	}
+
+	public int size() {
+		return weights.size();
+	}
+
+	/**
+	 * Adds all transitions of this summary with their weights to <code>aut</code>, the listeners of
+	 * <code>aut</code> are notified as for any other addition.
+	 */
+	public void copyInto(WeightedPAutomaton<N, D, W> aut) {
+		for (Entry<Transition<N, D>, W> e : weights.entrySet()) {
+			aut.addWeightForTransition(e.getKey(), e.getValue());
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * A thread-safe store of finished summaries that outlives a single solver. Summaries are immutable
+ * {@link Summary} snapshots keyed by their entry, i.e. the summarized method and its entry fact, and the least
+ * recently used ones are evicted once more than <code>maximumSize</code> summaries are stored.
+ * <p>
+ * Solvers do not access the cache directly but through a {@link #view()}. The summary automata of a view are owned
+ * by the solvers using the view and never handed to another view. A summary automaton created for an entry the
+ * cache holds a summary for is seeded with a copy of that summary, the solver then extends its copy with its own
+ * rules. The summaries of a view are stored in the cache by {@link View#publish()}. Sharing a cache is only
+ * meaningful between solvers whose pushdown systems agree on the rules of the summarized methods.
+ */
+public class SummaryCache<N extends Location, D extends State, W extends Weight> {
+
+	private final Cache<Configuration<N, D>, Summary<N, D, W>> summaries;
+
+	public SummaryCache(long maximumSize) {
+		this.summaries = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+	}
+
+	public View view() {
+		return new View();
+	}
+
+	/**
+	 * Stores a summary computed elsewhere, e.g. one loaded from a {@link SummaryFile}.
+	 */
+	public void put(Summary<N, D, W> summary) {
+		summaries.put(summary.getEntry(), summary);
+	}
+
+	/**
+	 * Hits and misses of the lookups of all views, one lookup per created summary automaton.
+	 */
+	public CacheStats stats() {
+		return summaries.stats();
+	}
+
+	public long size() {
+		return summaries.size();
+	}
+
+	/**
+	 * The summaries currently stored, e.g. to write them to a {@link SummaryFile}.
+	 */
+	public Map<Configuration<N, D>, Summary<N, D, W>> asMap() {
+		return Collections.unmodifiableMap(summaries.asMap());
+	}
+
+	public void invalidateAll() {
+		summaries.invalidateAll();
+	}
+
+	public class View implements SharedSummaries<N, D, W> {
+		private final Map<D, WeightedPAutomaton<N, D, W>> automata = Maps.newHashMap();
+		private final Map<Configuration<N, D>, WeightedPAutomaton<N, D, W>> created = Maps.newLinkedHashMap();
+		// The modification count of each created automaton when it was last published.
+		private final Map<Configuration<N, D>, Integer> published = Maps.newHashMap();
+
+		private View() {
+		}
+
+		@Override
+		public synchronized void putSummaryAutomaton(D target, WeightedPAutomaton<N, D, W> aut) {
+			automata.put(target, aut);
+		}
+
+		@Override
+		public synchronized WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target) {
+			return automata.get(target);
+		}
+
+		@Override
+		public void summaryCreated(Configuration<N, D> entry, WeightedPAutomaton<N, D, W> aut) {
+			Summary<N, D, W> finished;
+			synchronized (this) {
+				created.put(entry, aut);
+				finished = summaries.getIfPresent(entry);
+			}
+			if (finished != null)
+				finished.copyInto(aut);
+		}
+
+		/**
+		 * Stores snapshots of the summary automata created through this view that changed since the last call.
+		 * Must only be called while the solvers of this view are idle, e.g. after poststar returned, such that
+		 * the snapshots are finished summaries.
+		 */
+		public synchronized void publish() {
+			for (Entry<Configuration<N, D>, WeightedPAutomaton<N, D, W>> e : created.entrySet()) {
+				int version = e.getValue().getModificationCount();
+				Integer last = published.get(e.getKey());
+				if (last != null && last == version)
+					continue;
+				published.put(e.getKey(), version);
+				summaries.put(e.getKey(), Summary.of(e.getKey(), e.getValue()));
+			}
+		}
+	}
+}
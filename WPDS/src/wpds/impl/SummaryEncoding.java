@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Encodes the states, locations and weights of summary automata for a {@link SummaryFile}. Strings written by an
+ * encoding, e.g. method and field signatures, are stored once per file.
+ * <p>
+ * A write method throws an {@link IllegalArgumentException} for values that cannot be encoded, the summaries
+ * containing such values are not written. A read method throws an {@link IllegalArgumentException} for data it
+ * cannot decode, loading the file then fails.
+ */
+public interface SummaryEncoding<N extends Location, D extends State, W extends Weight> {
+
+	void writeState(D state, SummaryOutput out);
+
+	D readState(SummaryInput in);
+
+	void writeLocation(N location, SummaryOutput out);
+
+	N readLocation(SummaryInput in);
+
+	void writeWeight(W weight, SummaryOutput out);
+
+	W readWeight(SummaryInput in);
+}
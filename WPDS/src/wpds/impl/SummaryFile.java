@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Stores {@link Summary summaries} in a compact binary file, such that summaries of library code can be computed
+ * once and loaded by later analysis runs. After a string table, a state, a location and a weight table, the file
+ * lists for each summary its entry, its target state and its weighted transitions as indices into these tables. All
+ * ints are variable length quantities. Loaded summaries are not bound to any solver, solvers reuse them through a
+ * {@link SummaryCache}.
+ */
+public class SummaryFile {
+	private static final int MAGIC = 0x57505346;
+	private static final int VERSION = 2;
+
+	private SummaryFile() {
+	}
+
+	/**
+	 * Writes all <code>summaries</code> whose states, locations and weights can be encoded and returns their number.
+	 */
+	public static <N extends Location, D extends State, W extends Weight> int write(File file,
+			Collection<Summary<N, D, W>> summaries, final SummaryEncoding<N, D, W> encoding) throws IOException {
+		final Interner<String> strings = new Interner<>();
+		Table<D> states = new Table<D>(strings) {
+			@Override
+			void encode(D state, SummaryOutput out) {
+				encoding.writeState(state, out);
+			}
+		};
+		Table<N> locations = new Table<N>(strings) {
+			@Override
+			void encode(N location, SummaryOutput out) {
+				encoding.writeLocation(location, out);
+			}
+		};
+		Table<W> weights = new Table<W>(strings) {
+			@Override
+			void encode(W weight, SummaryOutput out) {
+				encoding.writeWeight(weight, out);
+			}
+		};
+		SummaryOutput body = new SummaryOutput(strings);
+		int written = 0;
+		for (Summary<N, D, W> s : summaries) {
+			SummaryOutput summary = new SummaryOutput(strings);
+			try {
+				summary.writeUnsigned(states.id(s.getEntry().getState()));
+				summary.writeUnsigned(locations.id(s.getEntry().getLocation()));
+				summary.writeUnsigned(states.id(s.getTarget()));
+				summary.writeUnsigned(s.size());
+				for (Transition<N, D> t : s.getTransitions()) {
+					summary.writeUnsigned(states.id(t.getStart()));
+					summary.writeUnsigned(locations.id(t.getLabel()));
+					summary.writeUnsigned(states.id(t.getTarget()));
+					summary.writeUnsigned(weights.id(s.getWeightFor(t)));
+				}
+			} catch (IllegalArgumentException ex) {
+				continue;
+			}
+			body.append(summary);
+			written++;
+		}
+
+		SummaryOutput header = new SummaryOutput(strings);
+		header.writeUnsigned(VERSION);
+		header.writeUnsigned(strings.size());
+		for (int i = 0; i < strings.size(); i++)
+			header.writeUTF8(strings.get(i));
+		states.writeTo(header);
+		locations.writeTo(header);
+		weights.writeTo(header);
+		header.writeUnsigned(written);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			header.writeTo(out);
+			body.writeTo(out);
+		}
+		return written;
+	}
+
+	/**
+	 * Adds each summary of <code>file</code> to <code>cache</code>, unless <code>cache</code> already holds a
+	 * summary for the same entry. Returns the number of added summaries.
+	 */
+	public static <N extends Location, D extends State, W extends Weight> int load(File file,
+			SummaryEncoding<N, D, W> encoding, SummaryCache<N, D, W> cache) throws IOException {
+		int loaded = 0;
+		for (Summary<N, D, W> summary : read(file, encoding)) {
+			if (cache.asMap().containsKey(summary.getEntry()))
+				continue;
+			cache.put(summary);
+			loaded++;
+		}
+		return loaded;
+	}
+
+	/**
+	 * Maps <code>file</code> into memory and decodes the summaries it contains.
+	 */
+	public static <N extends Location, D extends State, W extends Weight> List<Summary<N, D, W>> read(File file,
+			SummaryEncoding<N, D, W> encoding) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 4 || buffer.getInt() != MAGIC)
+				throw new IOException("Not a summary file: " + file);
+			List<String> strings = Lists.newArrayList();
+			SummaryInput in = new SummaryInput(buffer, strings);
+			int version = in.readUnsigned();
+			if (version != VERSION)
+				throw new IOException("Unsupported summary file version " + version + ": " + file);
+			int stringCount = in.readUnsigned();
+			for (int i = 0; i < stringCount; i++)
+				strings.add(in.readUTF8());
+			List<D> states = Lists.newArrayList();
+			int stateCount = in.readUnsigned();
+			for (int i = 0; i < stateCount; i++)
+				states.add(encoding.readState(in));
+			List<N> locations = Lists.newArrayList();
+			int locationCount = in.readUnsigned();
+			for (int i = 0; i < locationCount; i++)
+				locations.add(encoding.readLocation(in));
+			List<W> weights = Lists.newArrayList();
+			int weightCount = in.readUnsigned();
+			for (int i = 0; i < weightCount; i++)
+				weights.add(encoding.readWeight(in));
+
+			List<Summary<N, D, W>> summaries = Lists.newArrayList();
+			int summaryCount = in.readUnsigned();
+			for (int i = 0; i < summaryCount; i++) {
+				D entryState = states.get(in.readUnsigned());
+				N entryLocation = locations.get(in.readUnsigned());
+				D target = states.get(in.readUnsigned());
+				int transitions = in.readUnsigned();
+				Map<Transition<N, D>, W> summary = Maps.newHashMap();
+				for (int j = 0; j < transitions; j++) {
+					D start = states.get(in.readUnsigned());
+					N label = locations.get(in.readUnsigned());
+					D to = states.get(in.readUnsigned());
+					summary.put(new Transition<N, D>(start, label, to), weights.get(in.readUnsigned()));
+				}
+				summaries.add(new Summary<N, D, W>(new Configuration<N, D>(entryLocation, entryState), target, summary));
+			}
+			return summaries;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Truncated or corrupt summary file: " + file, e);
+		}
+	}
+
+	private abstract static class Table<T> {
+		private final Interner<T> ids = new Interner<>();
+		private final Interner<String> strings;
+		private final SummaryOutput entries;
+
+		Table(Interner<String> strings) {
+			this.strings = strings;
+			this.entries = new SummaryOutput(strings);
+		}
+
+		int id(T value) {
+			int id = ids.getId(value);
+			if (id >= 0)
+				return id;
+			// Encode separately, a value that cannot be encoded must not leave a partial entry.
+			SummaryOutput entry = new SummaryOutput(strings);
+			encode(value, entry);
+			entries.append(entry);
+			return ids.intern(value);
+		}
+
+		abstract void encode(T value, SummaryOutput out);
+
+		void writeTo(SummaryOutput out) {
+			out.writeUnsigned(ids.size());
+			out.append(entries);
+		}
+	}
+}
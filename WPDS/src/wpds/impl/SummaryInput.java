@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads the values written by a {@link SummaryOutput} from a (memory-mapped) buffer.
+ */
+public class SummaryInput {
+	private final ByteBuffer buffer;
+	private final List<String> strings;
+
+	SummaryInput(ByteBuffer buffer, List<String> strings) {
+		this.buffer = buffer;
+		this.strings = strings;
+	}
+
+	public int readInt() {
+		int value = readUnsigned();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public String readString() {
+		return strings.get(readUnsigned());
+	}
+
+	int readUnsigned() {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	String readUTF8() {
+		byte[] encoded = new byte[readUnsigned()];
+		buffer.get(encoded);
+		return new String(encoded, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes ints as variable length quantities, strings are written as index into the string table of the file.
+ */
+public class SummaryOutput {
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private final Interner<String> strings;
+
+	SummaryOutput(Interner<String> strings) {
+		this.strings = strings;
+	}
+
+	public void writeInt(int value) {
+		// Zig-zag encoding keeps small negative values short.
+		writeUnsigned((value << 1) ^ (value >> 31));
+	}
+
+	public void writeString(String string) {
+		writeUnsigned(strings.intern(string));
+	}
+
+	void writeUnsigned(int value) {
+		while ((value & ~0x7F) != 0) {
+			bytes.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes.write(value);
+	}
+
+	void writeUTF8(String string) {
+		byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+		writeUnsigned(encoded.length);
+		bytes.write(encoded, 0, encoded.length);
+	}
+
+	void append(SummaryOutput other) {
+		other.writeTo(bytes);
+	}
+
+	void writeTo(OutputStream out) {
+		try {
+			bytes.writeTo(out);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
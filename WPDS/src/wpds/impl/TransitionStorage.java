@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collection;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Stores the transitions of a {@link WeightedPAutomaton} together with their weights and the transitions
+ * leaving and entering each state.
+ */
+interface TransitionStorage<N extends Location, D extends State, W extends Weight> {
+
+	/**
+	 * Adds the transition without a weight, returns false if it was already present.
+	 */
+	boolean add(Transition<N, D> trans);
+
+	W getWeight(Transition<N, D> trans);
+
+	void setWeight(Transition<N, D> trans, W weight);
+
+	Collection<Transition<N, D>> getTransitions();
+
+	Collection<Transition<N, D>> getTransitionsOutOf(D state);
+
+	Collection<Transition<N, D>> getTransitionsInto(D state);
+
+	int size();
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Counters of the saturation work done for one analysis, e.g. one query. Recording is opt-in: a metrics instance
+ * is attached to automata by {@link WeightedPAutomaton#setMetrics(WPDSMetrics)} and to pushdown systems by
+ * {@link WeightedPushdownSystem#setMetrics(WPDSMetrics)}, without one nothing is recorded. The counters are updated
+ * atomically and can be read while the analysis runs, typically by a {@link MetricsSink}.
+ * <p>
+ * Saturation time is the wall time during which an outermost transition or rule addition, or a poststar, is in
+ * progress on any of the attached automata and pushdown systems.
+ */
+public class WPDSMetrics {
+	private final String name;
+	private final AtomicLong transitionsAdded = new AtomicLong();
+	private final AtomicLong weightUpdates = new AtomicLong();
+	private final ConcurrentMap<Class<?>, AtomicLong> listenerInvocations = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, AtomicLong> ruleAdditions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, AtomicLong> combines = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, AtomicLong> extensions = new ConcurrentHashMap<>();
+	private final AtomicInteger saturating = new AtomicInteger();
+	private volatile long saturationStart;
+	private final AtomicLong saturationNanos = new AtomicLong();
+
+	public WPDSMetrics(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	void transitionAdded() {
+		transitionsAdded.incrementAndGet();
+	}
+
+	void weightUpdated() {
+		weightUpdates.incrementAndGet();
+	}
+
+	void listenerInvoked(Object listener) {
+		increment(listenerInvocations, listener.getClass());
+	}
+
+	void ruleAdded(Rule<?, ?, ?> rule) {
+		increment(ruleAdditions, rule.getClass());
+	}
+
+	void combined(Weight weight) {
+		increment(combines, weight.getClass());
+	}
+
+	void extended(Weight weight) {
+		increment(extensions, weight.getClass());
+	}
+
+	void saturationStarted() {
+		if (saturating.getAndIncrement() == 0)
+			saturationStart = System.nanoTime();
+	}
+
+	void saturationFinished() {
+		if (saturating.decrementAndGet() == 0)
+			saturationNanos.addAndGet(System.nanoTime() - saturationStart);
+	}
+
+	private static void increment(ConcurrentMap<Class<?>, AtomicLong> counters, Class<?> key) {
+		AtomicLong counter = counters.get(key);
+		if (counter == null) {
+			AtomicLong fresh = new AtomicLong();
+			counter = counters.putIfAbsent(key, fresh);
+			if (counter == null)
+				counter = fresh;
+		}
+		counter.incrementAndGet();
+	}
+
+	public long getTransitionsAdded() {
+		return transitionsAdded.get();
+	}
+
+	/**
+	 * The number of times the weight of a transition changed, including the first weight of a new transition.
+	 */
+	public long getWeightUpdates() {
+		return weightUpdates.get();
+	}
+
+	/**
+	 * The saturation wall time so far, excluding a saturation in progress.
+	 */
+	public long getSaturationMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(saturationNanos.get());
+	}
+
+	/**
+	 * Listener invocations by listener class name.
+	 */
+	public Map<String, Long> getListenerInvocations() {
+		return byName(listenerInvocations);
+	}
+
+	/**
+	 * Added rules by rule class name, rules already present are not counted.
+	 */
+	public Map<String, Long> getRuleAdditions() {
+		return byName(ruleAdditions);
+	}
+
+	/**
+	 * Combinations of weights by the automata, by weight class name.
+	 */
+	public Map<String, Long> getCombines() {
+		return byName(combines);
+	}
+
+	/**
+	 * Extensions of weights by the automata, by weight class name.
+	 */
+	public Map<String, Long> getExtends() {
+		return byName(extensions);
+	}
+
+	private static SortedMap<String, Long> byName(Map<Class<?>, AtomicLong> counters) {
+		SortedMap<String, Long> res = Maps.newTreeMap();
+		for (Map.Entry<Class<?>, AtomicLong> e : counters.entrySet()) {
+			res.put(e.getKey().getName(), e.getValue().get());
+		}
+		return res;
+	}
+
+	/**
+	 * All counters under flat names, the per class counters are prefixed with <code>listener.</code>,
+	 * <code>rule.</code>, <code>combine.</code> and <code>extend.</code>.
+	 */
+	public SortedMap<String, Long> snapshot() {
+		SortedMap<String, Long> res = Maps.newTreeMap();
+		res.put("transitionsAdded", getTransitionsAdded());
+		res.put("weightUpdates", getWeightUpdates());
+		res.put("saturationMillis", getSaturationMillis());
+		putAll(res, "listener.", listenerInvocations);
+		putAll(res, "rule.", ruleAdditions);
+		putAll(res, "combine.", combines);
+		putAll(res, "extend.", extensions);
+		return res;
+	}
+
+	private static void putAll(Map<String, Long> res, String prefix, Map<Class<?>, AtomicLong> counters) {
+		for (Map.Entry<Class<?>, AtomicLong> e : counters.entrySet()) {
+			res.put(prefix + e.getKey().getName(), e.getValue().get());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + snapshot();
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Hash-conses weights and memoizes {@link Weight#extendWith(Weight)} and {@link Weight#combineWith(Weight)}.
+ * All weights returned by a cache are canonical instances, two of them are equal iff they are identical.
+ * The memoized results are keyed by the identity of the canonical operands and evicted in least recently
+ * used order once more than the given number of results are cached. Canonical instances are only weakly
+ * referenced by the cache, they are released once neither the analysis nor a memoized result refers to them.
+ * An equal weight interned afterwards becomes the new canonical instance, which keeps identity and equality
+ * in agreement among all weights that are alive.
+ */
+public class WeightCache<W extends Weight> {
+	private final Interner<W> canonical = Interners.newWeakInterner();
+	// Identity lookup for weights that are known to be canonical, avoids hashing large weights again. Weak keys
+	// of a MapMaker map are compared by identity.
+	private final Set<W> canonicalInstances = Collections
+			.newSetFromMap(new MapMaker().weakKeys().<W, Boolean> makeMap());
+	private final Map<Operands, W> extended;
+	private final Map<Operands, W> combined;
+	private long hits;
+	private long misses;
+
+	public WeightCache(int maxMemoizedResults) {
+		extended = new LruMap<>(maxMemoizedResults);
+		combined = new LruMap<>(maxMemoizedResults);
+	}
+
+	public synchronized W intern(W weight) {
+		if (canonicalInstances.contains(weight))
+			return weight;
+		W res = canonical.intern(weight);
+		canonicalInstances.add(res);
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	public synchronized W extend(W first, W second) {
+		Operands key = new Operands(intern(first), intern(second));
+		W res = extended.get(key);
+		if (res != null) {
+			hits++;
+			return res;
+		}
+		misses++;
+		res = intern((W) key.first.extendWith(key.second));
+		extended.put(key, res);
+		return res;
+	}
+
+	/**
+	 * Combining a weight with itself yields the weight itself, the semiring of a weighted pushdown system
+	 * is idempotent.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized W combine(W first, W second) {
+		W a = intern(first);
+		W b = intern(second);
+		if (a == b)
+			return a;
+		Operands key = new Operands(a, b);
+		W res = combined.get(key);
+		if (res != null) {
+			hits++;
+			return res;
+		}
+		misses++;
+		res = intern((W) a.combineWith(b));
+		combined.put(key, res);
+		return res;
+	}
+
+	/**
+	 * The number of canonical instances that have not been garbage collected yet.
+	 */
+	public synchronized int size() {
+		return canonicalInstances.size();
+	}
+
+	public synchronized int memoizedResults() {
+		return extended.size() + combined.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	private class Operands {
+		private final W first;
+		private final W second;
+
+		Operands(W first, W second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(first) + System.identityHashCode(second);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof WeightCache.Operands))
+				return false;
+			Operands other = (Operands) obj;
+			return first == other.first && second == other.second;
+		}
+	}
+
+	private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+		private final int maxSize;
+
+		LruMap(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > maxSize;
+		}
+	}
+}
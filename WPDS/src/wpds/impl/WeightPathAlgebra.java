@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import pathexpression.PathExpressionAlgebra;
+import wpds.interfaces.Location;
+
+/**
+ * Interprets path expressions over the labels of an automaton in a weight domain: union is
+ * {@link Weight#combineWith(Weight)}, concatenation is {@link Weight#extendWith(Weight)}. The Kleene star is
+ * computed as the fixed point of <code>s = one + s . w</code>, which is reached if combine is idempotent and the
+ * semiring has finite height. The iteration is bounded, semirings of infinite height must override
+ * {@link #star(Weight)} with a closed form.
+ */
+public abstract class WeightPathAlgebra<N extends Location, W extends Weight> implements PathExpressionAlgebra<N, W> {
+	private static final int DEFAULT_MAX_STAR_ITERATIONS = 1000;
+	private final W one;
+	private final W zero;
+	private final int maxStarIterations;
+
+	public WeightPathAlgebra(W one, W zero) {
+		this(one, zero, DEFAULT_MAX_STAR_ITERATIONS);
+	}
+
+	/**
+	 * @param maxStarIterations
+	 *            the number of iterations after which {@link #star(Weight)} gives up, at least the height of the
+	 *            semiring.
+	 */
+	public WeightPathAlgebra(W one, W zero, int maxStarIterations) {
+		this.one = one;
+		this.zero = zero;
+		this.maxStarIterations = maxStarIterations;
+	}
+
+	@Override
+	public W zero() {
+		return zero;
+	}
+
+	@Override
+	public W one() {
+		return one;
+	}
+
+	@Override
+	public abstract W label(N label);
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public W union(W a, W b) {
+		return (W) a.combineWith(b);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public W concatenate(W a, W b) {
+		return (W) a.extendWith(b);
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if no fixed point is reached within the configured number of iterations.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public W star(W a) {
+		W res = one;
+		for (int i = 0; i < maxStarIterations; i++) {
+			W next = (W) res.combineWith(res.extendWith(a));
+			if (next.equals(res))
+				return res;
+			res = next;
+		}
+		throw new IllegalStateException("No fixed point for the star of " + a + " after " + maxStarIterations
+				+ " iterations, the semiring must have finite height");
+	}
+}
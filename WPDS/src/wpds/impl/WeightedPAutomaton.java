@@ -11,27 +11,33 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
 import pathexpression.Edge;
 import pathexpression.IRegEx;
 import pathexpression.LabeledGraph;
+import pathexpression.PathExpressionAlgebra;
 import pathexpression.PathExpressionComputer;
-import pathexpression.RegEx;
+import pathexpression.PathExpressionSolver;
+import pathexpression.RegExFactory;
+import wpds.impl.CopyOnWriteSet.Snapshot;
 import wpds.interfaces.ForwardDFSEpsilonVisitor;
 import wpds.interfaces.ForwardDFSVisitor;
 import wpds.interfaces.Location;
@@ -42,23 +48,27 @@ import wpds.interfaces.WPAUpdateListener;
 
 public abstract class WeightedPAutomaton<N extends Location, D extends State, W extends Weight>
 		implements LabeledGraph<D, N> {
-	private Map<Transition<N, D>, W> transitionToWeights = new HashMap<>();
+	private static final int MAX_ALGEBRA_SOLVERS = 4;
 	// Set Q is implicit
 	// Weighted Pushdown Systems and their Application to Interprocedural
 	// Dataflow Analysis
-	protected Set<Transition<N, D>> transitions = Sets.newHashSet();
+	private TransitionStorage<N, D, W> storage = new HashTransitionStorage<>();
 	// set F in paper [Reps2003]
 	protected Set<D> finalState = Sets.newHashSet();
 	// set P in paper [Reps2003]
 	protected final D initialState;
 	protected Set<D> states = Sets.newHashSet();
-	private final Multimap<D, Transition<N, D>> transitionsOutOf = HashMultimap.create();
-	private final Multimap<D, Transition<N, D>> transitionsInto = HashMultimap.create();
-	private Set<WPAUpdateListener<N, D, W>> listeners = Sets.newHashSet();
-	private Multimap<D, WPAStateListener<N, D, W>> stateListeners = HashMultimap.create();
+	// Append-only index of transitions by (start state, label). Built on first use.
+	private Table<D, N, List<Transition<N, D>>> transitionsOutOfByLabel;
+	@SuppressWarnings("unchecked")
+	private CopyOnWriteSet<WPAUpdateListener<N, D, W>> listeners = new CopyOnWriteSet<WPAUpdateListener<N, D, W>>(
+			new WPAUpdateListener[0]);
+	private StateListenerIndex<N, D, W> stateListeners = new StateListenerIndex<>();
 	private Map<D, ForwardDFSVisitor<N, D, W>> stateToDFS = Maps.newHashMap();
 	private Map<D, ForwardDFSVisitor<N, D, W>> stateToEpsilonDFS = Maps.newHashMap();
-	private Set<WeightedPAutomaton<N, D, W>> nestedAutomatons = Sets.newHashSet();
+	@SuppressWarnings("unchecked")
+	private CopyOnWriteSet<WeightedPAutomaton<N, D, W>> nestedAutomatons = new CopyOnWriteSet<WeightedPAutomaton<N, D, W>>(
+			new WeightedPAutomaton[0]);
 	private Set<NestedAutomatonListener<N, D, W>> nestedAutomataListeners = Sets.newHashSet();
 	private Map<D, ReachabilityListener<N, D>> stateToEpsilonReachabilityListener = Maps.newHashMap();
 	private Map<D, ReachabilityListener<N, D>> stateToReachabilityListener = Maps.newHashMap();
@@ -72,6 +82,19 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 	public int failedAdditions;
 	public int failedDirectAdditions;
 	private WeightedPAutomaton<N, D, W> initialAutomaton;
+	private boolean iterativeDispatch;
+	private boolean dispatching;
+	private final Deque<ListenerEvent> events = new ArrayDeque<>();
+	private ParallelDispatcher dispatcher;
+	private WeightCache<W> weightCache;
+	private PathExpressionComputer<D, N> pathExpressions;
+	private RegExFactory<N> regExFactory;
+	private int pathExpressionsVersion;
+	private Map<PathExpressionAlgebra<N, ?>, PathExpressionSolver<D, N, ?>> algebraSolvers;
+	private int algebraSolversVersion;
+	private boolean compactReachability;
+	private WPDSMetrics metrics;
+	private volatile int modificationCount;
 	
 
 	public WeightedPAutomaton(D initialState) {
@@ -83,7 +106,12 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 	public abstract boolean isGeneratedState(D d);
 
 	public Collection<Transition<N, D>> getTransitions() {
-		return Lists.newArrayList(transitions);
+		if (dispatcher != null) {
+			synchronized (this) {
+				return Lists.newArrayList(storage.getTransitions());
+			}
+		}
+		return Lists.newArrayList(storage.getTransitions());
 	}
 	
 	public boolean addTransition(Transition<N, D> trans) {
@@ -108,9 +136,13 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 		s += "\tInitialStates:" + initialState + "\n";
 		s += "\tFinalStates:" + finalState + "\n";
 		s += "\tWeightToTransitions:\n\t\t";
-		s += Joiner.on("\n\t\t").join(transitionToWeights.entrySet());
+		List<String> transAndWeights = Lists.newArrayList();
+		for (Transition<N, D> t : storage.getTransitions()) {
+			transAndWeights.add(t + "=" + storage.getWeight(t));
+		}
+		s += Joiner.on("\n\t\t").join(transAndWeights);
 
-		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons){
+		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons.snapshot()){
 			s += "\n";
 			s += nested.toString();
 		}
@@ -136,13 +168,13 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 		String s = "digraph {\n";
 		TreeSet<String> trans = new TreeSet<String>();
 		for (D source : states) {
-			Collection<Transition<N, D>> collection = transitionsOutOf.get(source);
+			Collection<Transition<N, D>> collection = storage.getTransitionsOutOf(source);
 			
 			for (D target : states) {
 				List<String> labels = Lists.newLinkedList();
 				for (Transition<N, D> t : collection) {
 					if (t.getTarget().equals(target)) {
-						labels.add(t.getString().toString()+ " W: "+ transitionToWeights.get(t));
+						labels.add(t.getString().toString()+ " W: "+ storage.getWeight(t));
 					}
 				}
 				if (!labels.isEmpty()) {
@@ -156,8 +188,8 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 		}
 		s += Joiner.on("").join(trans);
 		s += "}\n";
-		s += "Transitions: " + transitions.size() +" Nested: "+nestedAutomatons.size()+"\n";
-		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons){
+		s += "Transitions: " + storage.size() +" Nested: "+nestedAutomatons.size()+"\n";
+		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons.snapshot()){
 			s += "NESTED -> \n";
 			s += nested.toDotString(visited);
 		}
@@ -166,7 +198,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 	}
 	public String toLabelGroupedDotString() {
 		HashBasedTable<D, N, Collection<D>> groupedByTargetAndLabel = HashBasedTable.create();
-		for(Transition<N, D> t : transitions){
+		for(Transition<N, D> t : storage.getTransitions()){
 			Collection<D> collection = groupedByTargetAndLabel.get(t.getTarget(), t.getLabel());
 			if(collection == null)
 				collection = Sets.newHashSet();
@@ -185,8 +217,8 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 			}
 		}
 		s += "}\n";
-		s += "Transitions: " + transitions.size() +"\n";
-		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons){
+		s += "Transitions: " + storage.size() +"\n";
+		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons.snapshot()){
 			s += "NESTED -> \n";
 			s += nested.toDotString();
 		}
@@ -194,37 +226,104 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 	}
 	public abstract N epsilon();
 
-	public IRegEx<N> extractLanguage(D from) {
-		PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
-		IRegEx<N> res = null;
+	/**
+	 * The language from <code>from</code> to the final states. The expressions are built by a
+	 * {@link RegExFactory}, subexpressions are therefore shared among the results until a transition is added.
+	 */
+	public synchronized IRegEx<N> extractLanguage(D from) {
+		PathExpressionComputer<D, N> expr = pathExpressionComputer();
+		Map<D, IRegEx<N>> toFinalStates = expr.getExpressionsBetween(from, getFinalState());
+		IRegEx<N> res = regExFactory.empty();
 		for (D finalState : getFinalState()) {
-			IRegEx<N> regEx = expr.getExpressionBetween(from, finalState);
-			if (res == null) {
-				res = regEx;
-			} else {
-				res = RegEx.<N> union(res, regEx);
-			}
+			res = regExFactory.union(res, toFinalStates.get(finalState));
 		}
-		if (res == null)
-			return new RegEx.EmptySet<N>();
 		return res;
 	}
 
-	public IRegEx<N> extractLanguage(D from, D to) {
-		PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
+	public synchronized IRegEx<N> extractLanguage(D from, D to) {
+		PathExpressionComputer<D, N> expr = pathExpressionComputer();
 		IRegEx<N> res = expr.getExpressionBetween(from, to);
 		if (res == null)
-			return new RegEx.EmptySet<N>();
+			return regExFactory.empty();
 		return res;
 	}
 
+	/**
+	 * Evaluates the language from <code>from</code> to the final states in the given algebra without building
+	 * the regular expressions of the language.
+	 */
+	public <R> R extractLanguage(D from, PathExpressionAlgebra<N, R> algebra) {
+		Map<D, R> toFinalStates = pathExpressionSolver(algebra).getValuesBetween(from, getFinalState());
+		R res = null;
+		for (D finalState : getFinalState()) {
+			R value = toFinalStates.get(finalState);
+			if (value.equals(algebra.zero()))
+				continue;
+			res = res == null ? value : algebra.union(res, value);
+		}
+		return res == null ? algebra.zero() : res;
+	}
+
+	/**
+	 * Like {@link #pathExpressionComputer()}, the solvers of the most recently used algebras are shared until a
+	 * transition is added. Algebras are told apart by their equals method.
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized <R> PathExpressionSolver<D, N, R> pathExpressionSolver(PathExpressionAlgebra<N, R> algebra) {
+		if (algebraSolvers == null) {
+			algebraSolvers = new LinkedHashMap<PathExpressionAlgebra<N, ?>, PathExpressionSolver<D, N, ?>>(16, 0.75f,
+					true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<PathExpressionAlgebra<N, ?>, PathExpressionSolver<D, N, ?>> eldest) {
+					return size() > MAX_ALGEBRA_SOLVERS;
+				}
+			};
+		} else if (algebraSolversVersion != storage.size()) {
+			algebraSolvers.clear();
+		}
+		algebraSolversVersion = storage.size();
+		PathExpressionSolver<D, N, R> solver = (PathExpressionSolver<D, N, R>) algebraSolvers.get(algebra);
+		if (solver == null) {
+			solver = new PathExpressionSolver<>(this, algebra);
+			algebraSolvers.put(algebra, solver);
+		}
+		return solver;
+	}
+
+	/**
+	 * The path expression computer is shared by all language extractions until a transition is added to this
+	 * automaton. Transitions are never removed, the number of transitions therefore identifies the version of
+	 * the automaton the elimination was computed for. The computer builds its expressions with a factory of this
+	 * automaton, both are dropped together such that the factory does not retain the expressions of outdated
+	 * versions.
+	 */
+	private synchronized PathExpressionComputer<D, N> pathExpressionComputer() {
+		if (pathExpressions == null || pathExpressionsVersion != storage.size()) {
+			regExFactory = new RegExFactory<N>(epsilon());
+			pathExpressions = new PathExpressionComputer<>(this, regExFactory);
+		}
+		pathExpressionsVersion = storage.size();
+		return pathExpressions;
+	}
+
+	/**
+	 * Changes whenever a transition is added or the weight of a transition changes, i.e. whenever
+	 * {@link #getTransitions()} or {@link #getWeightFor(Transition)} may return something else.
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
 	public Set<D> getStates() {
 		return states;
 	}
 
 	public Set<Edge<D, N>> getEdges() {
 		Set<Edge<D, N>> trans = Sets.newHashSet();
-		for (Edge<D, N> tran : transitions)
+		for (Edge<D, N> tran : storage.getTransitions())
 			trans.add(tran);
 		return trans;
 	};
@@ -234,29 +333,43 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 	};
 
 	public boolean addWeightForTransition(Transition<N, D> trans, W weight) {
+		if (metrics == null)
+			return addWeight(trans, weight);
+		metrics.saturationStarted();
+		try {
+			return addWeight(trans, weight);
+		} finally {
+			metrics.saturationFinished();
+		}
+	}
+
+	private boolean addWeight(Transition<N, D> trans, W weight) {
 		if (weight == null)
 			throw new IllegalArgumentException("Weight must not be null!");
 		if (trans.getStart().equals(trans.getTarget()) && trans.getLabel().equals(epsilon())) {
 			failedAdditions++;
 			return false;
 		}
-		transitionsOutOf.get(trans.getStart()).add(trans);
-		transitionsInto.get(trans.getTarget()).add(trans);
+		if (dispatcher != null)
+			return addWeightInParallel(trans, weight);
 		states.add(trans.getTarget());
 		states.add(trans.getStart());
-		boolean added = transitions.add(trans);
-		W oldWeight = transitionToWeights.get(trans);
-		W newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
-		if (!newWeight.equals(oldWeight)) {
-			transitionToWeights.put(trans, newWeight);
-			for (WPAUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-				l.onWeightAdded(trans, newWeight, this);
-			}
-			for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getStart()))) {
-				l.onOutTransitionAdded(trans, newWeight, this);
-			}
-			for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getTarget()))) {
-				l.onInTransitionAdded(trans, newWeight, this);
+		boolean added = storage.add(trans);
+		if (added && transitionsOutOfByLabel != null) {
+			indexByLabel(trans);
+		}
+		W oldWeight = storage.getWeight(trans);
+		W newWeight = combine(oldWeight, weight);
+		if (!sameWeight(newWeight, oldWeight)) {
+			storage.setWeight(trans, newWeight);
+			modificationCount++;
+			if (metrics != null)
+				recordUpdate(added);
+			if (iterativeDispatch) {
+				queue(new WeightAddedEvent(trans, newWeight));
+				drain();
+			} else {
+				notifyWeightAdded(trans, newWeight);
 			}
 			return true;
 		}
@@ -265,62 +378,531 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 		return added;
 	}
 
+	private void recordUpdate(boolean added) {
+		if (added)
+			metrics.transitionAdded();
+		metrics.weightUpdated();
+	}
+
+	private void invoked(Object listener) {
+		if (metrics != null)
+			metrics.listenerInvoked(listener);
+	}
+
+	private W combine(W oldWeight, W weight) {
+		if (metrics != null && oldWeight != null)
+			metrics.combined(oldWeight);
+		if (weightCache != null)
+			return oldWeight == null ? weightCache.intern(weight) : weightCache.combine(oldWeight, weight);
+		if (oldWeight == null || oldWeight == weight)
+			return weight;
+		return (W) oldWeight.combineWith(weight);
+	}
+
+	private boolean sameWeight(W newWeight, W oldWeight) {
+		if (weightCache != null)
+			return newWeight == oldWeight;
+		return newWeight.equals(oldWeight);
+	}
+
+	/**
+	 * Extends <code>first</code> with <code>second</code>, memoized by the weight cache of this automaton
+	 * if there is one.
+	 */
+	public W extend(W first, W second) {
+		if (metrics != null)
+			metrics.extended(first);
+		if (weightCache != null)
+			return weightCache.extend(first, second);
+		return (W) first.extendWith(second);
+	}
+
+	private boolean addWeightInParallel(Transition<N, D> trans, W weight) {
+		List<ListenerEvent> calls = Lists.newArrayList();
+		synchronized (this) {
+			states.add(trans.getTarget());
+			states.add(trans.getStart());
+			boolean added = storage.add(trans);
+			if (added && transitionsOutOfByLabel != null) {
+				indexByLabel(trans);
+			}
+			W oldWeight = storage.getWeight(trans);
+			W newWeight = combine(oldWeight, weight);
+			if (sameWeight(newWeight, oldWeight)) {
+				if (!added)
+					failedAdditions++;
+				return added;
+			}
+			storage.setWeight(trans, newWeight);
+			modificationCount++;
+			if (metrics != null)
+				recordUpdate(added);
+			Snapshot<WPAUpdateListener<N, D, W>> update = listeners.snapshot();
+			for (int i = 0; i < update.size(); i++) {
+				calls.add(new ListenerCall(trans, newWeight, update.get(i)));
+			}
+			for (WPAStateListener<N, D, W> l : stateListeners.anyLabel(trans.getStart())) {
+				calls.add(new ListenerCall(trans, newWeight, l, true));
+			}
+			for (WPAStateListener<N, D, W> l : stateListeners.labeled(trans.getStart(), trans.getLabel())) {
+				calls.add(new ListenerCall(trans, newWeight, l, true));
+			}
+			for (WPAStateListener<N, D, W> l : stateListeners.anyLabel(trans.getTarget())) {
+				calls.add(new ListenerCall(trans, newWeight, l, false));
+			}
+			for (WPAStateListener<N, D, W> l : stateListeners.labeled(trans.getTarget(), trans.getLabel())) {
+				calls.add(new ListenerCall(trans, newWeight, l, false));
+			}
+		}
+		dispatcher.submit(calls);
+		dispatcher.awaitQuiescence();
+		return true;
+	}
+
+	private void notifyWeightAdded(Transition<N, D> trans, W newWeight) {
+		// Listeners registered by a listener see the transition on registration, the snapshots exclude them.
+		Snapshot<WPAUpdateListener<N, D, W>> update = listeners.snapshot();
+		Snapshot<WPAStateListener<N, D, W>> outAny = stateListeners.anyLabel(trans.getStart());
+		Snapshot<WPAStateListener<N, D, W>> outLabeled = stateListeners.labeled(trans.getStart(), trans.getLabel());
+		Snapshot<WPAStateListener<N, D, W>> inAny = stateListeners.anyLabel(trans.getTarget());
+		Snapshot<WPAStateListener<N, D, W>> inLabeled = stateListeners.labeled(trans.getTarget(), trans.getLabel());
+		for (int i = 0; i < update.size(); i++) {
+			WPAUpdateListener<N, D, W> l = update.get(i);
+			invoked(l);
+			l.onWeightAdded(trans, newWeight, this);
+		}
+		for (int i = 0; i < outAny.size(); i++) {
+			WPAStateListener<N, D, W> l = outAny.get(i);
+			invoked(l);
+			l.onOutTransitionAdded(trans, newWeight, this);
+		}
+		for (int i = 0; i < outLabeled.size(); i++) {
+			WPAStateListener<N, D, W> l = outLabeled.get(i);
+			invoked(l);
+			l.onOutTransitionAdded(trans, newWeight, this);
+		}
+		for (int i = 0; i < inAny.size(); i++) {
+			WPAStateListener<N, D, W> l = inAny.get(i);
+			invoked(l);
+			l.onInTransitionAdded(trans, newWeight, this);
+		}
+		for (int i = 0; i < inLabeled.size(); i++) {
+			WPAStateListener<N, D, W> l = inLabeled.get(i);
+			invoked(l);
+			l.onInTransitionAdded(trans, newWeight, this);
+		}
+	}
+
+	/**
+	 * In iterative dispatch mode, listener notifications caused by new transitions, updated weights and
+	 * listener registrations are put on a work queue that is drained in a loop by the outermost call into
+	 * this automaton, instead of calling the listeners recursively. Both modes reach the same fixpoint, the
+	 * iterative one keeps the call stack flat during saturation. Nested automata created afterwards
+	 * inherit the mode.
+	 */
+	public void setIterativeDispatch(boolean iterativeDispatch) {
+		this.iterativeDispatch = iterativeDispatch;
+	}
+
+	public boolean isIterativeDispatch() {
+		return iterativeDispatch;
+	}
+
+	/**
+	 * In parallel dispatch mode, each listener call is run as a task on the given pool. The transitions,
+	 * weights and listener sets of an automaton are guarded by the automaton's lock, which is only held
+	 * while they are read or updated and never while a listener runs. Nested automata created afterwards
+	 * share the pool and form separate partitions with their own lock. A call from a thread outside the pool
+	 * returns once all listener calls it caused have completed, hence the same fixpoint as in the sequential
+	 * modes is reached. Reachability listeners are not supported in this mode. Passing <code>null</code>
+	 * switches back to sequential dispatch.
+	 */
+	public void setParallelDispatch(ForkJoinPool pool) {
+		dispatcher = pool == null ? null : new ParallelDispatcher(pool);
+	}
+
+	public boolean isParallelDispatch() {
+		return dispatcher != null;
+	}
+
+	/**
+	 * Stores only canonical weights from the given cache and combines weights through it, weight changes
+	 * are then detected by identity. Should be set before transitions are added, nested automata created
+	 * afterwards use the same cache.
+	 */
+	public void setWeightCache(WeightCache<W> weightCache) {
+		this.weightCache = weightCache;
+	}
+
+	public WeightCache<W> getWeightCache() {
+		return weightCache;
+	}
+
+	/**
+	 * Reachability listeners registered afterwards are served by a transitive closure over interned state ids
+	 * with one bitset per strongly connected component, see {@link ForwardDFSVisitor#useCompactClosure()}.
+	 * Nested automata created afterwards inherit the setting.
+	 */
+	public void setCompactReachability(boolean compactReachability) {
+		if (dfsVisitor != null || dfsEpsVisitor != null)
+			throw new IllegalStateException("Reachability listeners have already been registered.");
+		this.compactReachability = compactReachability;
+	}
+
+	public boolean isCompactReachability() {
+		return compactReachability;
+	}
+
+	/**
+	 * Records the saturation work on this automaton in <code>metrics</code>, <code>null</code> disables recording.
+	 * Nested automata created afterwards record into the same metrics.
+	 */
+	public void setMetrics(WPDSMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public WPDSMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * In parallel dispatch mode, the calling thread does not wait for the listener calls it causes until the
+	 * matching {@link #endBatch()}.
+	 */
+	void beginBatch() {
+		if (dispatcher != null)
+			dispatcher.beginBatch();
+	}
+
+	void endBatch() {
+		if (dispatcher != null)
+			dispatcher.endBatch();
+	}
+
+	/**
+	 * Switches the automaton to {@link PackedTransitionStorage}, which stores each transition as a packed
+	 * long key of interned state and label ids instead of as {@link Transition} objects in hash maps. This
+	 * trades lookup speed for a much smaller heap footprint per transition. Must be called before any
+	 * transition is added. Nested automata created afterwards use packed storage as well and share the ids
+	 * with this automaton, the shared {@link Interner}s are thread-safe for {@link #setParallelDispatch}.
+	 */
+	public void setPackedTransitionStorage(boolean packed) {
+		if (packed) {
+			usePackedTransitionStorage(new Interner<D>(), new Interner<N>());
+		} else {
+			checkNoTransitions();
+			storage = new HashTransitionStorage<>();
+		}
+	}
+
+	public boolean isPackedTransitionStorage() {
+		return storage instanceof PackedTransitionStorage;
+	}
+
+	private void usePackedTransitionStorage(Interner<D> stateIds, Interner<N> labelIds) {
+		checkNoTransitions();
+		storage = new PackedTransitionStorage<>(stateIds, labelIds);
+	}
+
+	private void checkNoTransitions() {
+		if (storage.size() > 0)
+			throw new IllegalStateException("The transition storage cannot be changed once transitions were added.");
+	}
+
+	private void queue(ListenerEvent e) {
+		events.add(e);
+	}
+
+	private void drain() {
+		if (dispatching)
+			return;
+		dispatching = true;
+		try {
+			ListenerEvent e;
+			while ((e = events.poll()) != null) {
+				e.run();
+			}
+		} finally {
+			dispatching = false;
+			events.clear();
+		}
+	}
+
+	private abstract class ListenerEvent implements Runnable {
+	}
+
+	private class WeightAddedEvent extends ListenerEvent {
+		private final Transition<N, D> trans;
+		private final W weight;
+
+		WeightAddedEvent(Transition<N, D> trans, W weight) {
+			this.trans = trans;
+			this.weight = weight;
+		}
+
+		@Override
+		public void run() {
+			notifyWeightAdded(trans, weight);
+		}
+	}
+
+	private class ReplayEvent extends ListenerEvent {
+		private final Transition<N, D> trans;
+		private final WPAStateListener<N, D, W> stateListener;
+		private final WPAUpdateListener<N, D, W> updateListener;
+
+		ReplayEvent(Transition<N, D> trans, WPAStateListener<N, D, W> stateListener,
+				WPAUpdateListener<N, D, W> updateListener) {
+			this.trans = trans;
+			this.stateListener = stateListener;
+			this.updateListener = updateListener;
+		}
+
+		@Override
+		public void run() {
+			W w = storage.getWeight(trans);
+			if (updateListener != null) {
+				invoked(updateListener);
+				updateListener.onWeightAdded(trans, w, WeightedPAutomaton.this);
+				return;
+			}
+			invoked(stateListener);
+			if (trans.getStart().equals(stateListener.getState()))
+				stateListener.onOutTransitionAdded(trans, w, WeightedPAutomaton.this);
+			if (trans.getTarget().equals(stateListener.getState()))
+				stateListener.onInTransitionAdded(trans, w, WeightedPAutomaton.this);
+		}
+	}
+
+	private class ListenerCall extends ListenerEvent {
+		private final Transition<N, D> trans;
+		private final W weight;
+		private final WPAStateListener<N, D, W> stateListener;
+		private final WPAUpdateListener<N, D, W> updateListener;
+		private final boolean out;
+
+		ListenerCall(Transition<N, D> trans, W weight, WPAUpdateListener<N, D, W> updateListener) {
+			this.trans = trans;
+			this.weight = weight;
+			this.stateListener = null;
+			this.updateListener = updateListener;
+			this.out = false;
+		}
+
+		ListenerCall(Transition<N, D> trans, W weight, WPAStateListener<N, D, W> stateListener, boolean out) {
+			this.trans = trans;
+			this.weight = weight;
+			this.stateListener = stateListener;
+			this.updateListener = null;
+			this.out = out;
+		}
+
+		@Override
+		public void run() {
+			invoked(updateListener != null ? updateListener : stateListener);
+			if (updateListener != null) {
+				updateListener.onWeightAdded(trans, weight, WeightedPAutomaton.this);
+			} else if (out) {
+				stateListener.onOutTransitionAdded(trans, weight, WeightedPAutomaton.this);
+			} else {
+				stateListener.onInTransitionAdded(trans, weight, WeightedPAutomaton.this);
+			}
+		}
+	}
+
 	public W getWeightFor(Transition<N, D> trans) {
-		return transitionToWeights.get(trans);
+		if (dispatcher != null) {
+			synchronized (this) {
+				return storage.getWeight(trans);
+			}
+		}
+		return storage.getWeight(trans);
+	}
+
+	/**
+	 * Returns the transitions leaving <code>state</code> with the given label. The list is a live view that
+	 * is only ever appended to, iterating it by index while adding transitions is safe.
+	 */
+	public List<Transition<N, D>> getTransitionsOutOf(D state, N label) {
+		if (transitionsOutOfByLabel == null) {
+			transitionsOutOfByLabel = HashBasedTable.create();
+			for (Transition<N, D> t : storage.getTransitions()) {
+				indexByLabel(t);
+			}
+		}
+		List<Transition<N, D>> res = transitionsOutOfByLabel.get(state, label);
+		if (res == null)
+			return Collections.emptyList();
+		return res;
+	}
+
+	/**
+	 * Returns the labels of all transitions leaving <code>state</code>.
+	 */
+	public Set<N> getLabelsOutOf(D state) {
+		if (dispatcher != null) {
+			synchronized (this) {
+				return labelsOutOf(state);
+			}
+		}
+		return labelsOutOf(state);
+	}
+
+	private Set<N> labelsOutOf(D state) {
+		Set<N> labels = Sets.newHashSet();
+		for (Transition<N, D> t : storage.getTransitionsOutOf(state)) {
+			labels.add(t.getLabel());
+		}
+		return labels;
+	}
+
+	private void indexByLabel(Transition<N, D> trans) {
+		List<Transition<N, D>> res = transitionsOutOfByLabel.get(trans.getStart(), trans.getLabel());
+		if (res == null) {
+			res = Lists.newArrayList();
+			transitionsOutOfByLabel.put(trans.getStart(), trans.getLabel(), res);
+		}
+		res.add(trans);
 	}
 
 	public void registerListener(WPAUpdateListener<N, D, W> listener) {
+		if (dispatcher != null) {
+			registerInParallel(listener);
+			return;
+		}
 		if (!listeners.add(listener))
 			return;
-		for (Entry<Transition<N, D>, W> transAndWeight : Lists.newArrayList(transitionToWeights.entrySet())) {
-			listener.onWeightAdded(transAndWeight.getKey(), transAndWeight.getValue(), this);
+		if (iterativeDispatch) {
+			for (Transition<N, D> t : storage.getTransitions()) {
+				queue(new ReplayEvent(t, null, listener));
+			}
+			drain();
+		} else {
+			for (Transition<N, D> t : Lists.newArrayList(storage.getTransitions())) {
+				invoked(listener);
+				listener.onWeightAdded(t, storage.getWeight(t), this);
+			}
 		}
-		for(WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)){
+		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons.snapshot()){
 			nested.registerListener(listener);
 		}
 	}
 
 	public void registerListener(WPAStateListener<N, D, W> l) {
-		if (!stateListeners.put(l.getState(), l)) {
+		if (dispatcher != null) {
+			registerInParallel(l);
 			return;
 		}
-		for (Transition<N, D> t : Lists.newArrayList(transitionsOutOf.get(l.getState()))) {
-			l.onOutTransitionAdded(t,transitionToWeights.get(t), this);
+		if (!stateListeners.add(l)) {
+			return;
 		}
-		for (Transition<N, D> t : Lists.newArrayList(transitionsInto.get(l.getState()))) {
-			l.onInTransitionAdded(t,transitionToWeights.get(t), this);
+		if (iterativeDispatch) {
+			for (Transition<N, D> t : storage.getTransitionsOutOf(l.getState())) {
+				if (StateListenerIndex.matches(l, t))
+					queue(new ReplayEvent(t, l, null));
+			}
+			for (Transition<N, D> t : storage.getTransitionsInto(l.getState())) {
+				if (!t.getStart().equals(l.getState()) && StateListenerIndex.matches(l, t))
+					queue(new ReplayEvent(t, l, null));
+			}
+			drain();
+		} else {
+			for (Transition<N, D> t : Lists.newArrayList(storage.getTransitionsOutOf(l.getState()))) {
+				if (StateListenerIndex.matches(l, t)) {
+					invoked(l);
+					l.onOutTransitionAdded(t,storage.getWeight(t), this);
+				}
+			}
+			for (Transition<N, D> t : Lists.newArrayList(storage.getTransitionsInto(l.getState()))) {
+				if (StateListenerIndex.matches(l, t)) {
+					invoked(l);
+					l.onInTransitionAdded(t,storage.getWeight(t), this);
+				}
+			}
 		}
 
-		for(WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)){
+		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons.snapshot()){
 			nested.registerListener(l);
 		}
 
 	}
 
+	private void registerInParallel(WPAUpdateListener<N, D, W> listener) {
+		List<ListenerEvent> calls = Lists.newArrayList();
+		Snapshot<WeightedPAutomaton<N, D, W>> nested;
+		synchronized (this) {
+			if (!listeners.add(listener))
+				return;
+			for (Transition<N, D> t : storage.getTransitions()) {
+				calls.add(new ListenerCall(t, storage.getWeight(t), listener));
+			}
+			nested = nestedAutomatons.snapshot();
+		}
+		dispatcher.submit(calls);
+		for (WeightedPAutomaton<N, D, W> n : nested) {
+			n.registerListener(listener);
+		}
+		dispatcher.awaitQuiescence();
+	}
+
+	private void registerInParallel(WPAStateListener<N, D, W> l) {
+		List<ListenerEvent> calls = Lists.newArrayList();
+		Snapshot<WeightedPAutomaton<N, D, W>> nested;
+		synchronized (this) {
+			if (!stateListeners.add(l))
+				return;
+			for (Transition<N, D> t : storage.getTransitionsOutOf(l.getState())) {
+				if (StateListenerIndex.matches(l, t))
+					calls.add(new ListenerCall(t, storage.getWeight(t), l, true));
+			}
+			for (Transition<N, D> t : storage.getTransitionsInto(l.getState())) {
+				if (StateListenerIndex.matches(l, t))
+					calls.add(new ListenerCall(t, storage.getWeight(t), l, false));
+			}
+			nested = nestedAutomatons.snapshot();
+		}
+		dispatcher.submit(calls);
+		for (WeightedPAutomaton<N, D, W> n : nested) {
+			n.registerListener(l);
+		}
+		dispatcher.awaitQuiescence();
+	}
+
 	public void addFinalState(D state) {
 		this.finalState.add(state);
 	}
 
 	public void registerDFSListener(D state, ReachabilityListener<N, D> l) {
+		checkSequentialDispatch();
 		stateToReachabilityListener.put(state,l);
 		if (dfsVisitor == null) {
 			dfsVisitor = new ForwardDFSVisitor<N, D, W>(this);
+			if (compactReachability)
+				dfsVisitor.useCompactClosure();
 			this.registerListener(dfsVisitor);
 		}
 		dfsVisitor.registerListener(state, l);
 	}
 
+	private void checkSequentialDispatch() {
+		if (dispatcher != null)
+			throw new IllegalStateException("Reachability listeners are not supported in parallel dispatch mode.");
+	}
+
 	protected Map<D, ForwardDFSVisitor<N, D, W>> getStateToDFS() {
 		return stateToDFS;
 	}
 
 	public void registerDFSEpsilonListener(D state, ReachabilityListener<N, D> l) {
+		checkSequentialDispatch();
 		stateToEpsilonReachabilityListener.put(state,l);
 		if (dfsEpsVisitor == null) {
 			dfsEpsVisitor = new ForwardDFSEpsilonVisitor<N, D, W>(this);
+			if (compactReachability)
+				dfsEpsVisitor.useCompactClosure();
 			this.registerListener(dfsEpsVisitor);
 		}
-		for(WeightedPAutomaton<N, D, W> nested : Lists.newLinkedList(nestedAutomatons)){
+		for(WeightedPAutomaton<N, D, W> nested : nestedAutomatons.snapshot()){
 			nested.registerDFSEpsilonListener(state, l);
 		}
 		dfsEpsVisitor.registerListener(state,l);
@@ -380,44 +962,70 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 				return "NESTED: \n" + super.toString();
 			}
 		};
+		nested.setIterativeDispatch(iterativeDispatch);
+		nested.dispatcher = dispatcher;
+		nested.weightCache = weightCache;
+		nested.compactReachability = compactReachability;
+		nested.metrics = metrics;
+		if (storage instanceof PackedTransitionStorage) {
+			PackedTransitionStorage<N, D, W> packed = (PackedTransitionStorage<N, D, W>) storage;
+			nested.usePackedTransitionStorage(packed.getStateIds(), packed.getLabelIds());
+		}
 		addNestedAutomaton(nested);
 		return nested;
 	}
 
 	public void reconnectPush(N callSite, N returnSite,D returnedFact,  W combinedWeight, W returnedWeight) {
 		WeightedPAutomaton<N, D, W>.ReturnSiteWithWeights returnSiteWithWeights = new ReturnSiteWithWeights(callSite, returnSite, returnedFact,combinedWeight, returnedWeight);
-		if(connectedPushes.add(returnSiteWithWeights )){
-			for(ConnectPushListener<N, D, W> l : Lists.newArrayList(conntectedPushListeners)){
-				l.connect(returnSiteWithWeights.callSite, returnSiteWithWeights.returnSite, returnSiteWithWeights.returnedFact, returnSiteWithWeights.returnedWeight);
-			}
+		List<ConnectPushListener<N, D, W>> ls;
+		synchronized (this) {
+			if (!connectedPushes.add(returnSiteWithWeights))
+				return;
+			ls = Lists.newArrayList(conntectedPushListeners);
+		}
+		for(ConnectPushListener<N, D, W> l : ls){
+			l.connect(returnSiteWithWeights.callSite, returnSiteWithWeights.returnSite, returnSiteWithWeights.returnedFact, returnSiteWithWeights.returnedWeight);
 		}
 	}
 	
 	public void registerConnectPushListener(ConnectPushListener<N, D, W> l){
-		if(conntectedPushListeners.add(l)){
-			for(WeightedPAutomaton<N, D, W>.ReturnSiteWithWeights e : Lists.newArrayList(connectedPushes)){
-				l.connect(e.callSite, e.returnSite, e.returnedFact,e.returnedWeight);
-			}
+		List<ReturnSiteWithWeights> pushes;
+		synchronized (this) {
+			if (!conntectedPushListeners.add(l))
+				return;
+			pushes = Lists.newArrayList(connectedPushes);
+		}
+		for(WeightedPAutomaton<N, D, W>.ReturnSiteWithWeights e : pushes){
+			l.connect(e.callSite, e.returnSite, e.returnedFact,e.returnedWeight);
 		}
 	}
 	public void registerUnbalancedPopListener(UnbalancedPopListener<N, D, W> l){
-		if(unbalancedPopListeners.add(l)){
-			for(Entry<UnbalancedPopEntry, W> e : Lists.newArrayList(unbalancedPops.entrySet())){
-				UnbalancedPopEntry t = e.getKey();
-				l.unbalancedPop(t.targetState,t.trans, e.getValue());
-			}
+		List<Entry<UnbalancedPopEntry, W>> pops;
+		synchronized (this) {
+			if (!unbalancedPopListeners.add(l))
+				return;
+			pops = Lists.newArrayList(unbalancedPops.entrySet());
+		}
+		for(Entry<UnbalancedPopEntry, W> e : pops){
+			UnbalancedPopEntry t = e.getKey();
+			l.unbalancedPop(t.targetState,t.trans, e.getValue());
 		}
 	}
 
 	public void unbalancedPop(D targetState, Transition<N,D> trans, W weight) {
 		UnbalancedPopEntry t = new UnbalancedPopEntry(targetState,trans);
-		W oldVal = unbalancedPops.get(t);
-		W newVal = (oldVal == null ? weight : (W) oldVal.combineWith(weight));
-		if(!newVal.equals(oldVal)){
+		W newVal;
+		List<UnbalancedPopListener<N, D, W>> ls;
+		synchronized (this) {
+			W oldVal = unbalancedPops.get(t);
+			newVal = (oldVal == null ? weight : (W) oldVal.combineWith(weight));
+			if (newVal.equals(oldVal))
+				return;
 			unbalancedPops.put(t, newVal);
-			for(UnbalancedPopListener<N, D, W> l : Lists.newArrayList(unbalancedPopListeners)){
-				l.unbalancedPop(targetState,trans, newVal);
-			}
+			ls = Lists.newArrayList(unbalancedPopListeners);
+		}
+		for(UnbalancedPopListener<N, D, W> l : ls){
+			l.unbalancedPop(targetState,trans, newVal);
 		}
 	}
 	
@@ -571,18 +1179,21 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 		@Override
 		public void onInTransitionAdded(Transition<N,D> t, W w, WeightedPAutomaton<N, D, W> aut) {
 			W newWeight = (W) weight.extendWith(w);
-			W weightAtTarget = transitionsToFinalWeights.get(t);
-			W newVal = (weightAtTarget == null ? newWeight : (W) weightAtTarget.combineWith(newWeight));
-			transitionsToFinalWeights.put(t, newVal);
+			W newVal;
+			synchronized (WeightedPAutomaton.this) {
+				W weightAtTarget = transitionsToFinalWeights.get(t);
+				newVal = (weightAtTarget == null ? newWeight : (W) weightAtTarget.combineWith(newWeight));
+				transitionsToFinalWeights.put(t, newVal);
+			}
 			if(isGeneratedState(t.getStart())){
 				registerListener(new ValueComputationListener(t.getStart(),newVal));
 			}
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((weight == null) ? 0 : weight.hashCode());
 			return result;
@@ -617,44 +1228,64 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 	}
 
 	public void addNestedAutomaton(WeightedPAutomaton<N, D, W> nested) {
-		if(!nestedAutomatons.add(nested))
-			return;
-		for(WPAStateListener<N, D, W> e : Lists.newArrayList(stateListeners.values())){
+		List<WPAStateListener<N, D, W>> stateLs;
+		Snapshot<WPAUpdateListener<N, D, W>> updateLs;
+		List<ConnectPushListener<N, D, W>> connectLs;
+		List<UnbalancedPopListener<N, D, W>> popLs;
+		List<Entry<D, ReachabilityListener<N, D>>> epsilonReachabilityLs;
+		List<Entry<D, ReachabilityListener<N, D>>> reachabilityLs;
+		List<NestedAutomatonListener<N, D, W>> nestedLs;
+		synchronized (this) {
+			if(!nestedAutomatons.add(nested))
+				return;
+			stateLs = stateListeners.values();
+			updateLs = listeners.snapshot();
+			connectLs = Lists.newArrayList(conntectedPushListeners);
+			popLs = Lists.newArrayList(unbalancedPopListeners);
+			epsilonReachabilityLs = Lists.newArrayList(stateToEpsilonReachabilityListener.entrySet());
+			reachabilityLs = Lists.newArrayList(stateToReachabilityListener.entrySet());
+			nestedLs = Lists.newArrayList(nestedAutomataListeners);
+		}
+		for(WPAStateListener<N, D, W> e : stateLs){
 			nested.registerListener(e);
 		}
-		for(WPAUpdateListener<N, D, W> e : Lists.newArrayList(listeners)){
+		for(WPAUpdateListener<N, D, W> e : updateLs){
 			nested.registerListener(e);
 		}
-		for(ConnectPushListener<N, D, W> e : Lists.newArrayList(conntectedPushListeners)){
+		for(ConnectPushListener<N, D, W> e : connectLs){
 			nested.registerConnectPushListener(e);
 		}
 
-		for(UnbalancedPopListener<N, D, W> e : Lists.newArrayList(unbalancedPopListeners)){
+		for(UnbalancedPopListener<N, D, W> e : popLs){
 			nested.registerUnbalancedPopListener(e);
 		}
 
-		for(Entry<D, ReachabilityListener<N, D>> e : Lists.newArrayList(stateToEpsilonReachabilityListener.entrySet())){
+		for(Entry<D, ReachabilityListener<N, D>> e : epsilonReachabilityLs){
 			nested.registerDFSEpsilonListener(e.getKey(), e.getValue());
 		}
-		for(Entry<D, ReachabilityListener<N, D>> e : Lists.newArrayList(stateToReachabilityListener.entrySet())){
+		for(Entry<D, ReachabilityListener<N, D>> e : reachabilityLs){
 			nested.registerDFSListener(e.getKey(), e.getValue());
 		}
-		for(Entry<D, ReachabilityListener<N, D>> e : Lists.newArrayList(stateToReachabilityListener.entrySet())){
+		for(Entry<D, ReachabilityListener<N, D>> e : reachabilityLs){
 			nested.registerDFSListener(e.getKey(), e.getValue());
 		}
 		
 
-		for(NestedAutomatonListener<N, D, W> e : Lists.newArrayList(nestedAutomataListeners)){
+		for(NestedAutomatonListener<N, D, W> e : nestedLs){
 			e.nestedAutomaton(this, nested);
 			nested.registerNestedAutomatonListener(e);
 		}
 	}
 
 	public void registerNestedAutomatonListener(NestedAutomatonListener<N, D, W> l){
-		if(!nestedAutomataListeners.add(l)){
-			return;
+		Snapshot<WeightedPAutomaton<N, D, W>> nestedAuts;
+		synchronized (this) {
+			if(!nestedAutomataListeners.add(l)){
+				return;
+			}
+			nestedAuts = nestedAutomatons.snapshot();
 		}
-		for(WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)){
+		for(WeightedPAutomaton<N, D, W> nested : nestedAuts){
 			l.nestedAutomaton(this, nested);
 		}
 	}
@@ -11,18 +11,22 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
+import wpds.interfaces.WPDSBatchUpdateListener;
 import wpds.interfaces.WPDSUpdateListener;
 import wpds.wildcard.Wildcard;
 
@@ -31,36 +35,132 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
 	protected final Set<PushRule<N, D, W>> pushRules = Sets.newHashSet();
 	protected final Set<PopRule<N, D, W>> popRules = Sets.newHashSet();
 	protected final Set<NormalRule<N, D, W>> normalRules = Sets.newHashSet();
-	protected final Set<WPDSUpdateListener<N, D, W>> listeners = Sets.newHashSet();
+	@SuppressWarnings("unchecked")
+	protected final CopyOnWriteSet<WPDSUpdateListener<N, D, W>> listeners = new CopyOnWriteSet<WPDSUpdateListener<N, D, W>>(
+			new WPDSUpdateListener[0]);
+	// Indexes over the rule sets, keyed by (state, label). Rules with a wildcard label are additionally kept per state.
+	private final Multimap<D, Rule<N, D, W>> rulesStartingAtState = HashMultimap.create();
+	private final Multimap<Configuration<N, D>, Rule<N, D, W>> rulesStarting = HashMultimap.create();
+	private final Multimap<D, Rule<N, D, W>> wildcardRulesStarting = HashMultimap.create();
+	private final Multimap<Configuration<N, D>, NormalRule<N, D, W>> normalRulesEnding = HashMultimap.create();
+	private final Multimap<D, NormalRule<N, D, W>> wildcardNormalRulesEnding = HashMultimap.create();
+	private final Multimap<Configuration<N, D>, PushRule<N, D, W>> pushRulesEnding = HashMultimap.create();
+
+	private WPDSMetrics metrics;
 
 	@Override
 	public boolean addRule(Rule<N, D, W> rule) {
+		if (metrics == null)
+			return addAndNotify(rule);
+		metrics.saturationStarted();
+		try {
+			return addAndNotify(rule);
+		} finally {
+			metrics.saturationFinished();
+		}
+	}
+
+	/**
+	 * Adds all <code>rules</code> and notifies the listeners afterwards about the new ones, a
+	 * {@link WPDSBatchUpdateListener} is notified once about all of them. Returns whether any rule was new.
+	 */
+	public boolean addRules(Collection<? extends Rule<N, D, W>> rules) {
+		if (metrics == null)
+			return addAllAndNotify(rules);
+		metrics.saturationStarted();
+		try {
+			return addAllAndNotify(rules);
+		} finally {
+			metrics.saturationFinished();
+		}
+	}
+
+	private boolean addAllAndNotify(Collection<? extends Rule<N, D, W>> rules) {
+		List<Rule<N, D, W>> added = Lists.newArrayList();
+		for (Rule<N, D, W> rule : rules) {
+			if (addRuleInternal(rule)) {
+				if (metrics != null)
+					metrics.ruleAdded(rule);
+				added.add(rule);
+			}
+		}
+		if (added.isEmpty())
+			return false;
+		CopyOnWriteSet.Snapshot<WPDSUpdateListener<N, D, W>> ls = listeners.snapshot();
+		for (int i = 0; i < ls.size(); i++) {
+			notify(ls.get(i), added);
+		}
+		return true;
+	}
+
+	private void notify(WPDSUpdateListener<N, D, W> l, Collection<Rule<N, D, W>> rules) {
+		if (l instanceof WPDSBatchUpdateListener) {
+			((WPDSBatchUpdateListener<N, D, W>) l).onRulesAdded(rules);
+			return;
+		}
+		for (Rule<N, D, W> rule : rules) {
+			l.onRuleAdded(rule);
+		}
+	}
+
+	private boolean addAndNotify(Rule<N, D, W> rule) {
 		if (addRuleInternal(rule)) {
-			for (WPDSUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-				l.onRuleAdded(rule);
+			if (metrics != null)
+				metrics.ruleAdded(rule);
+			CopyOnWriteSet.Snapshot<WPDSUpdateListener<N, D, W>> ls = listeners.snapshot();
+			for (int i = 0; i < ls.size(); i++) {
+				ls.get(i).onRuleAdded(rule);
 			}
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Records added rules and the saturation time of rule additions in <code>metrics</code>, <code>null</code>
+	 * disables recording.
+	 */
+	public void setMetrics(WPDSMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public WPDSMetrics getMetrics() {
+		return metrics;
+	}
+
 	private boolean addRuleInternal(Rule<N, D, W> rule) {
-		if (rule instanceof PushRule)
-			return pushRules.add((PushRule) rule);
-		else if (rule instanceof PopRule)
-			return popRules.add((PopRule) rule);
-		else if (rule instanceof NormalRule)
-			return normalRules.add((NormalRule) rule);
-		throw new RuntimeException("Try to add a rule of wrong type");
+		boolean added;
+		if (rule instanceof PushRule) {
+			added = pushRules.add((PushRule) rule);
+			if (added)
+				pushRulesEnding.put(rule.getTargetConfig(), (PushRule) rule);
+		} else if (rule instanceof PopRule) {
+			added = popRules.add((PopRule) rule);
+		} else if (rule instanceof NormalRule) {
+			added = normalRules.add((NormalRule) rule);
+			if (added) {
+				normalRulesEnding.put(rule.getTargetConfig(), (NormalRule) rule);
+				if (rule.getL2() instanceof Wildcard)
+					wildcardNormalRulesEnding.put(rule.getS2(), (NormalRule) rule);
+			}
+		} else {
+			throw new RuntimeException("Try to add a rule of wrong type");
+		}
+		if (added) {
+			rulesStartingAtState.put(rule.getS1(), rule);
+			if (rule.getL1() instanceof Wildcard)
+				wildcardRulesStarting.put(rule.getS1(), rule);
+			else
+				rulesStarting.put(rule.getStartConfig(), rule);
+		}
+		return added;
 	}
 
 	public void registerUpdateListener(WPDSUpdateListener<N, D, W> listener) {
 		if (!listeners.add(listener)) {
 			return;
 		}
-		for (Rule<N, D, W> r : getAllRules()) {
-			listener.onRuleAdded(r);
-		}
+		notify(listener, getAllRules());
 	}
 
 	@Override
@@ -89,44 +189,29 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
 
 	@Override
 	public Set<Rule<N, D, W>> getRulesStarting(D start, N string) {
-		Set<Rule<N, D, W>> result = new HashSet<>();
-		getRulesStartingWithinSet(start, string, popRules, result);
-		getRulesStartingWithinSet(start, string, normalRules, result);
-		getRulesStartingWithinSet(start, string, pushRules, result);
+		if (string instanceof Wildcard)
+			return Sets.newHashSet(rulesStartingAtState.get(start));
+		Set<Rule<N, D, W>> result = new HashSet<>(rulesStarting.get(new Configuration<N, D>(string, start)));
+		result.addAll(wildcardRulesStarting.get(start));
 		return result;
 	}
 
-	private void getRulesStartingWithinSet(D start, N string, Set<? extends Rule<N, D, W>> rules,
-			Set<Rule<N, D, W>> res) {
-		for (Rule<N, D, W> r : rules) {
-			if (r.getS1().equals(start) && (r.getL1().equals(string) || r.getL1() instanceof Wildcard))
-				res.add(r);
-			if (string instanceof Wildcard && r.getS1().equals(start)) {
-				res.add(r);
-			}
-		}
-	}
-
 	@Override
 	public Set<NormalRule<N, D, W>> getNormalRulesEnding(D start, N string) {
-		Set<NormalRule<N, D, W>> allRules = getNormalRules();
-		Set<NormalRule<N, D, W>> result = new HashSet<>();
-		for (NormalRule<N, D, W> r : allRules) {
-			if (r.getS2().equals(start) && r.getL2().equals(string))
-				result.add(r);
-		}
-		return result;
+		return Sets.newHashSet(normalRulesEnding.get(new Configuration<N, D>(string, start)));
 	}
 
 	@Override
 	public Set<PushRule<N, D, W>> getPushRulesEnding(D start, N string) {
-		Set<PushRule<N, D, W>> allRules = getPushRules();
-		Set<PushRule<N, D, W>> result = new HashSet<>();
-		for (PushRule<N, D, W> r : allRules) {
-			if (r.getS2().equals(start) && r.getL2().equals(string))
-				result.add(r);
-		}
-		return result;
+		return Sets.newHashSet(pushRulesEnding.get(new Configuration<N, D>(string, start)));
+	}
+
+	protected Collection<Rule<N, D, W>> getWildcardRulesStarting(D start) {
+		return wildcardRulesStarting.get(start);
+	}
+
+	protected Collection<NormalRule<N, D, W>> getWildcardNormalRulesEnding(D start) {
+		return wildcardNormalRulesEnding.get(start);
 	}
 
 	@Override
@@ -153,6 +238,12 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
 			public WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target) {
 				return summaries.getSummaryAutomaton(target);
 			};
+
+			@Override
+			protected void summaryCreated(Configuration<N, D> entry, WeightedPAutomaton<N, D, W> aut) {
+				if (summaries instanceof SharedSummaries)
+					((SharedSummaries<N, D, W>) summaries).summaryCreated(entry, aut);
+			}
 		}.poststar(this, initialAutomaton);
 	}
 
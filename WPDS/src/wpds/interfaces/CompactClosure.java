@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.interfaces;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import wpds.impl.Interner;
+
+/**
+ * Maintains the transitive closure of a growing graph over interned state ids. Strongly connected components are
+ * collapsed by union-find, all states of a component share one bitset of the states reachable from the
+ * component and one bitset of the states that reach it. Only pairs (from, to) where <code>from</code> is
+ * observed are reported, and each such pair is reported once.
+ */
+class CompactClosure<D> {
+
+	interface Listener<D> {
+		void reachable(D from, D to);
+	}
+
+	private final Listener<D> listener;
+	private final Interner<D> ids = new Interner<>();
+	private int[] parent = new int[16];
+	private final List<BitSet> succ = new ArrayList<>();
+	private final List<BitSet> pred = new ArrayList<>();
+	private final List<BitSet> members = new ArrayList<>();
+	private final BitSet observed = new BitSet();
+
+	CompactClosure(Listener<D> listener) {
+		this.listener = listener;
+	}
+
+	private int id(D d) {
+		int size = ids.size();
+		int id = ids.intern(d);
+		if (id == size) {
+			if (id == parent.length) {
+				int[] grown = new int[parent.length * 2];
+				System.arraycopy(parent, 0, grown, 0, parent.length);
+				parent = grown;
+			}
+			parent[id] = id;
+			succ.add(new BitSet());
+			pred.add(new BitSet());
+			BitSet component = new BitSet();
+			component.set(id);
+			members.add(component);
+		}
+		return id;
+	}
+
+	private int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Marks <code>state</code> as observed and returns the states reachable from it so far.
+	 */
+	List<D> observe(D state) {
+		int x = id(state);
+		observed.set(x);
+		List<D> res = Lists.newArrayList();
+		BitSet reachable = succ.get(find(x));
+		for (int t = reachable.nextSetBit(0); t >= 0; t = reachable.nextSetBit(t + 1))
+			res.add(ids.get(t));
+		return res;
+	}
+
+	void addReflexive(D state) {
+		int x = id(state);
+		int rx = find(x);
+		if (succ.get(rx).get(x))
+			return;
+		succ.get(rx).set(x);
+		pred.get(rx).set(x);
+		if (observed.get(x))
+			listener.reachable(state, state);
+	}
+
+	void addEdge(D from, D to) {
+		int x = id(from);
+		int y = id(to);
+		int rx = find(x);
+		if (succ.get(rx).get(y))
+			return;
+		BitSet targets = (BitSet) succ.get(find(y)).clone();
+		targets.set(y);
+		BitSet sources = (BitSet) pred.get(rx).clone();
+		sources.set(x);
+
+		List<int[]> reached = Lists.newArrayList();
+		BitSet done = new BitSet();
+		for (int s = sources.nextSetBit(0); s >= 0; s = sources.nextSetBit(s + 1)) {
+			int rs = find(s);
+			if (done.get(rs))
+				continue;
+			done.set(rs);
+			BitSet fresh = (BitSet) targets.clone();
+			fresh.andNot(succ.get(rs));
+			if (fresh.isEmpty())
+				continue;
+			succ.get(rs).or(fresh);
+			BitSet notified = (BitSet) members.get(rs).clone();
+			notified.and(observed);
+			for (int m = notified.nextSetBit(0); m >= 0; m = notified.nextSetBit(m + 1)) {
+				for (int t = fresh.nextSetBit(0); t >= 0; t = fresh.nextSetBit(t + 1))
+					reached.add(new int[] { m, t });
+			}
+		}
+		done.clear();
+		for (int t = targets.nextSetBit(0); t >= 0; t = targets.nextSetBit(t + 1)) {
+			int rt = find(t);
+			if (done.get(rt))
+				continue;
+			done.set(rt);
+			pred.get(rt).or(sources);
+		}
+		if (targets.get(x))
+			collapse(rx, sources);
+
+		for (int[] pair : reached)
+			listener.reachable(ids.get(pair[0]), ids.get(pair[1]));
+	}
+
+	/**
+	 * Merges all components on a cycle through the component <code>rx</code>, these are the components reachable
+	 * from and reaching <code>rx</code>.
+	 */
+	private void collapse(int rx, BitSet sources) {
+		BitSet cycle = (BitSet) sources.clone();
+		cycle.and(succ.get(rx));
+		for (int m = cycle.nextSetBit(0); m >= 0; m = cycle.nextSetBit(m + 1)) {
+			int rm = find(m);
+			if (rm == rx)
+				continue;
+			parent[rm] = rx;
+			succ.get(rx).or(succ.get(rm));
+			pred.get(rx).or(pred.get(rm));
+			members.get(rx).or(members.get(rm));
+			succ.set(rm, null);
+			pred.set(rm, null);
+			members.set(rm, null);
+		}
+	}
+
+	/**
+	 * The number of strongly connected components.
+	 */
+	int components() {
+		int count = 0;
+		for (int i = 0; i < ids.size(); i++) {
+			if (parent[i] == i)
+				count++;
+		}
+		return count;
+	}
+}
@@ -32,11 +32,39 @@ public class ForwardDFSVisitor<N extends Location,D extends State, W extends Wei
 	private Multimap<D, D> reaches = HashMultimap.create();
 	private Multimap<D, D> inverseReaches = HashMultimap.create();
 	private Table<D,D,Integer> refCount = HashBasedTable.create();
+	private CompactClosure<D> compactClosure;
 	
 	public ForwardDFSVisitor(WeightedPAutomaton<N,D,W> aut){
 		this.aut = aut;
 	}
+
+	/**
+	 * Switches to a closure over interned state ids with collapsed strongly connected components and one bitset
+	 * per component instead of the maps of all reachable pairs. Must be called before the first transition or
+	 * listener is seen.
+	 */
+	public void useCompactClosure() {
+		if (!listeners.isEmpty() || !inverseReaches.isEmpty())
+			throw new IllegalStateException("The closure can only be replaced before it is populated.");
+		compactClosure = new CompactClosure<>(new CompactClosure.Listener<D>() {
+			@Override
+			public void reachable(D from, D to) {
+				for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners.get(from))) {
+					aut.registerListener(new TransitiveClosure(to, from, l));
+				}
+			}
+		});
+	}
+
 	public void registerListener(D state, final ReachabilityListener<N, D> l) {
+		if (compactClosure != null) {
+			if (listeners.put(state, l)) {
+				for (D d : compactClosure.observe(state)) {
+					aut.registerListener(new TransitiveClosure(d, state, l));
+				}
+			}
+			return;
+		}
 		if(listeners.put(state, l)){
 			for(D d : Lists.newArrayList(inverseReaches.get(state))){
 				aut.registerListener(new TransitiveClosure(d,state, l));
@@ -65,9 +93,9 @@ public class ForwardDFSVisitor<N extends Location,D extends State, W extends Wei
 
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((listener == null) ? 0 : listener.hashCode());
 			result = prime * result + ((s == null) ? 0 : s.hashCode());
@@ -114,6 +142,12 @@ public class ForwardDFSVisitor<N extends Location,D extends State, W extends Wei
 
 		D a = t.getStart();
 		D b = t.getTarget();
+		if (compactClosure != null) {
+			compactClosure.addReflexive(a);
+			if (continueWith(t))
+				compactClosure.addEdge(a, b);
+			return;
+		}
 		inverseReaches(a,a);
 //		inverseReaches(b,b);
 		if(!continueWith(t))
@@ -14,13 +14,27 @@ package wpds.interfaces;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
+import wpds.wildcard.Wildcard;
 
 public abstract class WPAStateListener<N extends Location, D extends State, W extends Weight>{
 	
 
 	protected final D state;
+	protected final N label;
+	private int hash;
 	public WPAStateListener(D state) {
+		this(state, null);
+	}
+
+	/**
+	 * A listener that is only notified about transitions labeled <code>label</code> out of and into
+	 * <code>state</code>. The automaton indexes such listeners by state and label, other transitions of the state
+	 * are not dispatched to them. A <code>null</code> or {@link wpds.wildcard.Wildcard} label matches all
+	 * transitions.
+	 */
+	public WPAStateListener(D state, N label) {
 		this.state = state;
+		this.label = label instanceof Wildcard ? null : label;
 	}
 
 	public abstract void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> weightedPAutomaton);
@@ -29,14 +43,39 @@ public abstract class WPAStateListener<N extends Location, D extends State, W ex
 	public D getState(){
 		return state;
 	}
+
+	/**
+	 * The label of the transitions this listener is notified about, <code>null</code> for all labels.
+	 */
+	public N getLabel(){
+		return label;
+	}
 	
+	/**
+	 * The hash code is computed once by {@link #computeHashCode()} and cached, listeners must therefore not change
+	 * the fields their hash code is computed of. Automata deduplicate registrations by hash code and equality,
+	 * {@link #equals(Object)} rejects listeners with different hash codes without comparing fields.
+	 */
 	@Override
-	public int hashCode() {
+	public final int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = computeHashCode();
+			if (h == 0)
+				h = 1;
+			hash = h;
+		}
+		return h;
+	}
+
+	protected int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((state == null) ? 0 : state.hashCode());
+		result = prime * result + ((label == null) ? 0 : label.hashCode());
 		return result;
 	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -46,11 +85,18 @@ public abstract class WPAStateListener<N extends Location, D extends State, W ex
 		if (getClass() != obj.getClass())
 			return false;
 		WPAStateListener other = (WPAStateListener) obj;
+		if (hashCode() != other.hashCode())
+			return false;
 		if (state == null) {
 			if (other.state != null)
 				return false;
 		} else if (!state.equals(other.state))
 			return false;
+		if (label == null) {
+			if (other.label != null)
+				return false;
+		} else if (!label.equals(other.label))
+			return false;
 		return true;
 	}
 
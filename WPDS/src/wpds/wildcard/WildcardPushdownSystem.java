@@ -32,12 +32,9 @@ public abstract class WildcardPushdownSystem<N extends Location, D extends State
   @Override
   public Set<Rule<N, D, NoWeight>> getRulesStarting(D start, N string) {
     assert !string.equals(anyTransition());
-    Set<Rule<N, D, NoWeight>> allRules = getAllRules();
     Set<Rule<N, D, NoWeight>> result = new HashSet<>();
-    for (Rule<N, D, NoWeight> r : allRules) {
-      if (r.getS1().equals(start) && r.getL1().equals(string))
-        result.add(r);
-      if (anyTransition() != null && r.getS1().equals(start) && r.getL1().equals(anyTransition())) {
+    for (Rule<N, D, NoWeight> r : getWildcardRulesStarting(start)) {
+      if (anyTransition() != null && r.getL1().equals(anyTransition())) {
         if (r instanceof NormalRule) {
           result.add(new UNormalRule<N, D>(r.getS1(), string, r.getS2(), string));
         } else if (r instanceof PopRule) {
@@ -47,6 +44,10 @@ public abstract class WildcardPushdownSystem<N extends Location, D extends State
         }
       }
     }
+    for (Rule<N, D, NoWeight> r : super.getRulesStarting(start, string)) {
+      if (r.getL1().equals(string))
+        result.add(r);
+    }
     return result;
   }
 
@@ -54,30 +55,15 @@ public abstract class WildcardPushdownSystem<N extends Location, D extends State
   @Override
   public Set<NormalRule<N, D, NoWeight>> getNormalRulesEnding(D start, N string) {
     assert !string.equals(anyTransition());
-    Set<NormalRule<N, D, NoWeight>> allRules = getNormalRules();
-    Set<NormalRule<N, D, NoWeight>> result = new HashSet<>();
-    for (NormalRule<N, D, NoWeight> r : allRules) {
-      if (r.getS2().equals(start) && r.getL2().equals(string))
-        result.add(r);
-      if (r.getS2().equals(start) && r.getL2().equals(anyTransition())) {
+    Set<NormalRule<N, D, NoWeight>> result = super.getNormalRulesEnding(start, string);
+    for (NormalRule<N, D, NoWeight> r : getWildcardNormalRulesEnding(start)) {
+      if (r.getL2().equals(anyTransition())) {
         result.add(new UNormalRule<N, D>(r.getS1(), string, r.getS2(), string));
       }
     }
     return result;
   }
 
-  @Override
-  public Set<PushRule<N, D, NoWeight>> getPushRulesEnding(D start, N string) {
-    assert !string.equals(anyTransition());
-    Set<PushRule<N, D, NoWeight>> allRules = getPushRules();
-    Set<PushRule<N, D, NoWeight>> result = new HashSet<>();
-    for (PushRule<N, D, NoWeight> r : allRules) {
-      if (r.getS2().equals(start) && r.getL2().equals(string))
-        result.add(r);
-    }
-    return result;
-  }
-
   public abstract Wildcard anyTransition();
 
 }
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.WPDSBatchUpdateListener;
+
+public class BatchRuleTests {
+
+	@Test
+	public void sameFixpointAsSingleRules() {
+		assertEquals(saturate(false), saturate(true));
+	}
+
+	@Test
+	public void batchListenerNotifiedOnce() {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+		final List<Collection<Rule<StackSymbol, Abstraction, NumWeight>>> batches = Lists.newArrayList();
+		pds.registerUpdateListener(new WPDSBatchUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+			@Override
+			public void onRuleAdded(Rule<StackSymbol, Abstraction, NumWeight> rule) {
+				throw new AssertionError("Batch listener notified about a single rule");
+			}
+
+			@Override
+			public void onRulesAdded(Collection<Rule<StackSymbol, Abstraction, NumWeight>> rules) {
+				batches.add(rules);
+			}
+		});
+		assertEquals(1, batches.size());
+		List<Rule<StackSymbol, Abstraction, NumWeight>> rules = Lists.newArrayList();
+		rules.add(wnormal(1, "a", 1, "b", w(1)));
+		rules.add(wnormal(1, "b", 1, "c", w(2)));
+		rules.add(wpop(1, "c", 2, w(3)));
+		assertTrue(pds.addRules(rules));
+		assertEquals(2, batches.size());
+		// The first rule was already known.
+		assertEquals(2, batches.get(1).size());
+		assertFalse(pds.addRules(rules));
+		assertEquals(2, batches.size());
+	}
+
+	private Map<Transition<StackSymbol, Abstraction>, NumWeight> saturate(boolean batch) {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+		pds.poststar(fa);
+		List<Rule<StackSymbol, Abstraction, NumWeight>> rules = Lists.newArrayList();
+		rules.add(wnormal(1, "a", 1, "b", w(1)));
+		rules.add(wnormal(1, "a", 1, "x", w(8)));
+		rules.add(wpush(1, "b", 2, "call", "d", w(2)));
+		rules.add(wpush(1, "b", 2, "call", "k", w(9)));
+		rules.add(wnormal(2, "call", 2, "e", w(3)));
+		rules.add(wpop(2, "e", 3, w(4)));
+		rules.add(wnormal(3, "d", 1, "f", w(5)));
+		rules.add(wnormal(3, "k", 1, "f", w(1)));
+		rules.add(wpush(1, "f", 2, "call", "g", w(6)));
+		rules.add(wnormal(3, "g", 4, "h", w(7)));
+		if (batch) {
+			pds.addRules(rules);
+		} else {
+			for (Rule<StackSymbol, Abstraction, NumWeight> r : rules) {
+				pds.addRule(r);
+			}
+		}
+		Map<Transition<StackSymbol, Abstraction>, NumWeight> res = Maps.newHashMap();
+		for (Transition<StackSymbol, Abstraction> t : fa.getTransitions()) {
+			res.put(t, fa.getWeightFor(t));
+		}
+		return res;
+	}
+
+	private static NumWeight w(int i) {
+		return new NumWeight(i);
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.Transition;
+import wpds.interfaces.ReachabilityListener;
+
+public class CompactReachabilityTests {
+
+	@Test
+	public void cycle() {
+		PAutomaton<StackSymbol, Abstraction> fa = automaton(true);
+		Set<Transition<StackSymbol, Abstraction>> reachable = listen(fa, 1);
+		fa.addTransition(t(1, "n", 2));
+		fa.addTransition(t(2, "n", 3));
+		fa.addTransition(t(4, "n", 5));
+		assertEquals(2, reachable.size());
+		fa.addTransition(t(3, "n", 1));
+		fa.addTransition(t(3, "n", 4));
+		assertEquals(5, reachable.size());
+		Set<Transition<StackSymbol, Abstraction>> fromFour = listen(fa, 4);
+		assertEquals(1, fromFour.size());
+		fa.addTransition(t(5, "n", 2));
+		assertEquals(6, fromFour.size());
+		assertEquals(6, reachable.size());
+	}
+
+	@Test
+	public void sameAsHashClosure() {
+		Random rand = new Random(1);
+		for (int run = 0; run < 20; run++) {
+			long seed = rand.nextLong();
+			assertEquals(reachables(false, seed), reachables(true, seed));
+		}
+	}
+
+	private List<Set<Transition<StackSymbol, Abstraction>>> reachables(boolean compact, long seed) {
+		Random rand = new Random(seed);
+		PAutomaton<StackSymbol, Abstraction> fa = automaton(compact);
+		List<Set<Transition<StackSymbol, Abstraction>>> res = Lists.newArrayList();
+		for (int i = 0; i < 200; i++) {
+			if (i % 20 == 0)
+				res.add(listen(fa, rand.nextInt(30)));
+			String label = rand.nextInt(4) == 0 ? "EPS" : "n" + rand.nextInt(3);
+			fa.addTransition(t(rand.nextInt(30), label, rand.nextInt(30)));
+		}
+		return res;
+	}
+
+	private Set<Transition<StackSymbol, Abstraction>> listen(PAutomaton<StackSymbol, Abstraction> fa, int state) {
+		final Set<Transition<StackSymbol, Abstraction>> reachable = Sets.newHashSet();
+		fa.registerDFSListener(a(state), new ReachabilityListener<StackSymbol, Abstraction>() {
+			@Override
+			public void reachable(Transition<StackSymbol, Abstraction> t) {
+				reachable.add(t);
+			}
+		});
+		return reachable;
+	}
+
+	private PAutomaton<StackSymbol, Abstraction> automaton(boolean compact) {
+		PAutomaton<StackSymbol, Abstraction> fa = new PAutomaton<StackSymbol, Abstraction>(a(0)) {
+			@Override
+			public Abstraction createState(Abstraction d, StackSymbol loc) {
+				return new Abstraction(d, loc);
+			}
+
+			@Override
+			public StackSymbol epsilon() {
+				return s("EPS");
+			}
+
+			@Override
+			public boolean isGeneratedState(Abstraction d) {
+				return d.s != null;
+			}
+		};
+		fa.setCompactReachability(compact);
+		return fa;
+	}
+}
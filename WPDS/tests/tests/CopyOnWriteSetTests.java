@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import wpds.impl.CopyOnWriteSet;
+import wpds.impl.CopyOnWriteSet.Snapshot;
+
+public class CopyOnWriteSetTests {
+
+	@Test
+	public void insertionOrderWithoutDuplicates() {
+		CopyOnWriteSet<Integer> set = new CopyOnWriteSet<>(new Integer[0]);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(set.add(i));
+			assertFalse(set.add(i / 2));
+		}
+		assertEquals(100, set.size());
+		Snapshot<Integer> snapshot = set.snapshot();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(Integer.valueOf(i), snapshot.get(i));
+			assertTrue(set.contains(i));
+		}
+		assertFalse(set.contains(100));
+	}
+
+	@Test
+	public void snapshotExcludesLaterAdditions() {
+		CopyOnWriteSet<Integer> set = new CopyOnWriteSet<>(new Integer[0]);
+		set.add(1);
+		set.add(2);
+		Snapshot<Integer> snapshot = set.snapshot();
+		set.add(3);
+		assertEquals(2, snapshot.size());
+		int visited = 0;
+		for (Integer i : snapshot) {
+			visited += i;
+		}
+		assertEquals(3, visited);
+		assertEquals(3, set.snapshot().size());
+	}
+}
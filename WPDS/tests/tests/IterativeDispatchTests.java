@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+public class IterativeDispatchTests {
+
+	@Test
+	public void sameFixpointAsRecursiveDispatch() {
+		assertEquals(twoCall(false), twoCall(true));
+	}
+
+	@Test
+	public void deepChain() {
+		PushdownSystem<StackSymbol, Abstraction> pds = new PushdownSystem<StackSymbol, Abstraction>() {
+		};
+		// Chain states start above ACC, each step adds one transition from within
+		// the listener of the previous one.
+		int first = 1000;
+		int length = 50000;
+		for (int i = first; i < first + length; i++) {
+			pds.addRule(normal(i, "n", i + 1, "n"));
+		}
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(first, "n");
+		fa.setIterativeDispatch(true);
+		pds.poststar(fa);
+		assertTrue(fa.getTransitions().contains(t(first + length, "n", ACC)));
+	}
+
+	private Map<Transition<StackSymbol, Abstraction>, NumWeight> twoCall(boolean iterative) {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+		pds.addRule(wpush(1, "b", 2, "call", "d", w(2)));
+		pds.addRule(wnormal(2, "call", 2, "e", w(3)));
+		pds.addRule(wpop(2, "e", 3, w(4)));
+		pds.addRule(wnormal(3, "d", 1, "f", w(5)));
+		pds.addRule(wpush(1, "f", 2, "call", "g", w(6)));
+		pds.addRule(wnormal(3, "g", 4, "h", w(7)));
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+		fa.setIterativeDispatch(iterative);
+		pds.poststar(fa);
+		Map<Transition<StackSymbol, Abstraction>, NumWeight> res = Maps.newHashMap();
+		for (Transition<StackSymbol, Abstraction> t : fa.getTransitions()) {
+			res.put(t, fa.getWeightFor(t));
+		}
+		return res;
+	}
+
+	private static NumWeight w(int i) {
+		return new NumWeight(i);
+	}
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.t;
+
+import org.junit.Test;
+
+import pathexpression.IRegEx;
+import pathexpression.RegEx;
+import pathexpression.RegExFactory;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+
+public class LanguageExtractionTests {
+
+	@Test
+	public void expressionsAreShared() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.addTransition(t(2, "b", 1));
+		IRegEx<StackSymbol> language = fa.extractLanguage(a(2));
+		assertTrue(language instanceof RegExFactory.Concatenate);
+		assertSame(language, fa.extractLanguage(a(2), ACC));
+	}
+
+	@Test
+	public void unionOfFinalStates() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.addTransition(t(1, "b", 2));
+		fa.addFinalState(a(2));
+		IRegEx<StackSymbol> language = fa.extractLanguage(a(1));
+		assertTrue(language instanceof RegExFactory.Union);
+		RegExFactory.Union<StackSymbol> union = (RegExFactory.Union<StackSymbol>) language;
+		assertEquals(2, union.getOperands().size());
+		assertTrue(union.getOperands().contains(fa.extractLanguage(a(1), ACC)));
+		assertTrue(union.getOperands().contains(fa.extractLanguage(a(1), a(2))));
+	}
+
+	@Test
+	public void recomputedWhenTransitionAdded() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.addTransition(t(2, "b", 1));
+		fa.addTransition(t(3, "c", 4));
+		assertTrue(fa.extractLanguage(a(3)) instanceof RegEx.EmptySet);
+		fa.addTransition(t(4, "d", 2));
+		IRegEx<StackSymbol> language = fa.extractLanguage(a(3));
+		assertTrue(language instanceof RegExFactory.Concatenate);
+		assertEquals(4, ((RegExFactory.Concatenate<StackSymbol>) language).getOperands().size());
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.t;
+import static tests.TestHelper.wautomaton;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.CsvMetricsSink;
+import wpds.impl.JmxMetricsSink;
+import wpds.impl.NormalRule;
+import wpds.impl.PopRule;
+import wpds.impl.PushRule;
+import wpds.impl.WPDSMetrics;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+public class MetricsTests {
+
+	@Test
+	public void countsSaturation() {
+		WPDSMetrics metrics = new WPDSMetrics("twoCall");
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = twoCall(metrics);
+		assertEquals(fa.getTransitions().size(), metrics.getTransitionsAdded());
+		assertTrue(metrics.getWeightUpdates() >= metrics.getTransitionsAdded());
+		assertEquals(4L, (long) metrics.getRuleAdditions().get(NormalRule.class.getName()));
+		assertEquals(2L, (long) metrics.getRuleAdditions().get(PushRule.class.getName()));
+		assertEquals(1L, (long) metrics.getRuleAdditions().get(PopRule.class.getName()));
+		assertTrue(metrics.getExtends().get(NumWeight.class.getName()) > 0);
+		assertTrue(!metrics.getListenerInvocations().isEmpty());
+	}
+
+	@Test
+	public void csvDump() throws Exception {
+		File file = File.createTempFile("metrics", ".csv");
+		file.deleteOnExit();
+		WPDSMetrics metrics = new WPDSMetrics("twoCall");
+		CsvMetricsSink sink = new CsvMetricsSink(file, 0, TimeUnit.SECONDS);
+		sink.register(metrics);
+		twoCall(metrics);
+		sink.close();
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals("timestamp,name,metric,value", lines.get(0));
+		assertEquals(metrics.snapshot().size() + 1, lines.size());
+		boolean found = false;
+		for (String line : lines) {
+			found |= line.endsWith(",twoCall,rule." + PushRule.class.getName() + ",2");
+		}
+		assertTrue(found);
+	}
+
+	@Test
+	public void jmxBean() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		WPDSMetrics metrics = new WPDSMetrics("two,Call");
+		JmxMetricsSink sink = new JmxMetricsSink(server);
+		sink.register(metrics);
+		twoCall(metrics);
+		assertEquals(metrics.getTransitionsAdded(),
+				server.getAttribute(JmxMetricsSink.objectName(metrics), "transitionsAdded"));
+		sink.close();
+		assertTrue(!server.isRegistered(JmxMetricsSink.objectName(metrics)));
+	}
+
+	private WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> twoCall(WPDSMetrics metrics) {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		pds.setMetrics(metrics);
+		pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+		pds.addRule(wpush(1, "b", 2, "call", "d", w(2)));
+		pds.addRule(wnormal(2, "call", 2, "e", w(3)));
+		pds.addRule(wpop(2, "e", 3, w(4)));
+		pds.addRule(wnormal(3, "d", 1, "f", w(5)));
+		pds.addRule(wpush(1, "f", 2, "call", "g", w(6)));
+		pds.addRule(wnormal(3, "g", 4, "h", w(7)));
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = wautomaton(1);
+		fa.setMetrics(metrics);
+		fa.addWeightForTransition(t(1, "a", ACC), w(0));
+		pds.poststar(fa);
+		return fa;
+	}
+
+	private static NumWeight w(int i) {
+		return new NumWeight(i);
+	}
+}
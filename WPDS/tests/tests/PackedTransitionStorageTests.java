@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+import static tests.TestHelper.wautomaton;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Interner;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+public class PackedTransitionStorageTests {
+
+	@Test
+	public void internedIdsAreDense() {
+		Interner<Abstraction> ids = new Interner<>();
+		assertEquals(0, ids.intern(a(5)));
+		assertEquals(1, ids.intern(a(3)));
+		assertEquals(0, ids.intern(a(5)));
+		assertEquals(-1, ids.getId(a(4)));
+		assertEquals(a(3), ids.get(1));
+		assertEquals(2, ids.size());
+	}
+
+	@Test
+	public void concurrentInterning() throws InterruptedException {
+		final Interner<Abstraction> ids = new Interner<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						ids.intern(a(j));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(10000, ids.size());
+		for (int id = 0; id < ids.size(); id++) {
+			assertEquals(id, ids.getId(ids.get(id)));
+		}
+	}
+
+	@Test
+	public void samePoststarAsHashStorage() {
+		assertEquals(saturate(false, false), saturate(true, false));
+	}
+
+	@Test
+	public void samePrestarAsHashStorage() {
+		assertEquals(saturate(false, true), saturate(true, true));
+	}
+
+	@Test
+	public void manyTransitions() {
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = wautomaton(0);
+		fa.setPackedTransitionStorage(true);
+		int n = 10000;
+		for (int i = 0; i < n; i++) {
+			fa.addWeightForTransition(t(i, "a", i + 1), w(i));
+			fa.addWeightForTransition(t(i, "b", ACC), w(i));
+		}
+		assertFalse(fa.addWeightForTransition(t(7, "a", 8), w(7)));
+		assertEquals(2 * n, fa.getTransitions().size());
+		for (int i = 0; i < n; i++) {
+			assertEquals(w(i), fa.getWeightFor(t(i, "a", i + 1)));
+		}
+		assertNull(fa.getWeightFor(t(1, "a", 3)));
+		assertEquals(2, fa.getLabelsOutOf(a(1)).size());
+		assertTrue(fa.getLabelsOutOf(a(n)).isEmpty());
+		assertTrue(fa.getTransitionsOutOf(a(1), s("b")).contains(t(1, "b", ACC)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void storageIsFixedOnceTransitionsExist() {
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = wautomaton(0);
+		fa.addWeightForTransition(t(0, "a", ACC), w(1));
+		fa.setPackedTransitionStorage(true);
+	}
+
+	private Map<Transition<StackSymbol, Abstraction>, NumWeight> saturate(boolean packed, boolean prestar) {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+		pds.addRule(wpush(1, "b", 2, "call", "d", w(2)));
+		pds.addRule(wnormal(2, "call", 2, "e", w(3)));
+		pds.addRule(wpop(2, "e", 3, w(4)));
+		pds.addRule(wnormal(3, "d", 1, "f", w(5)));
+		pds.addRule(wpush(1, "f", 2, "call", "g", w(6)));
+		pds.addRule(wnormal(3, "g", 4, "h", w(7)));
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = wautomaton(1);
+		fa.setPackedTransitionStorage(packed);
+		if (prestar) {
+			fa.addWeightForTransition(t(4, "h", ACC), w(0));
+			pds.prestar(fa);
+		} else {
+			fa.addWeightForTransition(t(1, "a", ACC), w(0));
+			pds.poststar(fa);
+		}
+		assertEquals(packed, fa.isPackedTransitionStorage());
+		Map<Transition<StackSymbol, Abstraction>, NumWeight> res = Maps.newHashMap();
+		for (Transition<StackSymbol, Abstraction> t : fa.getTransitions()) {
+			res.put(t, fa.getWeightFor(t));
+		}
+		assertFalse(res.isEmpty());
+		return res;
+	}
+
+	private static NumWeight w(int i) {
+		return new NumWeight(i);
+	}
+}
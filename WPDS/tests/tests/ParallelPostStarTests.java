@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.push;
+import static tests.TestHelper.t;
+import static tests.TestHelper.wautomaton;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.SummaryNestedWeightedPAutomatons;
+import wpds.impl.Transition;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.ReachabilityListener;
+
+public class ParallelPostStarTests {
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void init() {
+		pool = new ForkJoinPool(4);
+		NumWeight.one();
+		NumWeight.zero();
+	}
+
+	@After
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void sameFixpointAsSequential() {
+		for (int seed = 0; seed < 5; seed++) {
+			assertEquals(poststar(seed, false, false, false), poststar(seed, true, false, false));
+		}
+	}
+
+	@Test
+	public void sameFixpointAsSequentialWithSummaries() {
+		for (int seed = 0; seed < 5; seed++) {
+			assertEquals(poststar(seed, false, true, false), poststar(seed, true, true, false));
+		}
+	}
+
+	@Test
+	public void packedStorageWithSummaries() {
+		// The nested summary automata share the interners of the parent automaton.
+		for (int seed = 0; seed < 5; seed++) {
+			assertEquals(poststar(seed, false, true, false), poststar(seed, true, true, true));
+		}
+	}
+
+	@Test
+	public void sameWeightsAsSequential() {
+		assertEquals(twoCall(false), twoCall(true));
+	}
+
+	@Test
+	public void rulesAddedAfterPoststar() {
+		PushdownSystem<StackSymbol, Abstraction> pds = new PushdownSystem<StackSymbol, Abstraction>() {
+		};
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.setParallelDispatch(pool);
+		pds.poststar(fa);
+		pds.addRule(normal(1, "a", 2, "b"));
+		pds.addRule(normal(2, "b", 3, "c"));
+		assertTrue(fa.getTransitions().contains(t(3, "c", ACC)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void noReachabilityListeners() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.setParallelDispatch(pool);
+		fa.registerDFSListener(a(1), new ReachabilityListener<StackSymbol, Abstraction>() {
+			@Override
+			public void reachable(Transition<StackSymbol, Abstraction> t) {
+			}
+		});
+	}
+
+	private Set<Transition<StackSymbol, Abstraction>> poststar(int seed, boolean parallel, boolean summaries,
+			boolean packed) {
+		PushdownSystem<StackSymbol, Abstraction> pds = new PushdownSystem<StackSymbol, Abstraction>() {
+		};
+		Random random = new Random(seed);
+		int states = 10;
+		int labels = 10;
+		pds.addRule(normal(0, "n0", 1, "n1"));
+		for (int i = 0; i < 300; i++) {
+			int from = random.nextInt(states);
+			int to = random.nextInt(states);
+			String l1 = "n" + random.nextInt(labels);
+			String l2 = "n" + random.nextInt(labels);
+			int kind = random.nextInt(20);
+			if (kind < 2) {
+				pds.addRule(push(from, l1, to, l2, "n" + random.nextInt(labels)));
+			} else if (kind == 2) {
+				pds.addRule(pop(from, l1, to));
+			} else {
+				pds.addRule(normal(from, l1, to, l2));
+			}
+		}
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(0, "n0", packed);
+		if (parallel)
+			fa.setParallelDispatch(pool);
+		if (summaries) {
+			pds.poststar(fa, new SummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight>());
+		} else {
+			pds.poststar(fa);
+		}
+		Set<Transition<StackSymbol, Abstraction>> res = Sets.newHashSet(fa.getTransitions());
+		assertTrue(res.size() > 1);
+		return res;
+	}
+
+	private Map<Transition<StackSymbol, Abstraction>, NumWeight> twoCall(boolean parallel) {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+		pds.addRule(wpush(1, "b", 2, "call", "d", w(2)));
+		pds.addRule(wnormal(2, "call", 2, "e", w(3)));
+		pds.addRule(wpop(2, "e", 3, w(4)));
+		pds.addRule(wnormal(3, "d", 1, "f", w(5)));
+		pds.addRule(wpush(1, "f", 2, "call", "g", w(6)));
+		pds.addRule(wnormal(3, "g", 4, "h", w(7)));
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = wautomaton(1);
+		if (parallel)
+			fa.setParallelDispatch(pool);
+		fa.addWeightForTransition(t(1, "a", ACC), w(0));
+		pds.poststar(fa);
+		Map<Transition<StackSymbol, Abstraction>, NumWeight> res = Maps.newHashMap();
+		for (Transition<StackSymbol, Abstraction> t : fa.getTransitions()) {
+			res.put(t, fa.getWeightFor(t));
+		}
+		return res;
+	}
+
+	private static NumWeight w(int i) {
+		return new NumWeight(i);
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.a;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.push;
+import static tests.TestHelper.s;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PushdownSystem;
+import wpds.impl.UNormalRule;
+import wpds.wildcard.Wildcard;
+import wpds.wildcard.WildcardPushdownSystem;
+
+public class RuleIndexTests {
+
+	private static final WildcardSymbol ANY = new WildcardSymbol();
+	private PushdownSystem<StackSymbol, Abstraction> pds;
+
+	@Before
+	public void init() {
+		pds = new PushdownSystem<StackSymbol, Abstraction>() {
+		};
+	}
+
+	@Test
+	public void rulesStarting() {
+		pds.addRule(normal(1, "a", 1, "b"));
+		pds.addRule(push(1, "a", 2, "c", "d"));
+		pds.addRule(pop(1, "b", 3));
+		pds.addRule(normal(2, "a", 1, "b"));
+		assertEquals(2, pds.getRulesStarting(a(1), s("a")).size());
+		assertTrue(pds.getRulesStarting(a(1), s("b")).contains(pop(1, "b", 3)));
+		assertEquals(0, pds.getRulesStarting(a(3), s("a")).size());
+	}
+
+	@Test
+	public void rulesEnding() {
+		pds.addRule(normal(1, "a", 1, "b"));
+		pds.addRule(normal(2, "a", 1, "b"));
+		pds.addRule(push(1, "a", 1, "b", "d"));
+		assertEquals(2, pds.getNormalRulesEnding(a(1), s("b")).size());
+		assertEquals(1, pds.getPushRulesEnding(a(1), s("b")).size());
+		assertEquals(0, pds.getPushRulesEnding(a(2), s("b")).size());
+	}
+
+	@Test
+	public void wildcardRules() {
+		WildcardPushdownSystem<StackSymbol, Abstraction> wpds = new WildcardPushdownSystem<StackSymbol, Abstraction>() {
+			@Override
+			public Wildcard anyTransition() {
+				return ANY;
+			}
+		};
+		wpds.addRule(new UNormalRule<StackSymbol, Abstraction>(a(1), ANY, a(2), ANY));
+		wpds.addRule(normal(1, "a", 2, "b"));
+		assertEquals(2, wpds.getRulesStarting(a(1), s("a")).size());
+		assertTrue(wpds.getRulesStarting(a(1), s("c")).contains(normal(1, "c", 2, "c")));
+		assertTrue(wpds.getNormalRulesEnding(a(2), s("c")).contains(normal(1, "c", 2, "c")));
+		assertEquals(2, wpds.getNormalRulesEnding(a(2), s("b")).size());
+	}
+
+	private static class WildcardSymbol extends StackSymbol implements Wildcard {
+		WildcardSymbol() {
+			super("*");
+		}
+	}
+}
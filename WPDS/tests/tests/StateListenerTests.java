@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.Transition;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.WPAStateListener;
+import wpds.wildcard.Wildcard;
+
+public class StateListenerTests {
+
+	@Test
+	public void labeledListener() {
+		labeledListener(false);
+	}
+
+	@Test
+	public void labeledListenerIterativeDispatch() {
+		labeledListener(true);
+	}
+
+	private void labeledListener(boolean iterative) {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.setIterativeDispatch(iterative);
+		fa.addTransition(t(1, "b", 2));
+		fa.addTransition(t(3, "a", 1));
+		Recorder labeled = new Recorder(a(1), s("a"));
+		Recorder all = new Recorder(a(1), null);
+		fa.registerListener(labeled);
+		fa.registerListener(all);
+		fa.addTransition(t(1, "c", 2));
+		fa.addTransition(t(1, "a", 4));
+		fa.addTransition(t(5, "b", 1));
+		assertEquals(Lists.newArrayList(t(1, "a", ACC), t(1, "a", 4)), labeled.out);
+		assertEquals(Lists.newArrayList(t(3, "a", 1)), labeled.in);
+		assertEquals(4, all.out.size());
+		assertEquals(2, all.in.size());
+	}
+
+	@Test
+	public void wildcardLabelMatchesAll() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		Recorder wildcard = new Recorder(a(1), new WildcardSymbol());
+		fa.registerListener(wildcard);
+		fa.addTransition(t(1, "b", 2));
+		assertEquals(2, wildcard.out.size());
+	}
+
+	@Test
+	public void labelIsPartOfIdentity() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		Recorder first = new Recorder(a(1), s("a"));
+		Recorder second = new Recorder(a(1), s("b"));
+		fa.registerListener(first);
+		fa.registerListener(second);
+		fa.addTransition(t(1, "b", 2));
+		assertEquals(1, first.out.size());
+		assertEquals(1, second.out.size());
+	}
+
+	@Test
+	public void hashComputedOnce() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		HashCounter first = new HashCounter();
+		HashCounter duplicate = new HashCounter();
+		for (int i = 0; i < 3; i++) {
+			fa.registerListener(first);
+			fa.registerListener(duplicate);
+		}
+		fa.addTransition(t(1, "b", 2));
+		assertEquals(2, first.out.size());
+		assertEquals(0, duplicate.out.size());
+		assertEquals(1, first.computed);
+		assertEquals(1, duplicate.computed);
+	}
+
+	private static class Recorder extends WPAStateListener<StackSymbol, Abstraction, NoWeight> {
+		final List<Transition<StackSymbol, Abstraction>> out = Lists.newArrayList();
+		final List<Transition<StackSymbol, Abstraction>> in = Lists.newArrayList();
+
+		Recorder(Abstraction state, StackSymbol label) {
+			super(state, label);
+		}
+
+		@Override
+		public void onOutTransitionAdded(Transition<StackSymbol, Abstraction> t, NoWeight w,
+				WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+			out.add(t);
+		}
+
+		@Override
+		public void onInTransitionAdded(Transition<StackSymbol, Abstraction> t, NoWeight w,
+				WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+			in.add(t);
+		}
+	}
+
+	private static class HashCounter extends Recorder {
+		int computed;
+
+		HashCounter() {
+			super(a(1), null);
+		}
+
+		@Override
+		protected int computeHashCode() {
+			computed++;
+			return super.computeHashCode();
+		}
+	}
+
+	private static class WildcardSymbol extends StackSymbol implements Wildcard {
+		WildcardSymbol() {
+			super("*");
+		}
+	}
+}
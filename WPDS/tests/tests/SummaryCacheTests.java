@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.nestedAccepts;
+import static tests.TestHelper.push;
+import static tests.TestHelper.s;
+import static tests.TestHelper.summaries;
+import static tests.TestHelper.t;
+import static tests.TestHelper.wautomaton;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Configuration;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.SummaryCache;
+import wpds.impl.Transition;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton;
+
+public class SummaryCacheTests {
+
+	@Test
+	public void reuseAcrossPoststars() {
+		PushdownSystem<StackSymbol, Abstraction> pds = callee();
+		pds.addRule(normal(2, "e", 3, "k"));
+		SummaryCache<StackSymbol, Abstraction, NoWeight> cache = new SummaryCache<>(10);
+		PAutomaton<StackSymbol, Abstraction> first = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View view = cache.view();
+		pds.poststar(first, summaries(first, view));
+		assertEquals(0, cache.stats().hitCount());
+		assertEquals(0, cache.size());
+		view.publish();
+		assertEquals(1, cache.size());
+		PAutomaton<StackSymbol, Abstraction> second = nestedAccepts(1, "a");
+		pds.poststar(second, summaries(second, cache.view()));
+		assertEquals(1, cache.stats().hitCount());
+		assertEquals(1, cache.size());
+		assertTrue(second.getTransitions().contains(t(3, "k", ACC)));
+		assertEquals(first.getTransitions(), second.getTransitions());
+	}
+
+	@Test
+	public void reuseAcrossPushdownSystems() {
+		SummaryCache<StackSymbol, Abstraction, NoWeight> cache = new SummaryCache<>(10);
+		PushdownSystem<StackSymbol, Abstraction> pds = callee();
+		PAutomaton<StackSymbol, Abstraction> first = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View firstView = cache.view();
+		pds.poststar(first, summaries(first, firstView));
+		firstView.publish();
+		Set<Transition<StackSymbol, Abstraction>> firstTransitions = Sets.newHashSet(first.getTransitions());
+		WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> firstSummary = firstView
+				.getSummaryAutomaton(a(3, "d"));
+		Set<Transition<StackSymbol, Abstraction>> firstSummaryTransitions = Sets
+				.newHashSet(firstSummary.getTransitions());
+
+		// Shares the callee entry 3d with the first system but continues differently after it.
+		PushdownSystem<StackSymbol, Abstraction> other = callee();
+		other.addRule(normal(3, "d", 5, "h"));
+		other.addRule(pop(5, "h", 6));
+		other.addRule(normal(6, "e", 7, "m"));
+		PAutomaton<StackSymbol, Abstraction> second = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View secondView = cache.view();
+		other.poststar(second, summaries(second, secondView));
+		assertEquals(1, cache.stats().hitCount());
+
+		assertTrue(second.getTransitions().contains(t(7, "m", ACC)));
+		assertNotSame(firstSummary, secondView.getSummaryAutomaton(a(3, "d")));
+		assertEquals(firstTransitions, Sets.newHashSet(first.getTransitions()));
+		assertEquals(firstSummaryTransitions, Sets.newHashSet(firstSummary.getTransitions()));
+		assertNull(cache.view().getSummaryAutomaton(a(3, "d")));
+	}
+
+	@Test
+	public void evictionOnlyAffectsCache() {
+		SummaryCache<StackSymbol, Abstraction, NoWeight> cache = new SummaryCache<>(1);
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View view = cache.view();
+		PAutomaton<StackSymbol, Abstraction> one = accepts(1, "a");
+		PAutomaton<StackSymbol, Abstraction> two = accepts(2, "a");
+		view.putSummaryAutomaton(a(1), one);
+		view.putSummaryAutomaton(a(2), two);
+		view.summaryCreated(new Configuration<StackSymbol, Abstraction>(s("a"), a(1)), one);
+		view.summaryCreated(new Configuration<StackSymbol, Abstraction>(s("a"), a(2)), two);
+		view.publish();
+		assertEquals(1, cache.size());
+		assertSame(one, view.getSummaryAutomaton(a(1)));
+		assertSame(two, view.getSummaryAutomaton(a(2)));
+		assertEquals(0, cache.stats().hitCount());
+		assertEquals(2, cache.stats().missCount());
+	}
+
+	@Test
+	public void republishWeightChanges() {
+		SummaryCache<StackSymbol, Abstraction, NumWeight> cache = new SummaryCache<>(10);
+		SummaryCache<StackSymbol, Abstraction, NumWeight>.View view = cache.view();
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = wautomaton(1);
+		Configuration<StackSymbol, Abstraction> entry = new Configuration<StackSymbol, Abstraction>(s("a"), a(1));
+		aut.addWeightForTransition(t(1, "a", ACC), new NumWeight(1));
+		view.summaryCreated(entry, aut);
+		view.publish();
+		assertEquals(new NumWeight(1), cache.asMap().get(entry).getWeightFor(t(1, "a", ACC)));
+
+		// Combines into the existing transition, the number of transitions stays the same.
+		aut.addWeightForTransition(t(1, "a", ACC), new NumWeight(2));
+		view.publish();
+		assertEquals(NumWeight.zero(), cache.asMap().get(entry).getWeightFor(t(1, "a", ACC)));
+	}
+
+	private static PushdownSystem<StackSymbol, Abstraction> callee() {
+		PushdownSystem<StackSymbol, Abstraction> pds = new PushdownSystem<StackSymbol, Abstraction>() {
+		};
+		pds.addRule(normal(1, "a", 2, "b"));
+		pds.addRule(push(2, "b", 3, "d", "e"));
+		pds.addRule(normal(3, "d", 3, "f"));
+		pds.addRule(pop(3, "f", 2));
+		return pds;
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.nestedAccepts;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.push;
+import static tests.TestHelper.s;
+import static tests.TestHelper.summaries;
+import static tests.TestHelper.t;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Configuration;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Summary;
+import wpds.impl.SummaryCache;
+import wpds.impl.SummaryEncoding;
+import wpds.impl.SummaryFile;
+import wpds.impl.SummaryInput;
+import wpds.impl.SummaryOutput;
+import wpds.impl.Weight.NoWeight;
+
+public class SummaryFileTests {
+
+	private PushdownSystem<StackSymbol, Abstraction> pds;
+	private File file;
+
+	@Before
+	public void init() throws IOException {
+		pds = new PushdownSystem<StackSymbol, Abstraction>() {
+		};
+		file = File.createTempFile("summaries", ".bin");
+		file.deleteOnExit();
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		pds.addRule(normal(1, "a", 2, "b"));
+		pds.addRule(push(2, "b", 3, "d", "e"));
+		pds.addRule(normal(3, "d", 3, "f"));
+		pds.addRule(pop(3, "f", 2));
+		pds.addRule(normal(2, "e", 3, "k"));
+		PAutomaton<StackSymbol, Abstraction> first = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight> computed = new SummaryCache<>(10);
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View view = computed.view();
+		pds.poststar(first, summaries(first, view));
+		view.publish();
+		assertEquals(1, SummaryFile.write(file, computed.asMap().values(), new TestEncoding()));
+
+		SummaryCache<StackSymbol, Abstraction, NoWeight> loaded = new SummaryCache<>(10);
+		assertEquals(1, SummaryFile.load(file, new TestEncoding(), loaded));
+		Summary<StackSymbol, Abstraction, NoWeight> summary = loaded.asMap().get(entry("d", 3));
+		assertEquals(computed.asMap().get(entry("d", 3)).getTransitions(), summary.getTransitions());
+		assertEquals(a(3, "d"), summary.getTarget());
+
+		PAutomaton<StackSymbol, Abstraction> second = nestedAccepts(1, "a");
+		pds.poststar(second, summaries(second, loaded.view()));
+		assertEquals(1, loaded.stats().hitCount());
+		assertTrue(second.getTransitions().contains(t(3, "k", ACC)));
+		assertEquals(first.getTransitions(), second.getTransitions());
+	}
+
+	@Test
+	public void loadKeepsCachedSummaries() throws IOException {
+		pds.addRule(push(1, "a", 2, "b", "c"));
+		pds.addRule(pop(2, "b", 1));
+		PAutomaton<StackSymbol, Abstraction> aut = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight> computed = new SummaryCache<>(10);
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View view = computed.view();
+		pds.poststar(aut, summaries(aut, view));
+		view.publish();
+		assertEquals(1, SummaryFile.write(file, computed.asMap().values(), new TestEncoding()));
+		Summary<StackSymbol, Abstraction, NoWeight> cached = computed.asMap().get(entry("b", 2));
+		assertEquals(0, SummaryFile.load(file, new TestEncoding(), computed));
+		assertSame(cached, computed.asMap().get(entry("b", 2)));
+	}
+
+	@Test
+	public void skipUnencodableSummaries() throws IOException {
+		pds.addRule(push(1, "a", 2, "b", "c"));
+		pds.addRule(push(1, "a", 3, "b", "c"));
+		pds.addRule(pop(2, "b", 1));
+		pds.addRule(pop(3, "b", 1));
+		PAutomaton<StackSymbol, Abstraction> aut = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight> computed = new SummaryCache<>(10);
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View view = computed.view();
+		pds.poststar(aut, summaries(aut, view));
+		view.publish();
+		assertEquals(2, computed.size());
+		assertEquals(1, SummaryFile.write(file, computed.asMap().values(), new TestEncoding() {
+			@Override
+			public void writeState(Abstraction state, SummaryOutput out) {
+				if (state.a == 3)
+					throw new IllegalArgumentException();
+				super.writeState(state, out);
+			}
+		}));
+		SummaryCache<StackSymbol, Abstraction, NoWeight> loaded = new SummaryCache<>(10);
+		assertEquals(1, SummaryFile.load(file, new TestEncoding(), loaded));
+		assertEquals(1, loaded.size());
+		assertTrue(loaded.asMap().containsKey(entry("b", 2)));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectUndecodableData() throws IOException {
+		pds.addRule(push(1, "a", 2, "b", "c"));
+		pds.addRule(pop(2, "b", 1));
+		PAutomaton<StackSymbol, Abstraction> aut = nestedAccepts(1, "a");
+		SummaryCache<StackSymbol, Abstraction, NoWeight> computed = new SummaryCache<>(10);
+		SummaryCache<StackSymbol, Abstraction, NoWeight>.View view = computed.view();
+		pds.poststar(aut, summaries(aut, view));
+		view.publish();
+		SummaryFile.write(file, computed.asMap().values(), new TestEncoding());
+		SummaryFile.read(file, new TestEncoding() {
+			@Override
+			public Abstraction readState(SummaryInput in) {
+				throw new IllegalArgumentException("Unknown state");
+			}
+		});
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectOtherFiles() throws IOException {
+		SummaryFile.load(file, new TestEncoding(), new SummaryCache<StackSymbol, Abstraction, NoWeight>(10));
+	}
+
+	private static Configuration<StackSymbol, Abstraction> entry(String location, int state) {
+		return new Configuration<StackSymbol, Abstraction>(s(location), a(state));
+	}
+
+	private static class TestEncoding implements SummaryEncoding<StackSymbol, Abstraction, NoWeight> {
+
+		@Override
+		public void writeState(Abstraction state, SummaryOutput out) {
+			out.writeInt(state.a);
+			out.writeString(state.s == null ? "" : state.s.s);
+		}
+
+		@Override
+		public Abstraction readState(SummaryInput in) {
+			int a = in.readInt();
+			String s = in.readString();
+			return s.isEmpty() ? a(a) : a(a, s);
+		}
+
+		@Override
+		public void writeLocation(StackSymbol location, SummaryOutput out) {
+			out.writeString(location.s);
+		}
+
+		@Override
+		public StackSymbol readLocation(SummaryInput in) {
+			return s(in.readString());
+		}
+
+		@Override
+		public void writeWeight(NoWeight weight, SummaryOutput out) {
+		}
+
+		@Override
+		public NoWeight readWeight(SummaryInput in) {
+			return NoWeight.NO_WEIGHT_ONE;
+		}
+	}
+}
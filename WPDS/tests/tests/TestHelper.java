@@ -11,14 +11,18 @@
  *******************************************************************************/
 package tests;
 
+import wpds.impl.Configuration;
+import wpds.impl.NestedWeightedPAutomatons;
 import wpds.impl.NormalRule;
 import wpds.impl.PAutomaton;
 import wpds.impl.PopRule;
 import wpds.impl.PushRule;
+import wpds.impl.SharedSummaries;
 import wpds.impl.Transition;
 import wpds.impl.UNormalRule;
 import wpds.impl.UPopRule;
 import wpds.impl.UPushRule;
+import wpds.impl.Weight.NoWeight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
@@ -27,6 +31,10 @@ public class TestHelper {
   static Abstraction ACC = a(999);
 
   static PAutomaton<StackSymbol, Abstraction> accepts(int a, String c) {
+    return accepts(a, c, false);
+  }
+
+  static PAutomaton<StackSymbol, Abstraction> accepts(int a, String c, boolean packed) {
     PAutomaton<StackSymbol, Abstraction> aut = new PAutomaton<StackSymbol, Abstraction>(a(a)) {
 
       @Override
@@ -44,13 +52,78 @@ public class TestHelper {
 		return d.s != null;
 	  }
     };
+    aut.setPackedTransitionStorage(packed);
     aut.addFinalState(ACC);
     aut.addTransition(t(a, c, ACC));
     return aut;
   }
 
+  static PAutomaton<StackSymbol, Abstraction> nestedAccepts(int a, String c) {
+    PAutomaton<StackSymbol, Abstraction> aut = new PAutomaton<StackSymbol, Abstraction>(a(a)) {
+
+      @Override
+      public Abstraction createState(Abstraction d, StackSymbol loc) {
+        return new Abstraction(d, loc);
+      }
+
+      @Override
+      public StackSymbol epsilon() {
+        return s("EPS");
+      }
+
+      @Override
+      public boolean isGeneratedState(Abstraction d) {
+        return d.s != null;
+      }
+
+      @Override
+      public boolean nested() {
+        return true;
+      }
+    };
+    aut.addFinalState(ACC);
+    aut.addTransition(t(a, c, ACC));
+    return aut;
+  }
+
+  // As the solvers of Boomerang, resolves the final state of the query to the automaton itself.
+  static NestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> summaries(
+      final PAutomaton<StackSymbol, Abstraction> aut,
+      final NestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> summaries) {
+    return new SharedSummaries<StackSymbol, Abstraction, NoWeight>() {
+
+      @Override
+      public void putSummaryAutomaton(Abstraction target,
+          WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> nested) {
+        summaries.putSummaryAutomaton(target, nested);
+      }
+
+      @Override
+      public WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> getSummaryAutomaton(
+          Abstraction target) {
+        if (target.equals(ACC))
+          return aut;
+        return summaries.getSummaryAutomaton(target);
+      }
+
+      @Override
+      public void summaryCreated(Configuration<StackSymbol, Abstraction> entry,
+          WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> nested) {
+        if (summaries instanceof SharedSummaries)
+          ((SharedSummaries<StackSymbol, Abstraction, NoWeight>) summaries).summaryCreated(entry, nested);
+      }
+    };
+  }
+
   static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(int a,
       String c, NumWeight weight) {
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = wautomaton(a);
+    aut.addTransition(t(a, c, ACC));
+    aut.addWeightForTransition(t(a, c, ACC), weight);
+    return aut;
+  }
+
+  static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> wautomaton(int a) {
     WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut =
         new WeightedPAutomaton<StackSymbol, Abstraction, NumWeight>(a(a)) {
 
@@ -80,8 +153,6 @@ public class TestHelper {
 	}
     };
     aut.addFinalState(ACC);
-    aut.addTransition(t(a, c, ACC));
-    aut.addWeightForTransition(t(a, c, ACC), weight);
     return aut;
   }
 
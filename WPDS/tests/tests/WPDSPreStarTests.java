@@ -20,15 +20,14 @@ import static tests.TestHelper.wpop;
 import static tests.TestHelper.wpush;
 
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import tests.TestHelper.Abstraction;
 import tests.TestHelper.StackSymbol;
+import wpds.wildcard.Wildcard;
 import wpds.impl.WeightedPAutomaton;
 import wpds.impl.WeightedPushdownSystem;
 
-@Ignore 
 public class WPDSPreStarTests {
   private WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds;
 
@@ -49,6 +48,15 @@ public class WPDSPreStarTests {
     assertEquals(fa.getWeightFor(t(1, "a", ACC)), w(5));
   }
 
+  @Test(expected = RuntimeException.class)
+  public void wildcardInitialTransition() {
+    pds.addRule(wnormal(1, "a", 2, "b", w(2)));
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa =
+        waccepts(2, "b", w(0));
+    fa.addTransition(t(2, new WildcardSymbol(), ACC));
+    pds.prestar(fa);
+  }
+
   @Test
   public void branch() {
     pds.addRule(wnormal(1, "a", 1, "b", w(2)));
@@ -84,4 +92,10 @@ public class WPDSPreStarTests {
   private static NumWeight w(int i) {
     return new NumWeight(i);
   }
+
+  private static class WildcardSymbol extends StackSymbol implements Wildcard {
+    WildcardSymbol() {
+      super("*");
+    }
+  }
 }
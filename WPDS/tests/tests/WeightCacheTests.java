@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.t;
+import static tests.TestHelper.wautomaton;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Transition;
+import wpds.impl.WeightCache;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+public class WeightCacheTests {
+
+	@Test
+	public void internReturnsCanonicalInstance() {
+		WeightCache<NumWeight> cache = new WeightCache<>(100);
+		NumWeight w = w(3);
+		assertSame(w, cache.intern(w));
+		assertSame(w, cache.intern(w(3)));
+		assertSame(w, cache.extend(w(1), w(2)));
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void memoizedResults() {
+		WeightCache<NumWeight> cache = new WeightCache<>(100);
+		NumWeight res = cache.extend(w(1), w(2));
+		assertSame(res, cache.extend(w(1), w(2)));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertSame(cache.intern(w(1)), cache.combine(w(1), w(1)));
+	}
+
+	@Test
+	public void memoizedResultsAreBounded() {
+		WeightCache<NumWeight> cache = new WeightCache<>(10);
+		for (int i = 0; i < 100; i++) {
+			cache.extend(w(i), w(1));
+			cache.combine(w(i), w(1));
+		}
+		assertTrue(cache.memoizedResults() <= 20);
+		cache.extend(w(99), w(1));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void sameFixpointWithCache() {
+		assertEquals(twoCall(false), twoCall(true));
+	}
+
+	private Map<Transition<StackSymbol, Abstraction>, NumWeight> twoCall(boolean cached) {
+		WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+		pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+		pds.addRule(wpush(1, "b", 2, "call", "d", w(2)));
+		pds.addRule(wnormal(2, "call", 2, "e", w(3)));
+		pds.addRule(wpop(2, "e", 3, w(4)));
+		pds.addRule(wnormal(3, "d", 1, "f", w(5)));
+		pds.addRule(wpush(1, "f", 2, "call", "g", w(6)));
+		pds.addRule(wnormal(3, "g", 4, "h", w(7)));
+		WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = wautomaton(1);
+		if (cached)
+			fa.setWeightCache(new WeightCache<NumWeight>(1000));
+		fa.addWeightForTransition(t(1, "a", ACC), w(0));
+		pds.poststar(fa);
+		Map<Transition<StackSymbol, Abstraction>, NumWeight> res = Maps.newHashMap();
+		for (Transition<StackSymbol, Abstraction> t : fa.getTransitions()) {
+			res.put(t, fa.getWeightFor(t));
+		}
+		return res;
+	}
+
+	private static NumWeight w(int i) {
+		return new NumWeight(i);
+	}
+}
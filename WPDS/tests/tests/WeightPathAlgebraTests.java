@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.t;
+
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.WeightPathAlgebra;
+
+public class WeightPathAlgebraTests {
+
+	@Test
+	public void cheapestWord() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		fa.addTransition(t(1, "b", 2));
+		fa.addTransition(t(2, "b", 2));
+		fa.addTransition(t(2, "c", TestHelper.ACC));
+		assertEquals(new MinSemiring(1), fa.extractLanguage(a(1), new LabelCost()));
+		assertEquals(new MinSemiring(20), fa.extractLanguage(a(2), new LabelCost()));
+		assertEquals(MinSemiring.zero(), fa.extractLanguage(a(3), new LabelCost()));
+	}
+
+	@Test
+	public void epsilonTransitions() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "c");
+		fa.addTransition(t(2, "EPS", 1));
+		fa.addTransition(t(3, "a", 2));
+		assertEquals(new MinSemiring(21), fa.extractLanguage(a(3), new LabelCost()));
+	}
+
+	@Test
+	public void solverIsSharedUntilTransitionAdded() {
+		PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a");
+		LabelCost cost = new LabelCost();
+		assertEquals(new MinSemiring(1), fa.extractLanguage(a(1), cost));
+		fa.addTransition(t(1, "a", 1));
+		fa.addTransition(t(2, "b", 1));
+		assertEquals(new MinSemiring(1), fa.extractLanguage(a(1), cost));
+		assertEquals(new MinSemiring(11), fa.extractLanguage(a(2), cost));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void starOfInfiniteHeight() {
+		// Negative costs make min-plus an infinite descending chain.
+		new LabelCost().star(new MinSemiring(-1));
+	}
+
+	/**
+	 * Label a costs 1, b costs 10 and every other label costs 20.
+	 */
+	private static class LabelCost extends WeightPathAlgebra<StackSymbol, MinSemiring> {
+		LabelCost() {
+			super(MinSemiring.one(), MinSemiring.zero());
+		}
+
+		@Override
+		public MinSemiring label(StackSymbol label) {
+			if (label.equals(TestHelper.s("a")))
+				return new MinSemiring(1);
+			if (label.equals(TestHelper.s("b")))
+				return new MinSemiring(10);
+			return new MinSemiring(20);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import sync.pds.solver.WitnessNode;
+import sync.pds.solver.Worklist;
+
+/**
+ * Base class for {@link BoomerangOptions} with defaults for options that were added after the interface. Options
+ * implementing {@link BoomerangOptions} directly use these defaults.
+ */
+public abstract class AbstractBoomerangOptions implements BoomerangOptions {
+
+	/**
+	 * Called once per solver, each solver needs its own worklist, for instance
+	 * {@link boomerang.solver.AbstractBoomerangSolver#methodLocalWorklist()}. <code>null</code> (the default)
+	 * processes nodes recursively.
+	 */
+	public Worklist<WitnessNode<Statement, Val, Field>> worklist() {
+		return null;
+	}
+
+	/**
+	 * The worklist of <code>options</code>, <code>null</code> if the options do not extend this class.
+	 */
+	public static Worklist<WitnessNode<Statement, Val, Field>> worklist(BoomerangOptions options) {
+		if (options instanceof AbstractBoomerangOptions)
+			return ((AbstractBoomerangOptions) options).worklist();
+		return null;
+	}
+}
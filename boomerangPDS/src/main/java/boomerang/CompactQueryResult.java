@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.solver.AbstractBoomerangSolver;
+import soot.SootMethod;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * The results of a finished query, extracted from its solver by {@link WeightedBoomerang#compact(Query)}. Holds no
+ * reference to the pushdown systems, automata or listeners of the solver.
+ */
+public class CompactQueryResult<W extends Weight> {
+	private final Query query;
+	private final Set<Node<Statement, Val>> reachedStates;
+	private final Map<Transition<Statement, INode<Val>>, W> transitionsToFinalWeights;
+	private final Map<Node<Statement, Val>, W> nodesPointingToAllocation;
+	private final Set<SootMethod> reachableMethods;
+
+	CompactQueryResult(Query query, AbstractBoomerangSolver<W> solver) {
+		this.query = query;
+		this.reachedStates = ImmutableSet.copyOf(solver.getReachedStates());
+		this.transitionsToFinalWeights = ImmutableMap.copyOf(solver.getTransitionsToFinalWeights());
+		Map<Node<Statement, Val>, W> pointing = Maps.newHashMap();
+		if (query instanceof ForwardQuery) {
+			WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> fieldAut = solver.getFieldAutomaton();
+			for (Transition<Field, INode<Node<Statement, Val>>> t : fieldAut.getTransitions()) {
+				if (t.getTarget().equals(fieldAut.getInitialState()) && t.getLabel().equals(Field.empty())) {
+					pointing.put(t.getStart().fact(), fieldAut.getWeightFor(t));
+				}
+			}
+		}
+		this.nodesPointingToAllocation = ImmutableMap.copyOf(pointing);
+		this.reachableMethods = ImmutableSet.copyOf(solver.getReachableMethods());
+	}
+
+	public Query getQuery() {
+		return query;
+	}
+
+	public Set<Node<Statement, Val>> getReachedStates() {
+		return reachedStates;
+	}
+
+	/**
+	 * The weights of the call automaton transitions to the initial state, see
+	 * {@link AbstractBoomerangSolver#getTransitionsToFinalWeights()}.
+	 */
+	public Map<Transition<Statement, INode<Val>>, W> getTransitionsToFinalWeights() {
+		return transitionsToFinalWeights;
+	}
+
+	/**
+	 * For a forward query, the nodes whose variable points to the allocation site of the query without field
+	 * accesses, with the weight of the flow. Empty for backward queries.
+	 */
+	public Map<Node<Statement, Val>, W> getNodesPointingToAllocation() {
+		return nodesPointingToAllocation;
+	}
+
+	/**
+	 * The methods the solver had reached, they are reachable again when the solver is recomputed.
+	 */
+	public Set<SootMethod> getReachableMethods() {
+		return reachableMethods;
+	}
+
+	@Override
+	public String toString() {
+		return "Compacted " + query + " (" + reachedStates.size() + " reached states)";
+	}
+}
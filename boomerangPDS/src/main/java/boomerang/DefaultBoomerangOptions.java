@@ -33,7 +33,7 @@ import soot.jimple.Stmt;
 import soot.jimple.StringConstant;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 
-public class DefaultBoomerangOptions implements BoomerangOptions {
+public class DefaultBoomerangOptions extends AbstractBoomerangOptions {
 	
 	public boolean isAllocationVal(Value val) {
 		if (!trackStrings() && isStringAllocationType(val.getType())) {
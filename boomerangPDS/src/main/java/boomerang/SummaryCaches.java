@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.SummaryCache;
+import wpds.impl.Weight;
+
+/**
+ * The call and field summary caches of {@link WeightedBoomerang} instances that analyze the same program. Summaries
+ * are only computed when {@link BoomerangOptions#callSummaries()} or {@link BoomerangOptions#fieldSummaries()} are
+ * enabled.
+ * <p>
+ * Forward call summaries carry the weights of the forward call weight functions of the query. When these differ
+ * between the sharing instances, the forward call summaries must not be shared.
+ */
+public class SummaryCaches<W extends Weight> {
+
+	private final SummaryCache<Statement, INode<Val>, W> forwardCallSummaries;
+	private final SummaryCache<Statement, INode<Val>, W> backwardCallSummaries;
+	private final SummaryCache<Field, INode<Node<Statement, Val>>, W> forwardFieldSummaries;
+	private final SummaryCache<Field, INode<Node<Statement, Val>>, W> backwardFieldSummaries;
+
+	public SummaryCaches(long maximumSize) {
+		this(maximumSize, true);
+	}
+
+	/**
+	 * @param shareForwardCallSummaries
+	 *            if false, each instance keeps its forward call summaries to itself.
+	 */
+	public SummaryCaches(long maximumSize, boolean shareForwardCallSummaries) {
+		this.forwardCallSummaries = shareForwardCallSummaries
+				? new SummaryCache<Statement, INode<Val>, W>(maximumSize) : null;
+		this.backwardCallSummaries = new SummaryCache<>(maximumSize);
+		this.forwardFieldSummaries = new SummaryCache<>(maximumSize);
+		this.backwardFieldSummaries = new SummaryCache<>(maximumSize);
+	}
+
+	/**
+	 * Null if forward call summaries are not shared.
+	 */
+	public SummaryCache<Statement, INode<Val>, W> getForwardCallSummaries() {
+		return forwardCallSummaries;
+	}
+
+	public SummaryCache<Statement, INode<Val>, W> getBackwardCallSummaries() {
+		return backwardCallSummaries;
+	}
+
+	public SummaryCache<Field, INode<Node<Statement, Val>>, W> getForwardFieldSummaries() {
+		return forwardFieldSummaries;
+	}
+
+	public SummaryCache<Field, INode<Node<Statement, Val>>, W> getBackwardFieldSummaries() {
+		return backwardFieldSummaries;
+	}
+
+	@Override
+	public String toString() {
+		String str = "Summary caches (hits/misses):";
+		if (forwardCallSummaries != null)
+			str += "\n\tForward call:\t" + stats(forwardCallSummaries);
+		str += "\n\tBackward call:\t" + stats(backwardCallSummaries);
+		str += "\n\tForward field:\t" + stats(forwardFieldSummaries);
+		str += "\n\tBackward field:\t" + stats(backwardFieldSummaries);
+		return str;
+	}
+
+	private static String stats(SummaryCache<?, ?, ?> cache) {
+		return cache.stats().hitCount() + "/" + cache.stats().missCount();
+	}
+}
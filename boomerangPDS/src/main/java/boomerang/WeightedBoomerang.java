@@ -13,7 +13,6 @@ package boomerang;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +24,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
@@ -73,24 +73,44 @@ import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.Configuration;
 import wpds.impl.ConnectPushListener;
 import wpds.impl.NestedWeightedPAutomatons;
+import wpds.impl.SharedSummaries;
+import wpds.impl.SummaryCache;
 import wpds.impl.SummaryNestedWeightedPAutomatons;
 import wpds.impl.Transition;
 import wpds.impl.UnbalancedPopListener;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.Location;
 import wpds.interfaces.State;
 import wpds.interfaces.WPAStateListener;
 import wpds.interfaces.WPAUpdateListener;
 
 public abstract class WeightedBoomerang<W extends Weight> {
 	public static final boolean DEBUG = false;
-	private Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField = new HashMap<>();
+	private Table<INode<Node<Statement, Val>>, Field, INode<Node<Statement, Val>>> genField = HashBasedTable.create();
 	private long lastTick;
 	private IBoomerangStats<W> stats;
+	private final Map<Query, CompactQueryResult<W>> compactedQueries = Maps.newHashMap();
+	private final Set<Query> queriesWithCrossQueryFlows = Sets.newHashSet();
+	private boolean readOnly;
 	private final DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers = new DefaultValueMap<Query, AbstractBoomerangSolver<W>>() {
 
+		@Override
+		public AbstractBoomerangSolver<W> getOrCreate(Query key) {
+			CompactQueryResult<W> compacted = compactedQueries.get(key);
+			if (compacted == null)
+				return super.getOrCreate(key);
+			if (readOnly)
+				throw new IllegalStateException("Solver of " + key + " requested after compactAll()");
+			compactedQueries.remove(key);
+			AbstractBoomerangSolver<W> solver = super.getOrCreate(key);
+			recompute(compacted, solver);
+			return solver;
+		}
+
 		@Override
 		protected AbstractBoomerangSolver<W> createItem(final Query key) {
 			final AbstractBoomerangSolver<W> solver;
@@ -207,10 +227,12 @@ public abstract class WeightedBoomerang<W extends Weight> {
 	private EmptyCalleeFlow forwardEmptyCalleeFlow = new ForwardEmptyCalleeFlow();
 	private EmptyCalleeFlow backwardEmptyCalleeFlow = new BackwardEmptyCalleeFlow();
 	
-	private NestedWeightedPAutomatons<Statement, INode<Val>, W> backwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
-	private NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> backwardFieldSummaries = new SummaryNestedWeightedPAutomatons<>();
-	private NestedWeightedPAutomatons<Statement, INode<Val>, W> forwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
-	private NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> forwardFieldSummaries = new SummaryNestedWeightedPAutomatons<>();
+	private final NestedWeightedPAutomatons<Statement, INode<Val>, W> backwardCallSummaries;
+	private final NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> backwardFieldSummaries;
+	private final NestedWeightedPAutomatons<Statement, INode<Val>, W> forwardCallSummaries;
+	private final NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> forwardFieldSummaries;
+	// The views of the shared summary caches, published after each query.
+	private final List<SummaryCache<?, ?, W>.View> summaryCacheViews = Lists.newArrayList();
 	private DefaultValueMap<FieldWritePOI, FieldWritePOI> fieldWrites = new DefaultValueMap<FieldWritePOI, FieldWritePOI>() {
 		@Override
 		protected FieldWritePOI createItem(FieldWritePOI key) {
@@ -236,8 +258,35 @@ public abstract class WeightedBoomerang<W extends Weight> {
 	private Debugger<W> debugger;
 	private Stopwatch analysisWatch = Stopwatch.createUnstarted();
 	public WeightedBoomerang(BoomerangOptions options){
+		this(options, null);
+	}
+
+	/**
+	 * Reads and stores summaries in <code>summaryCaches</code>, which may be shared with other instances analyzing
+	 * the same program. If null, the summaries are kept by this instance only.
+	 */
+	public WeightedBoomerang(BoomerangOptions options, SummaryCaches<W> summaryCaches){
 		this.options = options;
 		this.stats = options.statsFactory();
+		if (summaryCaches == null) {
+			this.forwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
+			this.backwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
+			this.forwardFieldSummaries = new SummaryNestedWeightedPAutomatons<>();
+			this.backwardFieldSummaries = new SummaryNestedWeightedPAutomatons<>();
+		} else {
+			this.forwardCallSummaries = summaryCaches.getForwardCallSummaries() == null
+					? new SummaryNestedWeightedPAutomatons<Statement, INode<Val>, W>()
+					: view(summaryCaches.getForwardCallSummaries());
+			this.backwardCallSummaries = view(summaryCaches.getBackwardCallSummaries());
+			this.forwardFieldSummaries = view(summaryCaches.getForwardFieldSummaries());
+			this.backwardFieldSummaries = view(summaryCaches.getBackwardFieldSummaries());
+		}
+	}
+
+	private <N extends Location, D extends State> SummaryCache<N, D, W>.View view(SummaryCache<N, D, W> cache) {
+		SummaryCache<N, D, W>.View view = cache.view();
+		summaryCacheViews.add(view);
+		return view;
 	}
 
 	public WeightedBoomerang(){
@@ -288,13 +337,14 @@ public abstract class WeightedBoomerang<W extends Weight> {
 				}
 				Optional<AllocVal> allocNode = isAllocationNode(node.stmt(), node.fact());
 				if (allocNode.isPresent()) {
-					ForwardQuery q = new ForwardQuery(node.stmt(), allocNode.get());
-					final AbstractBoomerangSolver<W> forwardSolver = forwardSolve(q);
+					final ForwardQuery q = new ForwardQuery(node.stmt(), allocNode.get());
+					crossQueryFlow(backwardQuery, q);
+					forwardSolve(q);
 					solver.registerReachableMethodListener(new ReachableMethodListener<W>() {
 
 						@Override
 						public void reachable(SootMethod m) {
-							forwardSolver.addReachable(m);
+							queryToSolvers.getOrCreate(q).addReachable(m);
 						}
 					});
 				}
@@ -464,7 +514,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
 	private NestedWeightedPAutomatons<Statement, INode<Val>, W> createCallSummaries(final Query sourceQuery,
 			final NestedWeightedPAutomatons<Statement, INode<Val>, W> summaries) {
-		return new NestedWeightedPAutomatons<Statement, INode<Val>, W>() {
+		return new SharedSummaries<Statement, INode<Val>, W>() {
 
 			@Override
 			public void putSummaryAutomaton(INode<Val> target, WeightedPAutomaton<Statement, INode<Val>, W> aut) {
@@ -478,12 +528,19 @@ public abstract class WeightedBoomerang<W extends Weight> {
 				}
 				return summaries.getSummaryAutomaton(target);
 			}
+
+			@Override
+			public void summaryCreated(Configuration<Statement, INode<Val>> entry,
+					WeightedPAutomaton<Statement, INode<Val>, W> aut) {
+				if (summaries instanceof SharedSummaries)
+					((SharedSummaries<Statement, INode<Val>, W>) summaries).summaryCreated(entry, aut);
+			}
 		};
 	}
 
 	private NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> createFieldSummaries(final Query query,
 			final NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> summaries) {
-		return new NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W>() {
+		return new SharedSummaries<Field, INode<Node<Statement, Val>>, W>() {
 
 			@Override
 			public void putSummaryAutomaton(INode<Node<Statement, Val>> target,
@@ -500,6 +557,13 @@ public abstract class WeightedBoomerang<W extends Weight> {
 				return summaries.getSummaryAutomaton(target);
 			}
 
+			@Override
+			public void summaryCreated(Configuration<Field, INode<Node<Statement, Val>>> entry,
+					WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
+				if (summaries instanceof SharedSummaries)
+					((SharedSummaries<Field, INode<Node<Statement, Val>>, W>) summaries).summaryCreated(entry, aut);
+			}
+
 		};
 	}
 
@@ -595,8 +659,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
 			final FieldWritePOI fieldWritePoi, final ForwardQuery sourceQuery) {
 		BackwardQuery backwardQuery = new BackwardQuery(node.stmt(), fieldWritePoi.getBaseVar());
 		if (node.fact().equals(fieldWritePoi.getStoredVar())) {
-			if(sourceQuery instanceof WeightedForwardQuery) //Additional logic for IDEal
+			if(sourceQuery instanceof WeightedForwardQuery){ //Additional logic for IDEal
+				crossQueryFlow(sourceQuery, backwardQuery);
 				backwardSolve(backwardQuery);
+			}
 			fieldWritePoi.addFlowAllocation(sourceQuery);
 		}
 		if (node.fact().equals(fieldWritePoi.getBaseVar())) {
@@ -636,9 +702,9 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((fieldWritePoi == null) ? 0 : fieldWritePoi.hashCode());
 			result = prime * result + ((sourceQuery == null) ? 0 : sourceQuery.hashCode());
@@ -702,6 +768,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
 	}
 
 	public void solve(Query query) {
+		if (readOnly)
+			throw new IllegalStateException("Results are read-only after compactAll(), cannot solve " + query);
 		if(!analysisWatch.isRunning()){
 			analysisWatch.start();
 		}
@@ -711,6 +779,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		if (query instanceof BackwardQuery) {
 			backwardSolve((BackwardQuery) query);
 		}
+		// The solvers are idle once the query is solved, their summaries are finished.
+		for (SummaryCache<?, ?, W>.View view : summaryCacheViews) {
+			view.publish();
+		}
 		if(analysisWatch.isRunning()){
 			analysisWatch.stop();
 		}
@@ -907,7 +979,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
 		@Override
 		public void reachable() {
-			queryToSolvers.get(byPassing).registerStatementFieldTransitionListener(
+			queryToSolvers.getOrCreate(byPassing).registerStatementFieldTransitionListener(
 					new ImportFlowAtReturn(returnedNode, byPassing,flowQuery, callSite));
 		}
 
@@ -986,6 +1058,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 				final Node<Statement, Val> returnedNode) {
 			if (byPassing.equals(flowQuery))
 				return;
+			crossQueryFlow(byPassing, flowQuery);
 			queryToSolvers.getOrCreate(byPassing)
 					.registerListener(new OnReturnNodeReachle(new WitnessNode<Statement, Val, Field>(returnedNode.stmt(), returnedNode.fact()), byPassing, flowQuery, callSite));
 		}
@@ -1059,18 +1132,18 @@ public abstract class WeightedBoomerang<W extends Weight> {
 //				if(byPassing.equals(returnedNode.fact())){
 //					return;
 //				}
-				insertTransition(queryToSolvers.get(flowQuery).getFieldAutomaton(),
+				insertTransition(queryToSolvers.getOrCreate(flowQuery).getFieldAutomaton(),
 						new Transition<Field, INode<Node<Statement, Val>>>(
 								new AllocNode<Node<Statement, Val>>(
 												byPassingQuery.asNode()),
 								Field.epsilon(), new SingleNode<Node<Statement, Val>>(
 										returnedNode)));
 
-				queryToSolvers.get(byPassingQuery).getFieldAutomaton().registerListener(
+				queryToSolvers.getOrCreate(byPassingQuery).getFieldAutomaton().registerListener(
 						new ImportToSolver(t.getStart(), byPassingQuery, flowQuery));
-				queryToSolvers.get(flowQuery).setFieldContextReachable(
+				queryToSolvers.getOrCreate(flowQuery).setFieldContextReachable(
 						new Node<Statement, Val>(returnedNode.stmt(), byPassing));
-				queryToSolvers.get(flowQuery).addNormalCallFlow(returnedNode,
+				queryToSolvers.getOrCreate(flowQuery).addNormalCallFlow(returnedNode,
 						new Node<Statement, Val>(returnedNode.stmt(), byPassing));
 			}
 		}
@@ -1143,8 +1216,9 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		}
 
 		protected void executeImportAliases(final ForwardQuery baseAllocation, final Query flowAllocation) {
-			final AbstractBoomerangSolver<W> baseSolver = queryToSolvers.get(baseAllocation);
-			final AbstractBoomerangSolver<W> flowSolver = queryToSolvers.get(flowAllocation);
+			crossQueryFlow(baseAllocation, flowAllocation);
+			final AbstractBoomerangSolver<W> baseSolver = queryToSolvers.getOrCreate(baseAllocation);
+			final AbstractBoomerangSolver<W> flowSolver = queryToSolvers.getOrCreate(flowAllocation);
 			assert !flowSolver.getSuccsOf(getStmt()).isEmpty();
 			baseSolver
 					.registerStatementFieldTransitionListener(new StatementBasedFieldTransitionListener<W>(getStmt()) {
@@ -1198,9 +1272,9 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((flowSolver == null) ? 0 : flowSolver.hashCode());
 			return result;
@@ -1228,8 +1302,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		@Override
 		public void onOutTransitionAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
 				WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-			insertTransition(queryToSolvers.get(flowSolver).getFieldAutomaton(), t);
-				queryToSolvers.get(baseSolver).getFieldAutomaton().registerListener(new ImportToSolver(t.getTarget(), baseSolver, flowSolver));	
+			insertTransition(queryToSolvers.getOrCreate(flowSolver).getFieldAutomaton(), t);
+				queryToSolvers.getOrCreate(baseSolver).getFieldAutomaton().registerListener(new ImportToSolver(t.getTarget(), baseSolver, flowSolver));	
 		}
 
 		@Override
@@ -1258,6 +1332,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
 			if (q instanceof ForwardQuery)
 				res.addAll(queryToSolvers.getOrCreate(q).getReachedStates());
 		}
+		for (CompactQueryResult<W> compacted : compactedQueries.values()) {
+			if (compacted.getQuery() instanceof ForwardQuery)
+				res.addAll(compacted.getReachedStates());
+		}
 		return res;
 	}
 
@@ -1265,11 +1343,95 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		return queryToSolvers;
 	}
 
+	/**
+	 * Replaces the solver of a finished query by a {@link CompactQueryResult} and releases the pushdown systems,
+	 * automata and listeners of the solver. {@link #getResults(Query)}, {@link #getAllocationSites(BackwardQuery)}
+	 * and {@link #getForwardReachableStates()} include compacted queries, {@link #getAllAliases(BackwardQuery)}
+	 * needs the automata and does not.
+	 * <p>
+	 * Queries of this instance exchange flows, for instance at field writes. Only queries without
+	 * {@link #hasCrossQueryFlows(Query) cross query flows} can be compacted one by one: if a query solved later
+	 * needs the solver of such a query, the solver is recomputed from the query and the methods it had reached, and
+	 * the query is no longer compacted. The solver of a query with cross query flows cannot be recomputed, as the
+	 * listeners of the other queries do not replay flows they already exchanged, see {@link #compactAll()}. Note
+	 * that {@link boomerang.stats.AdvancedBoomerangStats} keeps the solvers it reports on, and with call or field
+	 * summaries enabled, the summary automata keep the listeners the solver registered on them.
+	 * 
+	 * @return the compact result, or null if the query has not been solved.
+	 * @throws IllegalArgumentException if the query has cross query flows.
+	 */
+	public CompactQueryResult<W> compact(Query query) {
+		if (hasCrossQueryFlows(query))
+			throw new IllegalArgumentException("Cannot compact " + query + ", it exchanges flows with other queries");
+		return compactSolver(query);
+	}
+
+	private CompactQueryResult<W> compactSolver(Query query) {
+		CompactQueryResult<W> compacted = compactedQueries.get(query);
+		if (compacted != null)
+			return compacted;
+		AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
+		if (solver == null)
+			return null;
+		compacted = new CompactQueryResult<W>(query, solver);
+		queryToSolvers.remove(query);
+		compactedQueries.put(query, compacted);
+		return compacted;
+	}
+
+	/**
+	 * Compacts all solved queries, including queries with cross query flows, for instance once a whole program
+	 * analysis has finished. The results are read-only afterwards, {@link #solve(Query)} and requesting the solver
+	 * of a compacted query throw an {@link IllegalStateException}.
+	 */
+	public void compactAll() {
+		readOnly = true;
+		for (Query query : Lists.newArrayList(queryToSolvers.keySet())) {
+			compactSolver(query);
+		}
+	}
+
+	/**
+	 * Whether the query imported flows from or exported flows to another query of this instance so far.
+	 */
+	public boolean hasCrossQueryFlows(Query query) {
+		return queriesWithCrossQueryFlows.contains(query);
+	}
+
+	private void crossQueryFlow(Query a, Query b) {
+		if (a.equals(b))
+			return;
+		queriesWithCrossQueryFlows.add(a);
+		queriesWithCrossQueryFlows.add(b);
+	}
+
+	private void recompute(CompactQueryResult<W> compacted, AbstractBoomerangSolver<W> solver) {
+		for (SootMethod m : compacted.getReachableMethods()) {
+			solver.addReachable(m);
+		}
+		Query query = compacted.getQuery();
+		if (query instanceof ForwardQuery) {
+			forwardSolve((ForwardQuery) query);
+		} else {
+			backwardSolve((BackwardQuery) query);
+		}
+	}
+
+	/**
+	 * The result of a compacted query, null if the query has not been compacted.
+	 */
+	public CompactQueryResult<W> getCompactResult(Query query) {
+		return compactedQueries.get(query);
+	}
+
 	public Table<Statement,Val, W> getResults(final Query query){
 		final Table<Statement,Val, W> results = HashBasedTable.create();
 		if(query instanceof ForwardQuery){
-			WeightedPAutomaton<Statement, INode<Val>, W> fieldAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
-			for(Entry<Transition<Statement, INode<Val>>, W> e : fieldAut.getTransitionsToFinalWeights().entrySet()){
+			CompactQueryResult<W> compacted = compactedQueries.get(query);
+			Map<Transition<Statement, INode<Val>>, W> finalWeights = compacted != null
+					? compacted.getTransitionsToFinalWeights()
+					: queryToSolvers.getOrCreate(query).getCallAutomaton().getTransitionsToFinalWeights();
+			for(Entry<Transition<Statement, INode<Val>>, W> e : finalWeights.entrySet()){
 				Transition<Statement, INode<Val>> t = e.getKey();
 				W w = e.getValue();
 				if(t.getLabel().equals(Statement.epsilon()))
@@ -1300,6 +1462,11 @@ public abstract class WeightedBoomerang<W extends Weight> {
 				});
 			}
 		}
+		for (CompactQueryResult<W> compacted : compactedQueries.values()) {
+			W w = compacted.getNodesPointingToAllocation().get(query.asNode());
+			if (w != null)
+				results.put(compacted.getQuery().stmt(), compacted.getQuery().var(), w);
+		}
 		return results;
 	}
 	
@@ -1311,6 +1478,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
 				fw.getValue().getFieldAutomaton().registerListener(new ExtractAllocationSiteStateListener(fw.getValue().getFieldAutomaton().getInitialState(), query, (ForwardQuery) fw.getKey(), results));
 			}
 		}
+		for (CompactQueryResult<W> compacted : compactedQueries.values()) {
+			if (compacted.getNodesPointingToAllocation().containsKey(query.asNode()))
+				results.add((ForwardQuery) compacted.getQuery());
+		}
 		return results;
 	}
 	
@@ -1341,7 +1512,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			//Otherwise we cannot register this listener twice.
 			return System.identityHashCode(this);
 		}
@@ -1386,15 +1557,23 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
 		private INode<Node<Statement, Val>> allocNode;
 		private Collection<Field> fields;
+		// The hash code of fields, maintained along the chain of listeners instead of rehashing each copy.
+		private int fieldsHash;
 		private Set<AccessPath> results;
 		private Val base;
 
 		public ExtractAccessPathStateListener(INode<Node<Statement, Val>> state, INode<Node<Statement, Val>> allocNode,
 				Val base, Collection<Field> fields, Set<AccessPath> results) {
+			this(state, allocNode, base, fields, fields.hashCode(), results);
+		}
+
+		private ExtractAccessPathStateListener(INode<Node<Statement, Val>> state, INode<Node<Statement, Val>> allocNode,
+				Val base, Collection<Field> fields, int fieldsHash, Set<AccessPath> results) {
 			super(state);
 			this.allocNode = allocNode;
 			this.base = base;
 			this.fields = fields;
+			this.fieldsHash = fieldsHash;
 			this.results = results;
 		}
 
@@ -1404,17 +1583,23 @@ public abstract class WeightedBoomerang<W extends Weight> {
 			if(t.getLabel().equals(Field.epsilon()))
 				return;
 			Collection<Field> copiedFields = (fields instanceof Set ? Sets.newHashSet(fields) : Lists.newArrayList(fields));
+			int copiedHash = fieldsHash;
 			if (!t.getLabel().equals(Field.empty())) {
 				if(copiedFields.contains(t.getLabel())){
 					copiedFields = Sets.newHashSet(fields);
+					copiedHash = copiedFields.hashCode();
+				}
+				if (copiedFields.add(t.getLabel())) {
+					// Incremental form of List.hashCode() and Set.hashCode().
+					copiedHash = copiedFields instanceof Set ? copiedHash + t.getLabel().hashCode()
+							: 31 * copiedHash + t.getLabel().hashCode();
 				}
-				copiedFields.add(t.getLabel());
 			}
 			if (t.getTarget().equals(allocNode)) {
 				results.add(new AccessPath(base, copiedFields));
 			} else {
-				weightedPAutomaton.registerListener(
-							new ExtractAccessPathStateListener(t.getTarget(), allocNode, base, copiedFields, results));
+				weightedPAutomaton.registerListener(new ExtractAccessPathStateListener(t.getTarget(), allocNode, base,
+						copiedFields, copiedHash, results));
 			}
 		}
 
@@ -1424,13 +1609,13 @@ public abstract class WeightedBoomerang<W extends Weight> {
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((allocNode == null) ? 0 : allocNode.hashCode());
 			result = prime * result + ((base == null) ? 0 : base.hashCode());
-			result = prime * result + ((fields == null) ? 0 : fields.hashCode());
+			result = prime * result + fieldsHash;
 			return result;
 		}
 
@@ -1471,8 +1656,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 	
 	public Table<Statement, Val, W>  getObjectDestructingStatements(
 			ForwardQuery seed) {
-		AbstractBoomerangSolver<W> solver = queryToSolvers.get(seed);
-		if(solver == null)
+		if(!queryToSolvers.containsKey(seed) && !compactedQueries.containsKey(seed))
 			return HashBasedTable.create();
 		Table<Statement, Val, W> res = getResults(seed);
 		Set<SootMethod> visitedMethods = Sets.newHashSet();
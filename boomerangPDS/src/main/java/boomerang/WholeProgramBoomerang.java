@@ -74,6 +74,9 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
 		};
 		for(Query s :seedFactory.computeSeeds()){
 			solve(s);
+			if(evictSeeds() && !hasCrossQueryFlows(s)){
+				compact(s);
+			}
 		}
 		
 		long after = System.currentTimeMillis();
@@ -86,6 +89,14 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
 	
 
 	
+	/**
+	 * Whether {@link #wholeProgramAnalysis()} compacts each seed without cross query flows right after solving it,
+	 * see {@link #compact(Query)}. Seeds solved later that reach an evicted seed recompute its solver.
+	 */
+	protected boolean evictSeeds() {
+		return false;
+	}
+
 	@Override
 	protected void backwardSolve(BackwardQuery query) {
 	}
@@ -189,9 +189,9 @@ public abstract class SeedFactory<W extends Weight> {
 		}
 
 		@Override
-		public int hashCode() {
+		protected int computeHashCode() {
 			final int prime = 31;
-			int result = super.hashCode();
+			int result = super.computeHashCode();
 			result = prime * result + getOuterType().hashCode();
 			result = prime * result + ((query == null) ? 0 : query.hashCode());
 			return result;
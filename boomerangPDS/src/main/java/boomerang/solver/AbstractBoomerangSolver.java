@@ -11,21 +11,22 @@
  *******************************************************************************/
 package boomerang.solver;
 
-import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
+import boomerang.AbstractBoomerangOptions;
 import boomerang.BoomerangOptions;
 import boomerang.Query;
 import boomerang.jimple.AllocVal;
@@ -47,6 +48,8 @@ import soot.jimple.StaticFieldRef;
 import soot.jimple.Stmt;
 import sync.pds.solver.SyncPDSSolver;
 import sync.pds.solver.WitnessNode;
+import sync.pds.solver.Worklist;
+import sync.pds.solver.Worklists;
 import sync.pds.solver.nodes.AllocNode;
 import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
@@ -68,7 +71,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
 	protected final InterproceduralCFG<Unit, SootMethod> icfg;
 	protected final Query query;
 	private boolean INTERPROCEDURAL = true;
-	private final Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> generatedFieldState;
+	private final Table<INode<Node<Statement, Val>>, Field, INode<Node<Statement, Val>>> generatedFieldState;
 	private Multimap<SootMethod, Transition<Field, INode<Node<Statement, Val>>>> perMethodFieldTransitions = HashMultimap
 			.create();
 	private Multimap<SootMethod, MethodBasedFieldTransitionListener<W>> perMethodFieldTransitionsListener = HashMultimap
@@ -85,11 +88,12 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
 	private Collection<SootMethod> scopeOpeningReachableMethods = Sets.newHashSet();
 	protected final BoomerangOptions options;
 	public AbstractBoomerangSolver(InterproceduralCFG<Unit, SootMethod> icfg,
-			Query query, Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
+			Query query, Table<INode<Node<Statement, Val>>, Field, INode<Node<Statement, Val>>> genField,
 			BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
 			 NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
 		super(new SingleNode<Val>(query.asNode().fact()), new AllocNode<Node<Statement, Val>>(query.asNode()),
-				options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries);
+				options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries,
+				AbstractBoomerangOptions.worklist(options));
 		this.options = options;
 		this.icfg = icfg;
 		this.query = query;
@@ -194,11 +198,12 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
 	}
 
 	public INode<Node<Statement, Val>> generateFieldState(final INode<Node<Statement, Val>> d, final Field loc) {
-		Entry<INode<Node<Statement, Val>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-		if (!generatedFieldState.containsKey(e)) {
-			generatedFieldState.put(e, new GeneratedState<Node<Statement, Val>, Field>(d, loc));
+		INode<Node<Statement, Val>> state = generatedFieldState.get(d, loc);
+		if (state == null) {
+			state = new GeneratedState<Node<Statement, Val>, Field>(d, loc);
+			generatedFieldState.put(d, loc, state);
 		}
-		return generatedFieldState.get(e);
+		return state;
 	}
 
 	@Override
@@ -474,6 +479,18 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
 
 	}
 
+	/**
+	 * A worklist that batches the nodes of one method, to be returned by {@link AbstractBoomerangOptions#worklist()}.
+	 */
+	public static Worklist<WitnessNode<Statement, Val, Field>> methodLocalWorklist() {
+		return Worklists.groupedBy(new Function<WitnessNode<Statement, Val, Field>, SootMethod>() {
+			@Override
+			public SootMethod apply(WitnessNode<Statement, Val, Field> node) {
+				return node.stmt().getMethod();
+			}
+		});
+	}
+
 	protected abstract void onCallFlow(SootMethod callee, Stmt callSite, Val value, Collection<? extends State> res);
 
 	public Set<Statement> getSuccsOf(Statement stmt) {
@@ -558,6 +575,10 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
 		}
 	}
 
+	public Collection<SootMethod> getReachableMethods() {
+		return Collections.unmodifiableCollection(reachableMethods);
+	}
+
 	public void registerReachableMethodListener(ReachableMethodListener<W> reachableMethodListener) {
 		if (reachableMethodListeners.add(reachableMethodListener)) {
 			for (SootMethod m : Lists.newArrayList(reachableMethods)) {
@@ -18,7 +18,6 @@ import boomerang.jimple.Field;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import soot.SootMethod;
 import sync.pds.solver.nodes.INode;
@@ -28,7 +27,6 @@ import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.interfaces.WPAUpdateListener;
 
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -36,16 +34,15 @@ import java.util.Set;
  */
 public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W> {
 
-    private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private Set<Query> queries = Sets.newHashSet();
     private Set<SootMethod> callVisitedMethods = Sets.newHashSet();
     private Set<SootMethod> fieldVisitedMethods = Sets.newHashSet();
 
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
-        if (queries.containsKey(key)) {
+        if (!queries.add(key)) {
             return;
         }
-        queries.put(key, solver);
 
         solver.getCallAutomaton().registerListener(new WPAUpdateListener<Statement, INode<Val>, W>() {
             @Override
@@ -82,14 +79,14 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
         String s = "=========== Boomerang Stats =============\n";
         int forwardQuery = 0;
         int backwardQuery = 0;
-        for(Query q : queries.keySet()){
+        for(Query q : queries){
             if(q instanceof ForwardQuery) {
                 forwardQuery++;
             }
             else
                 backwardQuery++;
         }
-        s+= String.format("Queries (Forward/Backward/Total): \t\t %s/%s/%s\n", forwardQuery,backwardQuery,queries.keySet().size());
+        s+= String.format("Queries (Forward/Backward/Total): \t\t %s/%s/%s\n", forwardQuery,backwardQuery,queries.size());
         s+= String.format("Visited Methods (Field/Call): \t\t %s/%s/(%s/%s)\n", fieldVisitedMethods.size(), callVisitedMethods.size(), Sets.difference(fieldVisitedMethods,callVisitedMethods).size(), Sets.difference(callVisitedMethods,fieldVisitedMethods).size());
         s+="\n";
         return s;
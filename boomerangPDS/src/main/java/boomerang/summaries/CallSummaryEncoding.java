@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import sync.pds.solver.nodes.AllocNode;
+import sync.pds.solver.nodes.GeneratedState;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.SummaryInput;
+import wpds.impl.SummaryOutput;
+import wpds.impl.Weight;
+
+/**
+ * Encodes the call summaries of a {@link boomerang.WeightedBoomerang}.
+ */
+public class CallSummaryEncoding<W extends Weight> extends JimpleSummaryEncoding<Statement, INode<Val>, W> {
+
+	private static final int SINGLE = 0;
+	private static final int ALLOC = 1;
+	private static final int GENERATED = 2;
+
+	public CallSummaryEncoding(W one) {
+		super(one);
+	}
+
+	@Override
+	public void writeState(INode<Val> state, SummaryOutput out) {
+		if (state instanceof GeneratedState) {
+			GeneratedState<Val, Statement> generated = (GeneratedState<Val, Statement>) state;
+			out.writeInt(GENERATED);
+			writeState(generated.node(), out);
+			writeStatement(generated.location(), out);
+		} else if (state.getClass() == AllocNode.class) {
+			out.writeInt(ALLOC);
+			writeVal(state.fact(), out);
+		} else if (state.getClass() == SingleNode.class) {
+			out.writeInt(SINGLE);
+			writeVal(state.fact(), out);
+		} else {
+			throw new IllegalArgumentException("Cannot encode " + state);
+		}
+	}
+
+	@Override
+	public INode<Val> readState(SummaryInput in) {
+		int tag = in.readInt();
+		switch (tag) {
+		case GENERATED:
+			INode<Val> node = readState(in);
+			return new GeneratedState<Val, Statement>(node, readStatement(in));
+		case ALLOC:
+			return new AllocNode<Val>(readVal(in));
+		case SINGLE:
+			return new SingleNode<Val>(readVal(in));
+		default:
+			throw new IllegalArgumentException("Unknown state tag " + tag);
+		}
+	}
+
+	@Override
+	public void writeLocation(Statement location, SummaryOutput out) {
+		writeStatement(location, out);
+	}
+
+	@Override
+	public Statement readLocation(SummaryInput in) {
+		return readStatement(in);
+	}
+}
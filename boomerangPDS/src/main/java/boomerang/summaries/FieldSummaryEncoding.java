@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import sync.pds.solver.nodes.AllocNode;
+import sync.pds.solver.nodes.GeneratedState;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.SummaryInput;
+import wpds.impl.SummaryOutput;
+import wpds.impl.Weight;
+
+/**
+ * Encodes the field summaries of a {@link boomerang.WeightedBoomerang}.
+ */
+public class FieldSummaryEncoding<W extends Weight>
+		extends JimpleSummaryEncoding<Field, INode<Node<Statement, Val>>, W> {
+
+	private static final int SINGLE = 0;
+	private static final int ALLOC = 1;
+	private static final int GENERATED = 2;
+
+	public FieldSummaryEncoding(W one) {
+		super(one);
+	}
+
+	@Override
+	public void writeState(INode<Node<Statement, Val>> state, SummaryOutput out) {
+		if (state instanceof GeneratedState) {
+			GeneratedState<Node<Statement, Val>, Field> generated = (GeneratedState<Node<Statement, Val>, Field>) state;
+			out.writeInt(GENERATED);
+			writeState(generated.node(), out);
+			writeField(generated.location(), out);
+		} else if (state.getClass() == AllocNode.class) {
+			out.writeInt(ALLOC);
+			writeNode(state.fact(), out);
+		} else if (state.getClass() == SingleNode.class) {
+			out.writeInt(SINGLE);
+			writeNode(state.fact(), out);
+		} else {
+			throw new IllegalArgumentException("Cannot encode " + state);
+		}
+	}
+
+	@Override
+	public INode<Node<Statement, Val>> readState(SummaryInput in) {
+		int tag = in.readInt();
+		switch (tag) {
+		case GENERATED:
+			INode<Node<Statement, Val>> node = readState(in);
+			return new GeneratedState<Node<Statement, Val>, Field>(node, readField(in));
+		case ALLOC:
+			return new AllocNode<Node<Statement, Val>>(readNode(in));
+		case SINGLE:
+			return new SingleNode<Node<Statement, Val>>(readNode(in));
+		default:
+			throw new IllegalArgumentException("Unknown state tag " + tag);
+		}
+	}
+
+	private void writeNode(Node<Statement, Val> node, SummaryOutput out) {
+		if (node.getClass() != Node.class)
+			throw new IllegalArgumentException("Cannot encode " + node);
+		writeStatement(node.stmt(), out);
+		writeVal(node.fact(), out);
+	}
+
+	private Node<Statement, Val> readNode(SummaryInput in) {
+		Statement stmt = readStatement(in);
+		return new Node<Statement, Val>(stmt, readVal(in));
+	}
+
+	@Override
+	public void writeLocation(Field location, SummaryOutput out) {
+		writeField(location, out);
+	}
+
+	@Override
+	public Field readLocation(SummaryInput in) {
+		return readField(in);
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import boomerang.jimple.AllocVal;
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.StaticFieldVal;
+import boomerang.jimple.Val;
+import soot.Local;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import wpds.impl.SummaryEncoding;
+import wpds.impl.SummaryInput;
+import wpds.impl.SummaryOutput;
+import wpds.impl.Weight;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.wildcard.ExclusionWildcard;
+
+/**
+ * Base of the summary encodings of Boomerang. Methods and fields are stored by their Soot signature, statements by
+ * their index in the active body of their method and locals by their name. A summary file can therefore only be
+ * loaded into a Scene that contains the same bodies, e.g. the same JDK version.
+ * <p>
+ * Only the weight <code>one</code> is encoded, subclasses override {@link #writeWeight(Weight, SummaryOutput)} and
+ * {@link #readWeight(SummaryInput)} to store other weights.
+ */
+public abstract class JimpleSummaryEncoding<N extends Location, D extends State, W extends Weight>
+		implements SummaryEncoding<N, D, W> {
+
+	private static final int EPSILON = 0;
+	private static final int EMPTY = 1;
+	private static final int WILDCARD = 2;
+	private static final int ARRAY = 3;
+	private static final int EXCLUSION_WILDCARD = 4;
+	private static final int SOOT_FIELD = 5;
+
+	private static final int ZERO = 0;
+	private static final int LOCAL = 1;
+	private static final int STATIC_FIELD = 2;
+
+	private final W one;
+	private final Map<SootMethod, Map<Unit, Integer>> unitIndices = Maps.newHashMap();
+	private final Map<SootMethod, List<Unit>> units = Maps.newHashMap();
+
+	protected JimpleSummaryEncoding(W one) {
+		this.one = one;
+	}
+
+	@Override
+	public void writeWeight(W weight, SummaryOutput out) {
+		if (!weight.equals(one))
+			throw new IllegalArgumentException("Weight other than one: " + weight);
+	}
+
+	@Override
+	public W readWeight(SummaryInput in) {
+		return one;
+	}
+
+	protected void writeStatement(Statement statement, SummaryOutput out) {
+		if (statement.equals(Statement.epsilon())) {
+			out.writeInt(-1);
+			return;
+		}
+		SootMethod method = statement.getMethod();
+		Map<Unit, Integer> indices = unitIndices.get(method);
+		if (indices == null) {
+			indices = Maps.newHashMap();
+			for (Unit u : method.getActiveBody().getUnits())
+				indices.put(u, indices.size());
+			unitIndices.put(method, indices);
+		}
+		Integer index = indices.get(statement.getUnit().get());
+		if (index == null)
+			throw new IllegalArgumentException("Cannot encode " + statement + ", not in the body of " + method);
+		out.writeInt(index);
+		out.writeString(method.getSignature());
+	}
+
+	protected Statement readStatement(SummaryInput in) {
+		int index = in.readInt();
+		if (index < 0)
+			return Statement.epsilon();
+		SootMethod method = Scene.v().getMethod(in.readString());
+		List<Unit> body = units.get(method);
+		if (body == null) {
+			body = Lists.newArrayList(method.getActiveBody().getUnits());
+			units.put(method, body);
+		}
+		return new Statement((Stmt) body.get(index), method);
+	}
+
+	protected void writeVal(Val val, SummaryOutput out) {
+		if (val.equals(Val.zero())) {
+			out.writeInt(ZERO);
+		} else if (val instanceof StaticFieldVal) {
+			out.writeInt(STATIC_FIELD);
+			out.writeString(((StaticFieldVal) val).field().getSignature());
+			out.writeString(val.m().getSignature());
+		} else if (!(val instanceof AllocVal) && val.value() instanceof Local) {
+			out.writeInt(LOCAL);
+			out.writeString(((Local) val.value()).getName());
+			out.writeString(val.m().getSignature());
+		} else {
+			throw new IllegalArgumentException("Cannot encode " + val);
+		}
+	}
+
+	protected Val readVal(SummaryInput in) {
+		int kind = in.readInt();
+		if (kind == ZERO)
+			return Val.zero();
+		if (kind == STATIC_FIELD) {
+			SootField field = Scene.v().getField(in.readString());
+			SootMethod method = Scene.v().getMethod(in.readString());
+			return new StaticFieldVal(Jimple.v().newStaticFieldRef(field.makeRef()), field, method);
+		}
+		if (kind != LOCAL)
+			throw new IllegalArgumentException("Unknown value tag " + kind);
+		String name = in.readString();
+		SootMethod method = Scene.v().getMethod(in.readString());
+		for (Local l : method.getActiveBody().getLocals()) {
+			if (l.getName().equals(name))
+				return new Val(l, method);
+		}
+		throw new IllegalArgumentException("No local " + name + " in " + method);
+	}
+
+	protected void writeField(Field field, SummaryOutput out) {
+		if (field instanceof ExclusionWildcard) {
+			out.writeInt(EXCLUSION_WILDCARD);
+			writeField((Field) ((ExclusionWildcard<?>) field).excludes(), out);
+		} else if (field.equals(Field.epsilon())) {
+			out.writeInt(EPSILON);
+		} else if (field.equals(Field.empty())) {
+			out.writeInt(EMPTY);
+		} else if (field.equals(Field.wildcard())) {
+			out.writeInt(WILDCARD);
+		} else if (field.equals(Field.array())) {
+			out.writeInt(ARRAY);
+		} else {
+			out.writeInt(SOOT_FIELD);
+			out.writeString(field.getSootField().getSignature());
+		}
+	}
+
+	protected Field readField(SummaryInput in) {
+		int tag = in.readInt();
+		switch (tag) {
+		case EPSILON:
+			return Field.epsilon();
+		case EMPTY:
+			return Field.empty();
+		case WILDCARD:
+			return Field.wildcard();
+		case ARRAY:
+			return Field.array();
+		case EXCLUSION_WILDCARD:
+			return Field.exclusionWildcard(readField(in));
+		case SOOT_FIELD:
+			return new Field(Scene.v().getField(in.readString()));
+		default:
+			throw new IllegalArgumentException("Unknown field tag " + tag);
+		}
+	}
+}
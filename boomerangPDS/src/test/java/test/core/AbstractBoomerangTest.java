@@ -26,6 +26,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
 import boomerang.BackwardQuery;
 import boomerang.Boomerang;
@@ -33,6 +34,7 @@ import boomerang.DefaultBoomerangOptions;
 import boomerang.ForwardQuery;
 import boomerang.IntAndStringBoomerangOptions;
 import boomerang.Query;
+import boomerang.WeightedBoomerang;
 import boomerang.WholeProgramBoomerang;
 import boomerang.debugger.Debugger;
 import boomerang.debugger.IDEVizDebugger;
@@ -350,11 +352,39 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
 				}
 			}
 			solver.debugOutput();
-			
+			checkCompaction(solver, query);
 		}
 		return results;
 	}
 
+	private void checkCompaction(Boomerang solver, Query query) {
+		Table<Statement, Val, NoWeight> results = solver.getResults(query);
+		Set<Node<Statement, Val>> reachableStates = Sets.newHashSet(solver.getForwardReachableStates());
+		Set<ForwardQuery> allocationSites = query instanceof BackwardQuery
+				? solver.getAllocationSites((BackwardQuery) query) : Collections.<ForwardQuery>emptySet();
+		if (!solver.hasCrossQueryFlows(query)) {
+			solver.compact(query);
+			checkSameResults("compact()", solver, query, results, reachableStates, allocationSites);
+			// Solving the compacted query again recomputes its solver.
+			solver.solve(query);
+			checkSameResults("recomputation", solver, query, results, reachableStates, allocationSites);
+		}
+		solver.compactAll();
+		checkSameResults("compactAll()", solver, query, results, reachableStates, allocationSites);
+	}
+
+	private void checkSameResults(String step, WeightedBoomerang<NoWeight> solver, Query query,
+			Table<Statement, Val, NoWeight> results, Set<Node<Statement, Val>> reachableStates,
+			Set<ForwardQuery> allocationSites) {
+		if (!results.equals(solver.getResults(query)))
+			throw new RuntimeException("Results of " + query + " differ after " + step);
+		if (!reachableStates.equals(Sets.newHashSet(solver.getForwardReachableStates())))
+			throw new RuntimeException("Forward reachable states differ after " + step);
+		if (query instanceof BackwardQuery
+				&& !allocationSites.equals(solver.getAllocationSites((BackwardQuery) query)))
+			throw new RuntimeException("Allocation sites of " + query + " differ after " + step);
+	}
+
 	private void checkContainsAllExpectedAccessPath(Set<AccessPath> allAliases) {
 		HashSet<AccessPath> expected = Sets.newHashSet(expectedAccessPaths);
 		expected.removeAll(allAliases);
@@ -439,9 +469,25 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
 
 		solver.debugOutput();
 		compareQuery(allocationSites, results, AnalysisMode.WholeProgram);
+		checkSeedEviction(solver);
 		System.out.println();
 	}
 
+	private void checkSeedEviction(WholeProgramBoomerang<NoWeight> solver) {
+		for (Query q : Lists.newArrayList(solver.getSolvers().keySet())) {
+			if (solver.hasCrossQueryFlows(q))
+				continue;
+			Table<Statement, Val, NoWeight> results = solver.getResults(q);
+			Set<Node<Statement, Val>> reachableStates = Sets.newHashSet(solver.getForwardReachableStates());
+			solver.compact(q);
+			checkSameResults("compact()", solver, q, results, reachableStates, Collections.<ForwardQuery>emptySet());
+			// Requesting the solver of the compacted query recomputes it.
+			solver.getSolvers().getOrCreate(q);
+			checkSameResults("recomputation", solver, q, results, reachableStates,
+					Collections.<ForwardQuery>emptySet());
+		}
+	}
+
 	private boolean allocatesObjectOfInterest(NewExpr rightOp) {
 		SootClass interfaceType = Scene.v().getSootClass("test.core.selfrunning.AllocatedObject");
 		if (!interfaceType.isInterface())
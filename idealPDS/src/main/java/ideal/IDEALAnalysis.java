@@ -17,7 +17,9 @@ import java.util.Map;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Maps;
 
+import boomerang.BoomerangOptions;
 import boomerang.Query;
+import boomerang.SummaryCaches;
 import boomerang.WeightedForwardQuery;
 import boomerang.seedfactory.SeedFactory;
 import heros.InterproceduralCFG;
@@ -36,12 +38,15 @@ public class IDEALAnalysis<W extends Weight> {
 	private final InterproceduralCFG<Unit, SootMethod> icfg;
 	protected final IDEALAnalysisDefinition<W> analysisDefinition;
 	private final SeedFactory<W> seedFactory;
+	private final SummaryCaches<W> summaryCaches;
 	private int timeoutCount;
 	private int seedCount;
 
 	public IDEALAnalysis(final IDEALAnalysisDefinition<W> analysisDefinition) {
 		this.analysisDefinition = analysisDefinition;
 		this.icfg = analysisDefinition.icfg();
+		// The forward call summaries carry the weights of the seed.
+		this.summaryCaches = new SummaryCaches<W>(analysisDefinition.summaryCacheSize(), false);
 		this.seedFactory = new SeedFactory<W>(){
 
 			@Override
@@ -85,10 +90,13 @@ public class IDEALAnalysis<W extends Weight> {
 			System.err.println("Analyzed (finished,timedout): \t (" + (seedCount -timeoutCount)+ "," + timeoutCount + ") of "+ initialSeeds.size() + " seeds! ");
 		}
 //		System.out.println("Analysis time for all seeds: "+ watch.elapsed());
+		BoomerangOptions options = analysisDefinition.boomerangOptions();
+		if (options.callSummaries() || options.fieldSummaries())
+			System.err.println(summaryCaches);
 		return seedToSolver;
 	}
 	public IDEALSeedSolver<W> run(Query seed) {
-		IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(analysisDefinition, seed, seedFactory);
+		IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(analysisDefinition, seed, seedFactory, summaryCaches);
 		idealAnalysis.run();
 		return idealAnalysis;
 	}
@@ -97,6 +105,10 @@ public class IDEALAnalysis<W extends Weight> {
 			System.out.println(analysisDefinition);
 	}
 
+	public SummaryCaches<W> getSummaryCaches() {
+		return summaryCaches;
+	}
+
 	public Collection<Query> computeSeeds() {
 		return seedFactory.computeSeeds();
 	}
@@ -15,6 +15,7 @@ import java.util.Collection;
 
 import boomerang.BoomerangOptions;
 import boomerang.DefaultBoomerangOptions;
+import boomerang.SummaryCaches;
 import boomerang.WeightedForwardQuery;
 import boomerang.debugger.Debugger;
 import boomerang.jimple.Statement;
@@ -72,4 +73,12 @@ public abstract class IDEALAnalysisDefinition<W extends Weight> {
 	public BoomerangOptions boomerangOptions() {
 		return new DefaultBoomerangOptions();
 	}
+
+	/**
+	 * The number of call and field summaries each {@link SummaryCaches} keeps for reuse across seeds. Summaries are
+	 * only computed if enabled in the {@link #boomerangOptions()}.
+	 */
+	public long summaryCacheSize() {
+		return 10000;
+	}
 }
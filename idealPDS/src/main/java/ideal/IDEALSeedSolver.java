@@ -46,13 +46,23 @@ public class IDEALSeedSolver<W extends Weight> {
 	private final Stopwatch analysisStopwatch = Stopwatch.createUnstarted();
 	private final SeedFactory<W> seedFactory;
 	private WeightedBoomerang<W> timedoutSolver;
+	private final SummaryCaches<W> summaryCaches;
 
     public enum Phases {
 		ObjectFlow, ValueFlow
 	};
 
 	public IDEALSeedSolver(IDEALAnalysisDefinition<W> analysisDefinition, Query seed,  SeedFactory<W> seedFactory) {
+		this(analysisDefinition, seed, seedFactory, null);
+	}
+
+	/**
+	 * Both phases read and store their summaries in <code>summaryCaches</code> if not null.
+	 */
+	public IDEALSeedSolver(IDEALAnalysisDefinition<W> analysisDefinition, Query seed, SeedFactory<W> seedFactory,
+			SummaryCaches<W> summaryCaches) {
 		this.analysisDefinition = analysisDefinition;
+		this.summaryCaches = summaryCaches;
 		this.seed = seed;
 		this.seedFactory = seedFactory;
 		this.idealWeightFunctions = new IDEALWeightFunctions<W>(analysisDefinition.weightFunctions());
@@ -82,7 +92,7 @@ public class IDEALSeedSolver<W extends Weight> {
 	}
 
 	private WeightedBoomerang<W> createSolver() {
-		return new WeightedBoomerang<W>(analysisDefinition.boomerangOptions()) {
+		return new WeightedBoomerang<W>(analysisDefinition.boomerangOptions(), summaryCaches) {
 			@Override
 			public BiDiInterproceduralCFG<Unit, SootMethod> icfg() {
 				return analysisDefinition.icfg();
@@ -11,45 +11,130 @@
  *******************************************************************************/
 package typestate;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 
 import typestate.finiteautomata.ITransition;
 import typestate.finiteautomata.State;
 import typestate.finiteautomata.Transition;
+import wpds.impl.Interner;
 import wpds.impl.Weight;
 
+/**
+ * A set of typestate transitions, stored as boolean relation matrix over the typestate states. Row
+ * <code>i</code> holds the targets of the state with id <code>i</code> as bit set of <code>words</code>
+ * longs, a typestate machine with up to 64 states needs a single long per row. The identity transition
+ * {@link Transition#identity()} is kept as flag. {@link #extendWith(Weight)} is boolean matrix
+ * multiplication, {@link #combineWith(Weight)} is bitwise or. The state ids are assigned by an {@link Interner}
+ * owned by the typestate machine, see
+ * {@link typestate.finiteautomata.TypeStateMachineWeightFunctions#stateIds()}, only functions sharing
+ * that interner can be extended or combined.
+ */
 public class TransitionFunction extends Weight {
 
-	private final Set<ITransition> value;
+	private final long[] relation;
+
+	private final int words;
+
+	private final boolean identity;
+
+	private final Interner<State> stateIds;
 
 	private final String rep;
 
+	private int hashCode;
+
 	private static TransitionFunction one;
 
 	private static TransitionFunction zero;
 
-	public TransitionFunction(Set<? extends ITransition> trans) {
-		this.value = new HashSet<>(trans);
+	public TransitionFunction(Set<? extends ITransition> trans, Interner<State> stateIds) {
+		this.stateIds = stateIds;
+		boolean identity = false;
+		int maxFrom = -1;
+		int maxTo = -1;
+		int[] ids = new int[2 * trans.size()];
+		int i = 0;
+		for (ITransition t : trans) {
+			if (t.equals(Transition.identity())) {
+				identity = true;
+				continue;
+			}
+			ids[i] = id(t.from());
+			ids[i + 1] = id(t.to());
+			maxFrom = Math.max(maxFrom, ids[i]);
+			maxTo = Math.max(maxTo, ids[i + 1]);
+			i += 2;
+		}
+		int words = maxTo / 64 + 1;
+		long[] relation = new long[(maxFrom + 1) * words];
+		for (int j = 0; j < i; j += 2) {
+			relation[ids[j] * words + ids[j + 1] / 64] |= 1L << ids[j + 1];
+		}
+		this.relation = relation;
+		this.words = words;
+		this.identity = identity;
 		this.rep = null;
 	}
 
-	public TransitionFunction(ITransition trans) {
-		this(new HashSet<>(Collections.singleton(trans)));
+	public TransitionFunction(ITransition trans, Interner<State> stateIds) {
+		this(Collections.singleton(trans), stateIds);
 	}
 
 	private TransitionFunction(String rep) {
-		this.value = Sets.newHashSet();
+		this.stateIds = null;
+		this.relation = new long[0];
+		this.words = 1;
+		this.identity = false;
 		this.rep = rep;
 	}
 
+	private TransitionFunction(long[] relation, int words, boolean identity, Interner<State> stateIds) {
+		this.stateIds = stateIds;
+		// Trailing empty rows and columns are dropped, equal relations have equal arrays.
+		int rows = 0;
+		int usedWords = 1;
+		for (int r = 0; r < relation.length / words; r++) {
+			for (int w = 0; w < words; w++) {
+				if (relation[r * words + w] != 0) {
+					rows = r + 1;
+					usedWords = Math.max(usedWords, w + 1);
+				}
+			}
+		}
+		if (usedWords == words && rows * words == relation.length) {
+			this.relation = relation;
+		} else {
+			this.relation = new long[rows * usedWords];
+			for (int r = 0; r < rows; r++) {
+				System.arraycopy(relation, r * words, this.relation, r * usedWords, usedWords);
+			}
+		}
+		this.words = usedWords;
+		this.identity = identity;
+		this.rep = null;
+	}
+
 	public Collection<ITransition> values(){
-		return Lists.newArrayList(value);
+		List<ITransition> res = Lists.newArrayList();
+		if (identity)
+			res.add(Transition.identity());
+		for (int r = 0; r < rows(); r++) {
+			for (int w = 0; w < words; w++) {
+				long bits = relation[r * words + w];
+				while (bits != 0) {
+					int to = w * 64 + Long.numberOfTrailingZeros(bits);
+					res.add(new Transition(state(r), state(to)));
+					bits &= bits - 1;
+				}
+			}
+		}
+		return res;
 	}
 	
 	@Override
@@ -61,24 +146,30 @@ public class TransitionFunction extends Weight {
 		if(other.equals(zero()) || this.equals(zero())){
 			return zero();
 		}
-		TransitionFunction func = (TransitionFunction) other;
-		Set<ITransition> otherTransitions = func.value;
-		Set<ITransition> ress = new HashSet<>();
-		for (ITransition first : value) {
-			for (ITransition second : otherTransitions) {
-				if (second.equals(Transition.identity())) {
-					ress.add(first);
-				} else if (first.equals(Transition.identity())) {
-					ress.add(second);
-				} else if (first.to().equals(second.from())){
-					ress.add(new Transition(first.from(), second.to()));
+		TransitionFunction func = sameMachine(other);
+		int resWords = Math.max(words, func.words);
+		int resRows = identity ? Math.max(rows(), func.rows()) : rows();
+		long[] res = new long[resRows * resWords];
+		for (int r = 0; r < rows(); r++) {
+			for (int w = 0; w < words; w++) {
+				long bits = relation[r * words + w];
+				while (bits != 0) {
+					int via = w * 64 + Long.numberOfTrailingZeros(bits);
+					if (via < func.rows())
+						orRow(func.relation, func.words, via, res, resWords, r);
+					bits &= bits - 1;
 				}
 			}
 		}
-		if(ress.isEmpty()){
+		if (func.identity)
+			or(relation, words, res, resWords);
+		if (identity)
+			or(func.relation, func.words, res, resWords);
+		boolean resIdentity = identity && func.identity;
+		if (!resIdentity && isEmpty(res)) {
 			return zero();
 		}
-		return new TransitionFunction(ress);
+		return new TransitionFunction(res, resWords, resIdentity, stateIds);
 	}
 
 	@Override
@@ -94,15 +185,79 @@ public class TransitionFunction extends Weight {
 		}
 		TransitionFunction func = (TransitionFunction) other;
 		if (other.equals(one()) || this.equals(one())) {
-			Set<ITransition> transitions = new HashSet<>((other.equals(one()) ? value : func.value));
-			transitions.add(Transition.identity());
-			return new TransitionFunction(transitions);
+			TransitionFunction f = other.equals(one()) ? this : func;
+			if (f.identity)
+				return f;
+			return new TransitionFunction(f.relation, f.words, true, f.stateIds);
 		}
-		Set<ITransition> transitions = new HashSet<>(func.value);
-		transitions.addAll(value);
-		return new TransitionFunction(transitions);
+		sameMachine(func);
+		if (contains(func))
+			return this;
+		int resWords = Math.max(words, func.words);
+		long[] res = new long[Math.max(rows(), func.rows()) * resWords];
+		or(relation, words, res, resWords);
+		or(func.relation, func.words, res, resWords);
+		return new TransitionFunction(res, resWords, identity || func.identity, stateIds);
 	};
 
+	private boolean contains(TransitionFunction func) {
+		if (func.identity && !identity)
+			return false;
+		for (int r = 0; r < func.rows(); r++) {
+			for (int w = 0; w < func.words; w++) {
+				long bits = func.relation[r * func.words + w];
+				if (bits == 0)
+					continue;
+				if (r >= rows() || w >= words || (relation[r * words + w] & bits) != bits)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private TransitionFunction sameMachine(Weight other) {
+		TransitionFunction func = (TransitionFunction) other;
+		if (func.stateIds != stateIds)
+			throw new IllegalArgumentException("Transition functions of different typestate machines");
+		return func;
+	}
+
+	private int rows() {
+		return relation.length / words;
+	}
+
+	private static void orRow(long[] src, int srcWords, int srcRow, long[] dest, int destWords, int destRow) {
+		for (int w = 0; w < srcWords; w++) {
+			dest[destRow * destWords + w] |= src[srcRow * srcWords + w];
+		}
+	}
+
+	private static void or(long[] src, int srcWords, long[] dest, int destWords) {
+		for (int r = 0; r < src.length / srcWords; r++) {
+			orRow(src, srcWords, r, dest, destWords, r);
+		}
+	}
+
+	private static boolean isEmpty(long[] relation) {
+		for (long bits : relation) {
+			if (bits != 0)
+				return false;
+		}
+		return true;
+	}
+
+	private int id(State state) {
+		synchronized (stateIds) {
+			return stateIds.intern(state);
+		}
+	}
+
+	private State state(int id) {
+		synchronized (stateIds) {
+			return stateIds.get(id);
+		}
+	}
+
 	public static TransitionFunction one() {
 		if(one == null)
 			one = new TransitionFunction("ONE");
@@ -118,15 +273,19 @@ public class TransitionFunction extends Weight {
 	public String toString() {
 		if(this.rep != null)
 			return this.rep;
-		return "{Func:" + value.toString() + "}";
+		return "{Func:" + values().toString() + "}";
 	}
 
 	@Override
 	public int hashCode() {
+		if (hashCode != 0)
+			return hashCode;
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((rep == null) ? 0 : rep.hashCode());
-		result = prime * result + ((value == null) ? 0 : value.hashCode());
+		result = prime * result + Arrays.hashCode(relation);
+		result = prime * result + (identity ? 1231 : 1237);
+		hashCode = result;
 		return result;
 	}
 
@@ -139,17 +298,15 @@ public class TransitionFunction extends Weight {
 		if (getClass() != obj.getClass())
 			return false;
 		TransitionFunction other = (TransitionFunction) obj;
+		if (hashCode() != other.hashCode())
+			return false;
 		if (rep == null) {
 			if (other.rep != null)
 				return false;
 		} else if (!rep.equals(other.rep))
 			return false;
-		if (value == null) {
-			if (other.value != null)
-				return false;
-		} else if (!value.equals(other.value))
-			return false;
-		return true;
+		return identity == other.identity && stateIds == other.stateIds && words == other.words
+				&& Arrays.equals(relation, other.relation);
 	}
 
 }
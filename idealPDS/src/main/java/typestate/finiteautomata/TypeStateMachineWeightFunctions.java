@@ -42,14 +42,32 @@ import sync.pds.solver.nodes.Node;
 import typestate.TransitionFunction;
 import typestate.finiteautomata.MatcherTransition.Parameter;
 import typestate.finiteautomata.MatcherTransition.Type;
+import wpds.impl.Interner;
 
 public abstract class TypeStateMachineWeightFunctions implements  WeightFunctions<Statement, Val, Statement, TransitionFunction> {
 	public Set<MatcherTransition> transition = new HashSet<>();
+	private Interner<State> stateIds;
 
 	public void addTransition(MatcherTransition trans) {
 		transition.add(trans);
 	}
 	
+	/**
+	 * The ids of the states of this machine in the {@link TransitionFunction}s it creates. The ids are assigned to
+	 * the states of the transitions added so far on the first call, states unknown by then are added on demand.
+	 */
+	public synchronized Interner<State> stateIds() {
+		if (stateIds == null) {
+			stateIds = new Interner<>();
+			stateIds.intern(initialState());
+			for (MatcherTransition trans : transition) {
+				stateIds.intern(trans.from());
+				stateIds.intern(trans.to());
+			}
+		}
+		return stateIds;
+	}
+
 	@Override
 	public TransitionFunction getOne() {
 		return TransitionFunction.one();
@@ -92,7 +110,7 @@ public abstract class TypeStateMachineWeightFunctions implements  WeightFunction
 				}	
 			}
 		}
-		return (res.isEmpty() ? getOne() : new TransitionFunction(res));
+		return (res.isEmpty() ? getOne() : new TransitionFunction(res, stateIds()));
 	}
 
 	private TransitionFunction getMatchingTransitions(SootMethod method, Val node, Type type) {
@@ -115,7 +133,7 @@ public abstract class TypeStateMachineWeightFunctions implements  WeightFunction
 			
 		if(res.isEmpty())
 			return getOne();
-		return new TransitionFunction(res);
+		return new TransitionFunction(res, stateIds());
 	}
 
 	private boolean isThisValue(SootMethod method, Val node) {
@@ -222,7 +240,7 @@ public abstract class TypeStateMachineWeightFunctions implements  WeightFunction
 
 	public abstract Collection<WeightedForwardQuery<TransitionFunction>> generateSeed(SootMethod method, Unit stmt, Collection<SootMethod> calledMethod);
 	public TransitionFunction initialTransition(){
-		return new TransitionFunction(new Transition(initialState(),initialState()));
+		return new TransitionFunction(new Transition(initialState(),initialState()), stateIds());
 	}
 
 	protected abstract State initialState();
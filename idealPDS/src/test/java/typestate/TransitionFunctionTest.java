@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
+import typestate.finiteautomata.Transition;
+import wpds.impl.Interner;
+
+public class TransitionFunctionTest {
+
+	private static final List<State> STATES = Lists.newArrayList();
+
+	private static final Interner<State> IDS = new Interner<>();
+
+	static {
+		for (int i = 0; i < 70; i++) {
+			STATES.add(new TestState(i));
+			IDS.intern(STATES.get(i));
+		}
+	}
+
+	@Test
+	public void extendComposes() {
+		TransitionFunction f = func(t(0, 1), t(1, 2));
+		TransitionFunction g = func(t(1, 3), t(2, 2));
+		assertEquals(func(t(0, 3), t(1, 2)), f.extendWith(g));
+		assertSame(TransitionFunction.zero(), g.extendWith(f));
+	}
+
+	@Test
+	public void identity() {
+		TransitionFunction f = func(Transition.identity(), t(0, 1));
+		TransitionFunction g = func(t(1, 2));
+		assertEquals(func(t(0, 2), t(1, 2)), f.extendWith(g));
+		assertEquals(func(Transition.identity(), t(0, 1)), TransitionFunction.one().combineWith(func(t(0, 1))));
+		assertEquals(f, f.extendWith(func(Transition.identity())));
+	}
+
+	@Test
+	public void combineIsUnion() {
+		TransitionFunction f = func(t(0, 1));
+		TransitionFunction g = func(t(2, 65), t(0, 1));
+		assertEquals(g, f.combineWith(g));
+		assertSame(g, g.combineWith(f));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void differentMachines() {
+		func(t(0, 1)).extendWith(new TransitionFunction(t(1, 2), new Interner<State>()));
+	}
+
+	@Test
+	public void sameAsSetSemantics() {
+		Random random = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			Set<ITransition> first = randomTransitions(random);
+			Set<ITransition> second = randomTransitions(random);
+			TransitionFunction f = new TransitionFunction(first, IDS);
+			TransitionFunction g = new TransitionFunction(second, IDS);
+			Set<ITransition> composed = compose(first, second);
+			assertEquals(composed.isEmpty() ? TransitionFunction.zero() : new TransitionFunction(composed, IDS),
+					f.extendWith(g));
+			assertEquals(new TransitionFunction(Sets.union(first, second), IDS), f.combineWith(g));
+			assertEquals(first, Sets.newHashSet(f.values()));
+		}
+	}
+
+	private Set<ITransition> randomTransitions(Random random) {
+		Set<ITransition> res = Sets.newHashSet();
+		int n = 1 + random.nextInt(6);
+		for (int i = 0; i < n; i++) {
+			if (random.nextInt(8) == 0) {
+				res.add(Transition.identity());
+			} else {
+				res.add(t(random.nextInt(STATES.size()) % 8 * 9, random.nextInt(STATES.size()) % 8 * 9));
+			}
+		}
+		return res;
+	}
+
+	// The composition as computed on sets of transitions.
+	private static Set<ITransition> compose(Collection<ITransition> first, Collection<ITransition> second) {
+		Set<ITransition> res = Sets.newHashSet();
+		for (ITransition a : first) {
+			for (ITransition b : second) {
+				if (b.equals(Transition.identity())) {
+					res.add(a);
+				} else if (a.equals(Transition.identity())) {
+					res.add(b);
+				} else if (a.to().equals(b.from())) {
+					res.add(new Transition(a.from(), b.to()));
+				}
+			}
+		}
+		return res;
+	}
+
+	private static TransitionFunction func(ITransition... trans) {
+		return new TransitionFunction(Sets.newHashSet(trans), IDS);
+	}
+
+	private static Transition t(int from, int to) {
+		return new Transition(STATES.get(from), STATES.get(to));
+	}
+
+	private static class TestState implements State {
+		private final int i;
+
+		TestState(int i) {
+			this.i = i;
+		}
+
+		@Override
+		public boolean isErrorState() {
+			return false;
+		}
+
+		@Override
+		public boolean isInitialState() {
+			return i == 0;
+		}
+
+		@Override
+		public boolean isAccepting() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "S" + i;
+		}
+	}
+}
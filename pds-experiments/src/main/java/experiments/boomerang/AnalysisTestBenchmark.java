@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.boomerang;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs Boomerang and IDEal end to end on the test targets of the boomerangPDS and idealPDS modules. Every test
+ * method of a test class sets up Soot with the test method as entry point and runs the analysis in its
+ * <code>@Before</code> method, the benchmark therefore executes whole test classes through JUnit.
+ * <p>
+ * Soot loads the targets from <code>target/test-classes</code> below the working directory of the test. Both
+ * modules have to be built with <code>mvn test-compile</code> and the benchmark is pointed to the repository
+ * root with <code>-Dpds.root=&lt;path&gt;</code>, which defaults to the parent of the working directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnalysisTestBenchmark {
+
+	@Param({ "boomerangPDS:test.cases.fields.SummaryTest", "boomerangPDS:test.cases.context.SimpleContextQueryTest",
+			"boomerangPDS:test.cases.basic.InterprocedualTest", "idealPDS:typestate.tests.FileMustBeClosedTest",
+			"idealPDS:typestate.tests.IteratorTest" })
+	public String testClass;
+
+	private Class<?> test;
+
+	@Setup(Level.Trial)
+	public void setup() throws ClassNotFoundException {
+		String[] moduleAndClass = testClass.split(":");
+		File root = new File(System.getProperty("pds.root", new File(System.getProperty("user.dir")).getParent()));
+		File module = new File(root, moduleAndClass[0]);
+		if (!new File(module, "target/test-classes").isDirectory())
+			throw new IllegalStateException("Test targets of " + module + " are not compiled, run mvn test-compile.");
+		System.setProperty("user.dir", module.getAbsolutePath());
+		test = Class.forName(moduleAndClass[1]);
+	}
+
+	@Benchmark
+	public Result run() {
+		Result result = JUnitCore.runClasses(test);
+		if (!result.wasSuccessful()) {
+			Failure failure = result.getFailures().get(0);
+			throw new IllegalStateException(result.getFailureCount() + " failures in " + testClass + ", first: "
+					+ failure.getTestHeader(), failure.getException());
+		}
+		return result;
+	}
+}
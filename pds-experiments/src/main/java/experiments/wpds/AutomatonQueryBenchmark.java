@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+
+import experiments.wpds.SyntheticPDS.Shape;
+import pathexpression.IRegEx;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.ReachabilityListener;
+
+/**
+ * Queries on a saturated poststar automaton: reachability through the {@link wpds.interfaces.ForwardDFSVisitor}
+ * behind DFS listeners and extraction of the path expression from the initial state. DFS listeners stay
+ * registered with the automaton, the automaton is therefore saturated again before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AutomatonQueryBenchmark {
+
+	@Param({ "CHAIN", "DIAMOND", "RECURSION", "FANOUT" })
+	public Shape shape;
+
+	@Param({ "100", "300" })
+	public int size;
+
+	@Param({ "NUM", "MIN" })
+	public Semiring semiring;
+
+	private WeightedPAutomaton<Label, Fact, Weight> saturated;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		SyntheticPDS synthetic = new SyntheticPDS(shape, size, semiring);
+		saturated = synthetic.entryAutomaton();
+		synthetic.getPushdownSystem().poststar(saturated);
+	}
+
+	@Benchmark
+	public void forwardDFSReachability(final Blackhole bh) {
+		for (Fact state : Lists.newArrayList(saturated.getStates())) {
+			saturated.registerDFSListener(state, new ReachabilityListener<Label, Fact>() {
+				@Override
+				public void reachable(Transition<Label, Fact> t) {
+					bh.consume(t);
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public IRegEx<Label> pathExpression() {
+		return saturated.extractLanguage(saturated.getInitialState());
+	}
+}
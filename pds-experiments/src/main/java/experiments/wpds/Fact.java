@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import wpds.interfaces.State;
+
+/**
+ * A control state of a synthetic pushdown system. Facts created by the automaton for a call site carry the
+ * call site as generator label.
+ */
+public class Fact implements State {
+	private final int id;
+	private final Fact source;
+	private final Label generator;
+
+	public Fact(int id) {
+		this(id, null, null);
+	}
+
+	public Fact(Fact source, Label generator) {
+		this(source.id, source, generator);
+	}
+
+	private Fact(int id, Fact source, Label generator) {
+		this.id = id;
+		this.source = source;
+		this.generator = generator;
+	}
+
+	public boolean isGenerated() {
+		return generator != null;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = prime + id;
+		result = prime * result + (source == null ? 0 : source.hashCode());
+		result = prime * result + (generator == null ? 0 : generator.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		Fact other = (Fact) obj;
+		if (id != other.id)
+			return false;
+		if (source == null ? other.source != null : !source.equals(other.source))
+			return false;
+		return generator == null ? other.generator == null : generator.equals(other.generator);
+	}
+
+	@Override
+	public String toString() {
+		return generator == null ? "f" + id : "<" + source + "," + generator + ">";
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.UNormalRule;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.Weight.NoWeight;
+import wpds.interfaces.WPAStateListener;
+import wpds.interfaces.WPAUpdateListener;
+import wpds.interfaces.WPDSUpdateListener;
+
+/**
+ * Adding transitions to an automaton and rules to a pushdown system with the given number of update and state
+ * listeners registered. Transitions and rules are created upfront. Run with <code>-prof gc</code>, the difference
+ * in the normalized allocation rate between no and some listeners is what the notification of the listeners
+ * allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ListenerAllocationBenchmark {
+
+	@Param({ "0", "100" })
+	public int listeners;
+
+	@Param({ "100000" })
+	public int additions;
+
+	private List<Transition<Label, Fact>> transitions;
+
+	private List<Rule<Label, Fact, NoWeight>> rules;
+
+	private PAutomaton<Label, Fact> fa;
+
+	private PushdownSystem<Label, Fact> pds;
+
+	@Setup
+	public void createInput() {
+		transitions = Lists.newArrayListWithCapacity(additions);
+		rules = Lists.newArrayListWithCapacity(additions);
+		for (int i = 0; i < additions; i++) {
+			transitions.add(new Transition<>(new Fact(0), new Label("n" + i), new Fact(i + 1)));
+			rules.add(new UNormalRule<>(new Fact(i), new Label("n" + i), new Fact(i + 1), new Label("n" + (i + 1))));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void registerListeners() {
+		fa = SyntheticPDS.unweightedAutomaton(new Fact(0));
+		pds = new PushdownSystem<>();
+		for (int i = 0; i < listeners; i++) {
+			fa.registerListener(new UpdateListener());
+			fa.registerListener(new StateListener(i));
+			pds.registerUpdateListener(new RuleListener());
+		}
+	}
+
+	@Benchmark
+	public PAutomaton<Label, Fact> addTransitions() {
+		for (Transition<Label, Fact> t : transitions) {
+			fa.addTransition(t);
+		}
+		return fa;
+	}
+
+	@Benchmark
+	public PushdownSystem<Label, Fact> addRules() {
+		for (Rule<Label, Fact, NoWeight> r : rules) {
+			pds.addRule(r);
+		}
+		return pds;
+	}
+
+	private static class UpdateListener implements WPAUpdateListener<Label, Fact, NoWeight> {
+		@Override
+		public void onWeightAdded(Transition<Label, Fact> t, NoWeight w,
+				WeightedPAutomaton<Label, Fact, NoWeight> aut) {
+		}
+	}
+
+	private static class RuleListener implements WPDSUpdateListener<Label, Fact, NoWeight> {
+		@Override
+		public void onRuleAdded(Rule<Label, Fact, NoWeight> rule) {
+		}
+	}
+
+	// Listeners on the common start state of all transitions, distinguished by id.
+	private static class StateListener extends WPAStateListener<Label, Fact, NoWeight> {
+		private final int id;
+
+		StateListener(int id) {
+			super(new Fact(0));
+			this.id = id;
+		}
+
+		@Override
+		public void onOutTransitionAdded(Transition<Label, Fact> t, NoWeight w,
+				WeightedPAutomaton<Label, Fact, NoWeight> aut) {
+		}
+
+		@Override
+		public void onInTransitionAdded(Transition<Label, Fact> t, NoWeight w,
+				WeightedPAutomaton<Label, Fact, NoWeight> aut) {
+		}
+
+		@Override
+		protected int computeHashCode() {
+			return 31 * super.computeHashCode() + id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return super.equals(obj) && id == ((StateListener) obj).id;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Filling and querying a {@link WeightedPAutomaton} with the hash map based and with the packed transition
+ * storage. Run with <code>-prof gc</code>, the normalized allocation rate divided by the number of transitions
+ * is the number of bytes each storage allocates per transition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PackedTransitionStorageBenchmark {
+
+	private static final int STATES = 10000;
+
+	@Param({ "false", "true" })
+	public boolean packed;
+
+	@Param({ "100000", "1000000" })
+	public int transitions;
+
+	private List<Transition<Label, Fact>> input;
+
+	private WeightedPAutomaton<Label, Fact, Weight> filled;
+
+	@Setup
+	public void setup() {
+		input = Lists.newArrayListWithCapacity(transitions);
+		for (int i = 0; i < transitions; i++) {
+			input.add(new Transition<>(new Fact(i % STATES), new Label("n" + (i / STATES)),
+					new Fact((i + 1) % STATES)));
+		}
+		filled = fill();
+	}
+
+	@Benchmark
+	public WeightedPAutomaton<Label, Fact, Weight> fill() {
+		WeightedPAutomaton<Label, Fact, Weight> fa = SyntheticPDS.automaton(new Fact(0), Semiring.NUM);
+		fa.setPackedTransitionStorage(packed);
+		Weight one = Semiring.NUM.one();
+		for (Transition<Label, Fact> t : input) {
+			fa.addWeightForTransition(t, one);
+		}
+		return fa;
+	}
+
+	@Benchmark
+	public void lookup(Blackhole bh) {
+		for (Transition<Label, Fact> t : input) {
+			bh.consume(filled.getWeightFor(t));
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import wpds.impl.NormalRule;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushRule;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.UNormalRule;
+import wpds.impl.UPopRule;
+import wpds.impl.UPushRule;
+import wpds.impl.Weight.NoWeight;
+
+/**
+ * Prestar and the rule lookups it performs on a synthetic PDS, once through the rule indexes of the pushdown
+ * system and once through linear scans over all rules, as they were performed before the indexes existed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PrestarRuleIndexBenchmark {
+
+	private static final int STATES = 1000;
+
+	public enum Lookup {
+		INDEXED, LINEAR_SCAN
+	}
+
+	@Param({ "INDEXED", "LINEAR_SCAN" })
+	public Lookup lookup;
+
+	@Param({ "10000", "100000" })
+	public int rules;
+
+	private PushdownSystem<Label, Fact> pds;
+
+	@Setup
+	public void setup() {
+		pds = lookup == Lookup.INDEXED ? new PushdownSystem<Label, Fact>() : new LinearScanPushdownSystem();
+		// 1% push rules, 10% pop rules, the remaining rules are normal rules.
+		for (int i = 0; i < rules; i++) {
+			Fact from = new Fact(i % STATES);
+			Fact to = new Fact((i + 1) % STATES);
+			if (i % 100 == 0) {
+				pds.addRule(new UPushRule<>(from, l("n", i), to, l("n", i + 1), l("c", i)));
+			} else if (i % 10 == 0) {
+				pds.addRule(new UPopRule<>(from, l("n", i), to));
+			} else {
+				pds.addRule(new UNormalRule<>(from, l("n", i), to, l("n", i + 1)));
+			}
+		}
+	}
+
+	@Benchmark
+	public PAutomaton<Label, Fact> prestar() {
+		Fact initial = new Fact(0);
+		PAutomaton<Label, Fact> fa = SyntheticPDS.unweightedAutomaton(initial);
+		fa.addTransition(new Transition<>(initial, l("n", 0), SyntheticPDS.ACC));
+		pds.prestar(fa);
+		return fa;
+	}
+
+	/**
+	 * The lookups prestar performs for each transition taken from its worklist, for 1% of the rules.
+	 */
+	@Benchmark
+	public void lookups(Blackhole bh) {
+		for (int i = 0; i < rules / 100; i++) {
+			Fact state = new Fact((i + 1) % STATES);
+			Label label = l("n", i + 1);
+			bh.consume(pds.getNormalRulesEnding(state, label));
+			bh.consume(pds.getPushRulesEnding(state, label));
+			bh.consume(pds.getRulesStarting(state, label));
+		}
+	}
+
+	private static Label l(String prefix, int i) {
+		return new Label(prefix + i);
+	}
+
+	private static class LinearScanPushdownSystem extends PushdownSystem<Label, Fact> {
+
+		@Override
+		public Set<Rule<Label, Fact, NoWeight>> getRulesStarting(Fact start, Label string) {
+			Set<Rule<Label, Fact, NoWeight>> result = new HashSet<>();
+			scan(start, string, getNormalRules(), result);
+			scan(start, string, getPopRules(), result);
+			scan(start, string, getPushRules(), result);
+			return result;
+		}
+
+		private void scan(Fact start, Label string, Set<? extends Rule<Label, Fact, NoWeight>> rules,
+				Set<Rule<Label, Fact, NoWeight>> result) {
+			for (Rule<Label, Fact, NoWeight> r : rules) {
+				if (r.getS1().equals(start) && r.getL1().equals(string))
+					result.add(r);
+			}
+		}
+
+		@Override
+		public Set<NormalRule<Label, Fact, NoWeight>> getNormalRulesEnding(Fact start, Label string) {
+			Set<NormalRule<Label, Fact, NoWeight>> result = new HashSet<>();
+			for (NormalRule<Label, Fact, NoWeight> r : getNormalRules()) {
+				if (r.getS2().equals(start) && r.getL2().equals(string))
+					result.add(r);
+			}
+			return result;
+		}
+
+		@Override
+		public Set<PushRule<Label, Fact, NoWeight>> getPushRulesEnding(Fact start, Label string) {
+			Set<PushRule<Label, Fact, NoWeight>> result = new HashSet<>();
+			for (PushRule<Label, Fact, NoWeight> r : getPushRules()) {
+				if (r.getS2().equals(start) && r.getL2().equals(string))
+					result.add(r);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import experiments.wpds.SyntheticPDS.Shape;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+/**
+ * Poststar and prestar over the synthetic pushdown systems. Saturation registers listeners with the pushdown
+ * system and mutates the automaton, hence both are rebuilt before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SaturationBenchmark {
+
+	@Param({ "CHAIN", "DIAMOND", "RECURSION", "FANOUT" })
+	public Shape shape;
+
+	@Param({ "100", "300" })
+	public int size;
+
+	@Param({ "NUM", "MIN" })
+	public Semiring semiring;
+
+	private WeightedPushdownSystem<Label, Fact, Weight> pds;
+	private WeightedPAutomaton<Label, Fact, Weight> entry;
+	private WeightedPAutomaton<Label, Fact, Weight> exit;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		SyntheticPDS synthetic = new SyntheticPDS(shape, size, semiring);
+		pds = synthetic.getPushdownSystem();
+		entry = synthetic.entryAutomaton();
+		exit = synthetic.exitAutomaton();
+	}
+
+	@Benchmark
+	public WeightedPAutomaton<Label, Fact, Weight> poststar() {
+		pds.poststar(entry);
+		return entry;
+	}
+
+	@Benchmark
+	public WeightedPAutomaton<Label, Fact, Weight> prestar() {
+		pds.prestar(exit);
+		return exit;
+	}
+}
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package experiments.wpds;
+
+import wpds.impl.NormalRule;
+import wpds.impl.PAutomaton;
+import wpds.impl.PopRule;
+import wpds.impl.PushRule;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+/**
+ * Generates weighted pushdown systems of a given shape and size. Every shape has a single entry configuration,
+ * from which poststar starts, and a single exit configuration, which is the target of prestar. All shapes are
+ * acyclic in their call graph, such that saturation terminates for every {@link Semiring}.
+ */
+public class SyntheticPDS {
+
+	public enum Shape {
+		/**
+		 * A straight line of <code>size</code> normal rules alternating between two facts.
+		 */
+		CHAIN,
+		/**
+		 * <code>size</code> consecutive if-then-else diamonds with different weights on both branches.
+		 */
+		DIAMOND,
+		/**
+		 * A call chain of depth <code>size</code>, each callee returns to its caller.
+		 */
+		RECURSION,
+		/**
+		 * A single call site with <code>size</code> possible callees and <code>size</code> successors.
+		 */
+		FANOUT
+	}
+
+	public static final Fact ACC = new Fact(-1);
+	private static final Label EPSILON = new Label("EPS");
+
+	private final Semiring semiring;
+	private final WeightedPushdownSystem<Label, Fact, Weight> pds = new WeightedPushdownSystem<>();
+	private Fact entryFact = new Fact(0);
+	private Label entry;
+	private Fact exitFact = entryFact;
+	private Label exit;
+
+	public SyntheticPDS(Shape shape, int size, Semiring semiring) {
+		this.semiring = semiring;
+		switch (shape) {
+		case CHAIN:
+			chain(size);
+			break;
+		case DIAMOND:
+			diamond(size);
+			break;
+		case RECURSION:
+			recursion(size);
+			break;
+		case FANOUT:
+			fanOut(size);
+			break;
+		}
+	}
+
+	private void chain(int size) {
+		entry = l("n", 0);
+		for (int i = 0; i < size; i++) {
+			normal(f(i % 2), l("n", i), f((i + 1) % 2), l("n", i + 1), i);
+		}
+		exitFact = f(size % 2);
+		exit = l("n", size);
+	}
+
+	private void diamond(int size) {
+		entry = l("n", 0);
+		for (int i = 0; i < size; i++) {
+			normal(entryFact, l("n", i), entryFact, l("a", i), 1);
+			normal(entryFact, l("n", i), entryFact, l("b", i), 2);
+			normal(entryFact, l("a", i), entryFact, l("n", i + 1), 0);
+			normal(entryFact, l("b", i), entryFact, l("n", i + 1), 0);
+		}
+		exit = l("n", size);
+	}
+
+	private void recursion(int size) {
+		entry = l("e", 0);
+		for (int d = 0; d < size; d++) {
+			push(entryFact, l("e", d), entryFact, l("e", d + 1), l("r", d), d);
+			normal(entryFact, l("r", d), entryFact, l("x", d), 1);
+			if (d > 0)
+				pop(entryFact, l("x", d), entryFact, 1);
+		}
+		pop(entryFact, l("e", size), entryFact, 1);
+		exit = l("x", 0);
+	}
+
+	private void fanOut(int size) {
+		entry = l("n", 0);
+		for (int i = 0; i < size; i++) {
+			push(entryFact, entry, f(i), l("e", i), l("r", 0), i);
+			pop(f(i), l("e", i), entryFact, 1);
+			normal(entryFact, entry, entryFact, l("t", i), i);
+			normal(entryFact, l("t", i), entryFact, l("r", 0), 1);
+		}
+		exit = l("r", 0);
+	}
+
+	private void normal(Fact s1, Label l1, Fact s2, Label l2, int w) {
+		pds.addRule(new NormalRule<>(s1, l1, s2, l2, semiring.weight(w)));
+	}
+
+	private void push(Fact s1, Label l1, Fact s2, Label l2, Label callSite, int w) {
+		pds.addRule(new PushRule<>(s1, l1, s2, l2, callSite, semiring.weight(w)));
+	}
+
+	private void pop(Fact s1, Label l1, Fact s2, int w) {
+		pds.addRule(new PopRule<>(s1, l1, s2, semiring.weight(w)));
+	}
+
+	private static Fact f(int id) {
+		return new Fact(id);
+	}
+
+	private static Label l(String prefix, int i) {
+		return new Label(prefix + i);
+	}
+
+	public WeightedPushdownSystem<Label, Fact, Weight> getPushdownSystem() {
+		return pds;
+	}
+
+	/**
+	 * A fresh automaton accepting the entry configuration, the input to poststar.
+	 */
+	public WeightedPAutomaton<Label, Fact, Weight> entryAutomaton() {
+		return accepts(entryFact, entry);
+	}
+
+	/**
+	 * A fresh automaton accepting the exit configuration, the input to prestar.
+	 */
+	public WeightedPAutomaton<Label, Fact, Weight> exitAutomaton() {
+		return accepts(exitFact, exit);
+	}
+
+	private WeightedPAutomaton<Label, Fact, Weight> accepts(Fact fact, Label label) {
+		WeightedPAutomaton<Label, Fact, Weight> aut = automaton(fact, semiring);
+		Transition<Label, Fact> t = new Transition<>(fact, label, ACC);
+		aut.addTransition(t);
+		aut.addWeightForTransition(t, semiring.one());
+		return aut;
+	}
+
+	/**
+	 * An empty automaton over the given semiring with {@link #ACC} as final state.
+	 */
+	public static WeightedPAutomaton<Label, Fact, Weight> automaton(Fact initialState, final Semiring semiring) {
+		WeightedPAutomaton<Label, Fact, Weight> aut = new WeightedPAutomaton<Label, Fact, Weight>(initialState) {
+			@Override
+			public Fact createState(Fact d, Label loc) {
+				return new Fact(d, loc);
+			}
+
+			@Override
+			public boolean isGeneratedState(Fact d) {
+				return d.isGenerated();
+			}
+
+			@Override
+			public Label epsilon() {
+				return EPSILON;
+			}
+
+			@Override
+			public Weight getOne() {
+				return semiring.one();
+			}
+
+			@Override
+			public Weight getZero() {
+				return semiring.zero();
+			}
+		};
+		aut.addFinalState(ACC);
+		return aut;
+	}
+
+	/**
+	 * An empty unweighted automaton with {@link #ACC} as final state.
+	 */
+	public static PAutomaton<Label, Fact> unweightedAutomaton(Fact initialState) {
+		PAutomaton<Label, Fact> aut = new PAutomaton<Label, Fact>(initialState) {
+			@Override
+			public Fact createState(Fact d, Label loc) {
+				return new Fact(d, loc);
+			}
+
+			@Override
+			public boolean isGeneratedState(Fact d) {
+				return d.isGenerated();
+			}
+
+			@Override
+			public Label epsilon() {
+				return EPSILON;
+			}
+		};
+		aut.addFinalState(ACC);
+		return aut;
+	}
+}